@@ -0,0 +1,26 @@
+package com.springboot.blog.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One cached response body: the UTF-8 JSON as sent, its gzip variant (null when compression would
+ * not pay off) and the validators needed to keep answering conditional requests.
+ */
+@Getter
+@AllArgsConstructor
+public class CachedResponse {
+
+    private final String group;
+    private final String contentType;
+    private final byte[] body;
+    private final byte[] gzippedBody;
+    private final String etag;
+    private final long lastModified;
+    // the handler's path pattern, so metrics of a cache hit land on the endpoint that made it
+    private final String pathPattern;
+
+    int weight() {
+        return body.length + (gzippedBody != null ? gzippedBody.length : 0);
+    }
+}
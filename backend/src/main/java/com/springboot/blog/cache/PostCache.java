@@ -0,0 +1,123 @@
+package com.springboot.blog.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.springboot.blog.event.CommentChangedEvent;
+import com.springboot.blog.event.PostChangedEvent;
+import com.springboot.blog.mapper.PostMapper;
+import com.springboot.blog.payload.CacheStatsDto;
+import com.springboot.blog.payload.PostDto;
+import com.springboot.blog.repository.CommentRepository;
+import com.springboot.blog.repository.PostRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Read-through cache of rendered post detail ({@link PostDto} including comments).
+ *
+ * Entries are bounded by size and expire after a TTL. Once an entry is older than the refresh
+ * interval the next read still returns it immediately and reloads it in the background, so a slow
+ * database shows up as slightly stale posts rather than slow requests. Post and comment writes
+ * invalidate the affected post once they commit. Cached DTOs are shared between requests and must
+ * not be mutated.
+ */
+@Component
+public class PostCache implements ApplicationRunner, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostCache.class);
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final PostMapper postMapper;
+    private final int warmCount;
+    private final LoadingCache<Long, PostDto> cache;
+
+    public PostCache(PostRepository postRepository,
+                     CommentRepository commentRepository,
+                     PostMapper postMapper,
+                     @Value("${app.cache.posts.max-size:10000}") long maxSize,
+                     @Value("${app.cache.posts.ttl:PT30M}") Duration ttl,
+                     @Value("${app.cache.posts.refresh-after:PT1M}") Duration refreshAfter,
+                     @Value("${app.cache.posts.warm-count:100}") int warmCount) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.postMapper = postMapper;
+        this.warmCount = warmCount;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .refreshAfterWrite(refreshAfter)
+                .recordStats()
+                .build(this::load);
+    }
+
+    // null when the post does not exist; misses are not cached
+    public PostDto get(long postId) {
+        return cache.get(postId);
+    }
+
+    public void invalidate(long postId) {
+        cache.invalidate(postId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStatsDto stats() {
+        return CacheStatsDto.of("posts", cache.estimatedSize(), cache.stats());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "posts");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        invalidate(event.getPostId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentChanged(CommentChangedEvent event) {
+        invalidate(event.getPostId());
+    }
+
+    // warm with the most recent posts without holding up startup
+    @Override
+    public void run(ApplicationArguments args) {
+        if (warmCount <= 0) {
+            return;
+        }
+        ForkJoinPool.commonPool().execute(() -> {
+            try {
+                List<Long> ids = postRepository.findRecentIds(PageRequest.of(0, warmCount));
+                cache.getAll(ids);
+                logger.info("Warmed post cache with {} posts", ids.size());
+            } catch (RuntimeException e) {
+                logger.warn("Post cache warm-up failed", e);
+            }
+        });
+    }
+
+    // runs on request threads for misses and on the common pool for background refreshes, so it
+    // must only use fetch-planned queries (no lazy loading outside a request)
+    private PostDto load(Long postId) {
+        return postRepository.findWithUserAndCategoryById(postId)
+                .map(post -> postMapper.toDto(post, commentRepository.findByPostId(postId)))
+                .orElse(null);
+    }
+}
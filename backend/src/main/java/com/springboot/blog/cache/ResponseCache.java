@@ -0,0 +1,133 @@
+package com.springboot.blog.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springboot.blog.event.CommentChangedEvent;
+import com.springboot.blog.event.PostChangedEvent;
+import com.springboot.blog.payload.CacheStatsDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Already-serialized bodies of public GET responses, keyed by normalized URL, each with a
+ * pre-gzipped variant. {@link ResponseCacheFilter} fills and serves it, so a hit skips the
+ * controller, Jackson and compression entirely.
+ *
+ * Every entry belongs to a group: one post's detail and comments, the post listings (which show
+ * comment counts, so any post or comment write stales them), search results, or the preset
+ * categories, which never change. Writes drop the affected groups. Bounded by total body bytes.
+ */
+@Component
+public class ResponseCache implements MeterBinder {
+
+    public static final String GROUP_POSTS = "posts";
+    public static final String GROUP_CATEGORIES = "categories";
+    // dropped by PostSearchIndex once an update is searchable, not on the write itself
+    public static final String GROUP_SEARCH = "search";
+
+    // bodies this small do not shrink when gzipped
+    private static final int MIN_GZIP_BYTES = 256;
+
+    private final Cache<String, CachedResponse> cache;
+
+    // bumped on every invalidation so a response rendered before a write is not stored after it
+    private final AtomicLong generation = new AtomicLong();
+
+    public ResponseCache(@Value("${app.cache.responses.max-bytes:67108864}") long maxBytes,
+                         @Value("${app.cache.responses.ttl:PT5M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedResponse response) -> response.weight())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public static String postGroup(long postId) {
+        return "post:" + postId;
+    }
+
+    public CachedResponse get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    // skipped if anything was invalidated since the caller read generation()
+    public void put(String key, CachedResponse response, long expectedGeneration) {
+        if (generation.get() == expectedGeneration) {
+            cache.put(key, response);
+            if (generation.get() != expectedGeneration) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    public void invalidateGroups(String... groups) {
+        generation.incrementAndGet();
+        cache.asMap().values().removeIf(response -> {
+            for (String group : groups) {
+                if (group.equals(response.getGroup())) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public CacheStatsDto stats() {
+        return CacheStatsDto.of("responses", cache.estimatedSize(), cache.stats());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "responses");
+        Gauge.builder("app.cache.responses.bytes", cache,
+                        responses -> responses.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .description("Body bytes held by the response cache, against app.cache.responses.max-bytes")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        invalidateGroups(GROUP_POSTS, postGroup(event.getPostId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentChanged(CommentChangedEvent event) {
+        invalidateGroups(GROUP_POSTS, postGroup(event.getPostId()));
+    }
+
+    public static byte[] gzip(byte[] body) {
+        if (body.length < MIN_GZIP_BYTES) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.size() < body.length ? out.toByteArray() : null;
+    }
+}
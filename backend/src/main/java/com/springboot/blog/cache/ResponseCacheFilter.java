@@ -0,0 +1,199 @@
+package com.springboot.blog.cache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves anonymous GETs of the public post and category endpoints from {@link ResponseCache}.
+ *
+ * Requests carrying an Authorization header always go through, since a token can change what
+ * the controllers return. Registered as a plain servlet filter, so it runs after the security
+ * chain and cached responses still get the security headers. Only 200 JSON responses are stored;
+ * conditional requests are answered from the stored ETag / Last-Modified.
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final Pattern POST_PATH = Pattern.compile("^/api/posts/(\\d{1,18})(/.*)?$");
+
+    private final ResponseCache responseCache;
+
+    public ResponseCacheFilter(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod()) || request.getHeader(HttpHeaders.AUTHORIZATION) != null) {
+            return true;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE)) {
+            return true;
+        }
+        String path = path(request);
+        // live event streams never end, so there is nothing to store
+        if (path.endsWith("/events")) {
+            return true;
+        }
+        return !path.startsWith("/api/posts") && !path.startsWith("/api/v1/categories");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        String key = key(request);
+        CachedResponse cached = responseCache.get(key);
+        if (cached != null) {
+            tagPathPattern(request, cached.getPathPattern());
+            write(request, response, cached);
+            return;
+        }
+
+        long generation = responseCache.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+        } catch (IOException | ServletException | RuntimeException e) {
+            wrapper.copyBodyToResponse();
+            throw e;
+        }
+        if (!isCacheable(request, wrapper)) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        byte[] body = wrapper.getContentAsByteArray();
+        CachedResponse fresh = new CachedResponse(group(path(request)), wrapper.getContentType(), body,
+                ResponseCache.gzip(body), wrapper.getHeader(HttpHeaders.ETAG), lastModified(wrapper),
+                (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+        responseCache.put(key, fresh, generation);
+
+        // headers already went through the wrapper; only the body is still buffered
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (fresh.getGzippedBody() != null && acceptsGzip(request)) {
+            writeBody(response, fresh.getGzippedBody(), true);
+        } else {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private boolean isCacheable(HttpServletRequest request, ContentCachingResponseWrapper wrapper) {
+        if (request.isAsyncStarted() || wrapper.getStatus() != HttpServletResponse.SC_OK
+                || wrapper.getContentSize() == 0 || wrapper.getHeader(HttpHeaders.SET_COOKIE) != null) {
+            return false;
+        }
+        String contentType = wrapper.getContentType();
+        return contentType != null && MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+    }
+
+    // what the dispatcher would have set, had the request reached it
+    private static void tagPathPattern(HttpServletRequest request, String pathPattern) {
+        if (pathPattern != null) {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pathPattern);
+            ServerHttpObservationFilter.findObservationContext(request)
+                    .ifPresent(context -> context.setPathPattern(pathPattern));
+        }
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, CachedResponse cached)
+            throws IOException {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if ((cached.getEtag() != null || cached.getLastModified() > 0)
+                && new ServletWebRequest(request, response).checkNotModified(cached.getEtag(), cached.getLastModified())) {
+            return;
+        }
+        response.setContentType(cached.getContentType());
+        boolean gzip = cached.getGzippedBody() != null && acceptsGzip(request);
+        writeBody(response, gzip ? cached.getGzippedBody() : cached.getBody(), gzip);
+    }
+
+    private void writeBody(HttpServletResponse response, byte[] body, boolean gzip) throws IOException {
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static long lastModified(HttpServletResponse response) {
+        String value = response.getHeader(HttpHeaders.LAST_MODIFIED);
+        if (value == null) {
+            return -1;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.LAST_MODIFIED, value);
+        return headers.getLastModified();
+    }
+
+    private static String path(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+
+    // path plus the query parameters sorted by name, so equivalent URLs share an entry
+    private static String key(HttpServletRequest request) {
+        Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+        if (parameters.isEmpty()) {
+            return path(request);
+        }
+        StringBuilder key = new StringBuilder(path(request)).append('?');
+        parameters.forEach((name, values) -> {
+            for (String value : values) {
+                key.append(URLEncoder.encode(name, StandardCharsets.UTF_8)).append('=')
+                        .append(URLEncoder.encode(value, StandardCharsets.UTF_8)).append('&');
+            }
+        });
+        key.setLength(key.length() - 1);
+        return key.toString();
+    }
+
+    private static String group(String path) {
+        if (path.startsWith("/api/v1/categories")) {
+            return ResponseCache.GROUP_CATEGORIES;
+        }
+        if (path.equals("/api/posts/search")) {
+            return ResponseCache.GROUP_SEARCH;
+        }
+        Matcher matcher = POST_PATH.matcher(path);
+        if (matcher.matches()) {
+            return ResponseCache.postGroup(Long.parseLong(matcher.group(1)));
+        }
+        return ResponseCache.GROUP_POSTS;
+    }
+}
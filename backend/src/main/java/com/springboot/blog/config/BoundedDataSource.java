@@ -0,0 +1,96 @@
+package com.springboot.blog.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A fair semaphore in front of the connection pool: a caller takes a permit before borrowing a
+ * connection and gives it back when it closes the connection.
+ *
+ * With requests on virtual threads nothing bounds how many of them reach the pool at once, and
+ * thousands of borrowers contending inside Hikari spin, time out in bulk and hold carrier threads
+ * while they do. Here they queue first-come first-served on a parked semaphore, which costs a
+ * virtual thread nothing, and give up after the max wait with a transient SQL exception. With as
+ * many permits as pool connections, whoever gets past the semaphore finds a connection free.
+ */
+public class BoundedDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+
+    public BoundedDataSource(DataSource target, int permits, Duration maxWait) {
+        super(target);
+        this.permits = new Semaphore(permits, true);
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return permitted(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return permitted(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int queueLength() {
+        return permits.getQueueLength();
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException("No database connection available within "
+                        + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + " ms (" + permits.getQueueLength() + " waiting)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a database connection", e);
+        }
+    }
+
+    // the permit goes back once the connection is back in the pool, on the first close only
+    private Connection permitted(Connection connection) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    boolean releases = method.getName().equals("close") && closed.compareAndSet(false, true);
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    } finally {
+                        if (releases) {
+                            permits.release();
+                        }
+                    }
+                });
+    }
+}
@@ -1,6 +1,7 @@
 package com.springboot.blog.config;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -18,6 +19,9 @@ public enum CategoryPreset {
 
     public static final String DEFAULT_CATEGORY_NAME = "General";
 
+    private static final Set<String> ALLOWED_NAMES = Collections.unmodifiableSet(
+            Arrays.stream(values()).map(CategoryPreset::getName).collect(Collectors.toSet()));
+
     private final String name;
     private final String description;
 
@@ -35,6 +39,6 @@ public enum CategoryPreset {
     }
 
     public static Set<String> allowedNames() {
-        return Arrays.stream(values()).map(CategoryPreset::getName).collect(Collectors.toSet());
+        return ALLOWED_NAMES;
     }
 }
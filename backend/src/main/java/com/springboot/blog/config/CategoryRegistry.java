@@ -0,0 +1,78 @@
+package com.springboot.blog.config;
+
+import com.springboot.blog.cache.ResponseCache;
+import com.springboot.blog.entity.Category;
+import com.springboot.blog.mapper.CategoryMapper;
+import com.springboot.blog.payload.CategoryDto;
+import com.springboot.blog.utils.ETags;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory copy of the category table. Categories are preset (see {@link CategoryPreset}) and
+ * only written by {@link CategorySeeder}, which loads this registry once seeding is done, during
+ * context refresh; after that category reads never hit the database. The snapshot is immutable and swapped as a whole,
+ * and the returned DTOs are shared, so callers must not mutate them.
+ */
+@Component
+public class CategoryRegistry {
+
+    private final CategoryMapper categoryMapper;
+    private final ResponseCache responseCache;
+
+    private volatile Snapshot snapshot = new Snapshot(List.of());
+
+    public CategoryRegistry(CategoryMapper categoryMapper, ResponseCache responseCache) {
+        this.categoryMapper = categoryMapper;
+        this.responseCache = responseCache;
+    }
+
+    // cached category responses were rendered from the previous snapshot
+    public void load(Collection<Category> categories) {
+        snapshot = new Snapshot(categories.stream().map(categoryMapper::toDto).toList());
+        responseCache.invalidateGroups(ResponseCache.GROUP_CATEGORIES);
+    }
+
+    public Optional<CategoryDto> findById(Long id) {
+        return Optional.ofNullable(snapshot.byId.get(id));
+    }
+
+    public Optional<CategoryDto> findByName(String name) {
+        return Optional.ofNullable(snapshot.byName.get(name));
+    }
+
+    public List<CategoryDto> findAll() {
+        return snapshot.all;
+    }
+
+    // version of findAll(), fixed until the next load
+    public String getETag() {
+        return snapshot.etag;
+    }
+
+    public Instant getLoadedAt() {
+        return snapshot.loadedAt;
+    }
+
+    private static final class Snapshot {
+        private final List<CategoryDto> all;
+        private final Map<Long, CategoryDto> byId;
+        private final Map<String, CategoryDto> byName;
+        private final String etag;
+        private final Instant loadedAt = Instant.now();
+
+        private Snapshot(List<CategoryDto> all) {
+            this.all = all;
+            this.byId = all.stream().collect(Collectors.toUnmodifiableMap(CategoryDto::getId, Function.identity()));
+            this.byName = all.stream().collect(Collectors.toUnmodifiableMap(CategoryDto::getName, Function.identity()));
+            this.etag = ETags.ofCategories(all);
+        }
+    }
+}
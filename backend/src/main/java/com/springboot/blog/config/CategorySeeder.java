@@ -2,20 +2,24 @@ package com.springboot.blog.config;
 
 import com.springboot.blog.entity.Category;
 import com.springboot.blog.repository.CategoryRepository;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.stereotype.Component;
 
 @Component
-public class CategorySeeder implements CommandLineRunner {
+public class CategorySeeder implements SmartInitializingSingleton {
 
     private final CategoryRepository categoryRepository;
+    private final CategoryRegistry categoryRegistry;
 
-    public CategorySeeder(CategoryRepository categoryRepository) {
+    public CategorySeeder(CategoryRepository categoryRepository, CategoryRegistry categoryRegistry) {
         this.categoryRepository = categoryRepository;
+        this.categoryRegistry = categoryRegistry;
     }
 
+    // during context refresh, before the web server takes requests: until the registry is loaded
+    // every category reads as missing, and the empty list would be served and cached
     @Override
-    public void run(String... args) {
+    public void afterSingletonsInstantiated() {
         for (CategoryPreset preset : CategoryPreset.values()) {
             categoryRepository.findByName(preset.getName()).orElseGet(() -> {
                 Category c = new Category();
@@ -24,5 +28,6 @@ public class CategorySeeder implements CommandLineRunner {
                 return categoryRepository.save(c);
             });
         }
+        categoryRegistry.load(categoryRepository.findAll());
     }
 }
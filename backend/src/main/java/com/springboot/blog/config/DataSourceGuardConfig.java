@@ -0,0 +1,48 @@
+package com.springboot.blog.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Puts {@link BoundedDataSource} in front of the pool when app.datasource.guard.enabled is set,
+ * which it is by default whenever requests run on virtual threads. With platform threads
+ * Tomcat's thread pool already bounds the borrowers.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.guard.enabled", havingValue = "true")
+public class DataSourceGuardConfig {
+
+    // static, so the post-processor is registered before the DataSource it wraps is created
+    @Bean
+    static BeanPostProcessor dataSourceGuard(@Value("${app.datasource.guard.permits:10}") int permits,
+                                             @Value("${app.datasource.guard.max-wait:PT5S}") Duration maxWait) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BoundedDataSource)) {
+                    return new BoundedDataSource(dataSource, permits, maxWait);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder dataSourceGuardMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof BoundedDataSource bounded) {
+                Gauge.builder("app.datasource.guard.permits.available", bounded, BoundedDataSource::availablePermits)
+                        .description("Connections the guard would still hand out without a wait")
+                        .register(registry);
+            }
+        };
+    }
+}
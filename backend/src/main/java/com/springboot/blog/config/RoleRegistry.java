@@ -0,0 +1,27 @@
+package com.springboot.blog.config;
+
+import com.springboot.blog.entity.Role;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Role name to id lookup, loaded by {@link RoleSeeder} during context refresh once the fixed roles
+ * exist. Callers turn the id into a reference proxy instead of selecting the role row on every use.
+ */
+@Component
+public class RoleRegistry {
+
+    private volatile Map<String, Long> idsByName = Map.of();
+
+    public void load(Collection<Role> roles) {
+        idsByName = roles.stream().collect(Collectors.toUnmodifiableMap(Role::getName, Role::getId));
+    }
+
+    public Optional<Long> findIdByName(String name) {
+        return Optional.ofNullable(idsByName.get(name));
+    }
+}
@@ -2,22 +2,27 @@ package com.springboot.blog.config;
 
 import com.springboot.blog.entity.Role;
 import com.springboot.blog.repository.RoleRepository;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.stereotype.Component;
 
 @Component
-public class RoleSeeder implements CommandLineRunner {
+public class RoleSeeder implements SmartInitializingSingleton {
 
     private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
 
-    public RoleSeeder(RoleRepository roleRepository) {
+    public RoleSeeder(RoleRepository roleRepository, RoleRegistry roleRegistry) {
         this.roleRepository = roleRepository;
+        this.roleRegistry = roleRegistry;
     }
 
+    // during context refresh, before the web server takes requests, so no sign-up finds the
+    // registry empty
     @Override
-    public void run(String... args) {
+    public void afterSingletonsInstantiated() {
         ensureRoleExists("ROLE_USER");
         ensureRoleExists("ROLE_ADMIN");
+        roleRegistry.load(roleRepository.findAll());
     }
 
     private void ensureRoleExists(String roleName) {
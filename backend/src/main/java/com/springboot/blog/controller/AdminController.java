@@ -0,0 +1,101 @@
+package com.springboot.blog.controller;
+
+import com.springboot.blog.cache.PostCache;
+import com.springboot.blog.cache.ResponseCache;
+import com.springboot.blog.exception.BlogAPIException;
+import com.springboot.blog.importer.NdjsonImporter;
+import com.springboot.blog.job.PostPurgeJob;
+import com.springboot.blog.job.PostStatsRepairJob;
+import com.springboot.blog.payload.CacheStatsDto;
+import com.springboot.blog.payload.ImportReport;
+import com.springboot.blog.payload.PurgeStatusDto;
+import com.springboot.blog.search.PostSearchIndex;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminController {
+
+    private final PostCache postCache;
+    private final ResponseCache responseCache;
+    private final PostStatsRepairJob postStatsRepairJob;
+    private final PostPurgeJob postPurgeJob;
+    private final PostSearchIndex postSearchIndex;
+    private final NdjsonImporter importer;
+
+    public AdminController(PostCache postCache,
+                           ResponseCache responseCache,
+                           PostStatsRepairJob postStatsRepairJob,
+                           PostPurgeJob postPurgeJob,
+                           PostSearchIndex postSearchIndex,
+                           NdjsonImporter importer) {
+        this.postCache = postCache;
+        this.responseCache = responseCache;
+        this.postStatsRepairJob = postStatsRepairJob;
+        this.postPurgeJob = postPurgeJob;
+        this.postSearchIndex = postSearchIndex;
+        this.importer = importer;
+    }
+
+    // Hit/miss/eviction counters for sizing the in-process caches
+    @GetMapping("/caches")
+    public ResponseEntity<List<CacheStatsDto>> cacheStats() {
+        return ResponseEntity.ok(List.of(postCache.stats(), responseCache.stats()));
+    }
+
+    // Recompute comment counts and last activity now instead of waiting for the nightly run
+    @PostMapping("/jobs/post-stats-repair")
+    public ResponseEntity<String> repairPostStats() {
+        long repaired = postStatsRepairJob.repairAll();
+        if (repaired < 0) {
+            throw new BlogAPIException(HttpStatus.CONFLICT, "A post stats repair is already running.");
+        }
+        return ResponseEntity.ok("Post stats repaired for " + repaired + " posts.");
+    }
+
+    // How far the removal of deleted posts' comments and rows has got
+    @GetMapping("/jobs/post-purge")
+    public ResponseEntity<PurgeStatusDto> postPurgeStatus() {
+        return ResponseEntity.ok(postPurgeJob.status());
+    }
+
+    // Remove deleted posts' rows now instead of waiting for the next sweep
+    @PostMapping("/jobs/post-purge")
+    public ResponseEntity<String> purgeDeletedPosts() {
+        long purged = postPurgeJob.purgeAll();
+        if (purged < 0) {
+            throw new BlogAPIException(HttpStatus.CONFLICT, "A post purge is already running.");
+        }
+        return ResponseEntity.ok("Purged " + purged + " deleted posts.");
+    }
+
+    // Replace the search index from the tables; searches keep using the old one until it is done
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<String> rebuildSearchIndex() {
+        postSearchIndex.rebuild();
+        return ResponseEntity.accepted().body("Search index rebuild started.");
+    }
+
+    // Stream a legacy NDJSON export into the tables; after a failure, rerun with startLine set to
+    // the last committed line the log reported
+    @PostMapping("/import")
+    public ResponseEntity<ImportReport> importNdjson(InputStream body,
+                                                     @RequestParam(value = "startLine", defaultValue = "0") long startLine) {
+        ImportReport report = importer.importFrom(body, startLine);
+        if (report == null) {
+            throw new BlogAPIException(HttpStatus.CONFLICT, "An import is already running.");
+        }
+        return ResponseEntity.ok(report);
+    }
+}
@@ -1,12 +1,10 @@
 package com.springboot.blog.controller;
 
-import com.springboot.blog.entity.User;
-import com.springboot.blog.exception.ResourceNotFoundException;
 import com.springboot.blog.payload.JWTAuthResponse;
 import com.springboot.blog.payload.LoginDto;
 import com.springboot.blog.payload.RegisterDto;
-import com.springboot.blog.repository.UserRepository;
 import com.springboot.blog.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,31 +14,15 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
-    private final UserRepository userRepository;
 
-    public AuthController(AuthService authService, UserRepository userRepository) {
+    public AuthController(AuthService authService) {
         this.authService = authService;
-        this.userRepository = userRepository;
     }
 
     // Build Login REST API
     @PostMapping(value = {"/login", "/signin"})
-    public ResponseEntity<JWTAuthResponse> login(@RequestBody LoginDto loginDto) {
-
-        String token = authService.login(loginDto);
-
-        String uoe = loginDto.getUsernameOrEmail();
-        User user = userRepository.findByUsernameOrEmail(uoe, uoe)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "usernameOrEmail", uoe));
-
-        JWTAuthResponse jwtAuthResponse = new JWTAuthResponse();
-        jwtAuthResponse.setAccessToken(token);
-        jwtAuthResponse.setUserId(user.getId());
-        jwtAuthResponse.setUsername(user.getUsername());
-        jwtAuthResponse.setName(user.getName());
-        jwtAuthResponse.setEmail(user.getEmail());
-
-        return ResponseEntity.ok(jwtAuthResponse);
+    public ResponseEntity<JWTAuthResponse> login(@RequestBody LoginDto loginDto, HttpServletRequest request) {
+        return ResponseEntity.ok(authService.login(loginDto, request.getRemoteAddr()));
     }
 
     @PostMapping(value = {"/register", "/signup"})
@@ -3,10 +3,12 @@ package com.springboot.blog.controller;
 import com.springboot.blog.entity.Category;
 import com.springboot.blog.payload.CategoryDto;
 import com.springboot.blog.service.CategoryService;
+import com.springboot.blog.utils.ETags;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -30,14 +32,21 @@ public class CategoryController {
 
     // Build Get Category REST API
     @GetMapping("{id}")
-    public ResponseEntity<CategoryDto> getCategory(@PathVariable("id") Long categoryId){
+    public ResponseEntity<CategoryDto> getCategory(@PathVariable("id") Long categoryId, WebRequest webRequest){
         CategoryDto categoryDto = categoryService.getCategory(categoryId);
+        if (webRequest.checkNotModified(ETags.of(categoryDto), ETags.epochMillis(categoryService.getLastModified()))) {
+            return null;
+        }
         return ResponseEntity.ok(categoryDto);
     }
 
     // Build Get All Categories REST API
     @GetMapping
-    public ResponseEntity<List<CategoryDto>> getCategories(){
+    public ResponseEntity<List<CategoryDto>> getCategories(WebRequest webRequest){
+        if (webRequest.checkNotModified(categoryService.getAllCategoriesETag(),
+                ETags.epochMillis(categoryService.getLastModified()))) {
+            return null;
+        }
         return ResponseEntity.ok(categoryService.getAllCategories());
     }
 
@@ -1,11 +1,18 @@
 package com.springboot.blog.controller;
 
+import com.springboot.blog.payload.CommentCursorResponse;
 import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.security.UserPrincipal;
 import com.springboot.blog.service.CommentService;
+import com.springboot.blog.utils.AppConstants;
+import com.springboot.blog.utils.ETags;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.security.Principal;
 import java.util.List;
@@ -24,33 +31,62 @@ public class CommentController {
     @PostMapping("/posts/{postId}/comments")
     public ResponseEntity<CommentDto> createComment(@PathVariable(value = "postId") long postId,
                                                     @Valid @RequestBody CommentDto commentDto,
-                                                    Principal principal) {
-        CommentDto saved = commentService.createComment(postId, commentDto, principal.getName());
-        return new ResponseEntity<>(saved, HttpStatus.CREATED);
+                                                    @AuthenticationPrincipal UserPrincipal principal) {
+        CommentDto saved = commentService.createComment(postId, commentDto, principal);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(ETags.of(saved)).body(saved);
     }
 
-    // Get all comments for a post (public)
+    // Get all comments for a post (public); 304 when the client's copy is current
     @GetMapping("/posts/{postId}/comments")
-    public List<CommentDto> getCommentsByPostId(@PathVariable(value = "postId") long postId) {
-        return commentService.getCommentsByPostId(postId);
+    public ResponseEntity<List<CommentDto>> getCommentsByPostId(@PathVariable(value = "postId") long postId,
+                                                                WebRequest webRequest) {
+        List<CommentDto> comments = commentService.getCommentsByPostId(postId);
+        if (webRequest.checkNotModified(ETags.ofComments(postId, comments),
+                ETags.epochMillis(ETags.lastModified(comments)))) {
+            return null;
+        }
+        return ResponseEntity.ok(comments);
+    }
+
+    // Get a post's comments oldest first, one capped page at a time (public)
+    // http://localhost:8080/api/posts/3/comments/cursor?pageSize=20&after=...
+    @GetMapping("/posts/{postId}/comments/cursor")
+    public CommentCursorResponse getCommentsByPostIdCursor(
+            @PathVariable(value = "postId") long postId,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.DEFAULT_PAGE_SIZE, required = false) int pageSize
+    ) {
+        return commentService.getCommentsByPostIdCursor(postId, after, pageSize);
     }
 
-    // Update comment (only author or ADMIN)
+    // Update comment (only author or ADMIN); a stale If-Match is rejected with 412
     @PutMapping("/posts/{postId}/comments/{id}")
     public ResponseEntity<CommentDto> updateComment(@PathVariable(value = "postId") Long postId,
                                                     @PathVariable(value = "id") Long commentId,
                                                     @Valid @RequestBody CommentDto commentDto,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                     Principal principal) {
-        CommentDto updatedComment = commentService.updateComment(postId, commentId, commentDto, principal.getName());
-        return new ResponseEntity<>(updatedComment, HttpStatus.OK);
+        CommentDto updatedComment = commentService.updateComment(postId, commentId, commentDto, principal.getName(), ifMatch);
+        return ResponseEntity.ok().eTag(ETags.of(updatedComment)).body(updatedComment);
+    }
+
+    // Edit a comment's body in a single statement (only author or ADMIN)
+    @PatchMapping("/posts/{postId}/comments/{id}")
+    public ResponseEntity<Void> patchComment(@PathVariable(value = "postId") long postId,
+                                             @PathVariable(value = "id") long commentId,
+                                             @Valid @RequestBody CommentDto commentDto,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                             @AuthenticationPrincipal UserPrincipal principal) {
+        commentService.patchComment(postId, commentId, commentDto, principal, ifMatch);
+        return ResponseEntity.noContent().build();
     }
 
     // Delete comment (only author or ADMIN)
     @DeleteMapping("/posts/{postId}/comments/{id}")
-    public ResponseEntity<String> deleteComment(@PathVariable(value = "postId") Long postId,
-                                                @PathVariable(value = "id") Long commentId,
-                                                Principal principal) {
-        commentService.deleteComment(postId, commentId, principal.getName());
+    public ResponseEntity<String> deleteComment(@PathVariable(value = "postId") long postId,
+                                                @PathVariable(value = "id") long commentId,
+                                                @AuthenticationPrincipal UserPrincipal principal) {
+        commentService.deleteComment(postId, commentId, principal);
         return new ResponseEntity<>("Comment deleted successfully", HttpStatus.OK);
     }
 }
@@ -0,0 +1,40 @@
+package com.springboot.blog.controller;
+
+import com.springboot.blog.live.LiveEventHub;
+import com.springboot.blog.service.CategoryService;
+import com.springboot.blog.service.PostService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api")
+public class LiveController {
+
+    private final LiveEventHub liveEventHub;
+    private final PostService postService;
+    private final CategoryService categoryService;
+
+    public LiveController(LiveEventHub liveEventHub, PostService postService, CategoryService categoryService) {
+        this.liveEventHub = liveEventHub;
+        this.postService = postService;
+        this.categoryService = categoryService;
+    }
+
+    // Live comment and post changes of one post as Server-Sent Events (public);
+    // a reconnect with Last-Event-ID gets what it missed, or a reset event when that is no longer buffered
+    @GetMapping(value = "/posts/{postId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter postEvents(@PathVariable("postId") long postId,
+                                 @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        postService.getPostById(postId);
+        return liveEventHub.subscribe(LiveEventHub.postTopic(postId), lastEventId);
+    }
+
+    // Posts created, updated and deleted in one category (public)
+    @GetMapping(value = "/v1/categories/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter categoryEvents(@PathVariable("id") long categoryId,
+                                     @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        categoryService.getCategory(categoryId);
+        return liveEventHub.subscribe(LiveEventHub.categoryTopic(categoryId), lastEventId);
+    }
+}
@@ -1,16 +1,25 @@
 package com.springboot.blog.controller;
 
+import com.springboot.blog.payload.CursorResponse;
 import com.springboot.blog.payload.PostDto;
+import com.springboot.blog.payload.PostPatchDto;
 import com.springboot.blog.payload.PostResponse;
+import com.springboot.blog.payload.PostSearchResponse;
+import com.springboot.blog.payload.PostSummaryDto;
+import com.springboot.blog.security.UserPrincipal;
 import com.springboot.blog.service.PostService;
 import com.springboot.blog.utils.AppConstants;
+import com.springboot.blog.utils.ETags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.security.Principal;
 import java.util.List;
@@ -32,8 +41,9 @@ public class PostController {
     @Operation(summary = "Create Post REST API", description = "Create Post REST API is used to save post in a database")
     @ApiResponse(responseCode = "201", description = "Http Status 201 CREATED")
     @PostMapping
-    public ResponseEntity<PostDto> createPost(@Valid @RequestBody PostDto postDto, Principal principal) {
-        return new ResponseEntity<>(postService.createPost(postDto, principal.getName()), HttpStatus.CREATED);
+    public ResponseEntity<PostDto> createPost(@Valid @RequestBody PostDto postDto,
+                                              @AuthenticationPrincipal UserPrincipal principal) {
+        return new ResponseEntity<>(postService.createPost(postDto, principal), HttpStatus.CREATED);
     }
 
     @Operation(summary = "Get All Posts REST API", description = "Fetch paginated posts")
@@ -48,21 +58,79 @@ public class PostController {
         return postService.getAllPosts(pageNo, pageSize, sortBy, sortDir);
     }
 
-    @Operation(summary = "Get Post By Id REST API", description = "Fetch a single post by id")
+    @Operation(summary = "Get Posts By Cursor REST API",
+            description = "Fetch posts page by page using the opaque 'after' cursor returned by the previous page")
+    @ApiResponse(responseCode = "200", description = "Http Status 200 SUCCESS")
+    @GetMapping("/cursor")
+    public CursorResponse<PostSummaryDto> getAllPostsByCursor(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.DEFAULT_PAGE_SIZE, required = false) int pageSize,
+            @RequestParam(value = "sortBy", defaultValue = AppConstants.DEFAULT_CURSOR_SORT_BY, required = false) String sortBy,
+            @RequestParam(value = "sortDir", defaultValue = AppConstants.DEFAULT_CURSOR_SORT_DIRECTION, required = false) String sortDir
+    ) {
+        return postService.getAllPostsByCursor(after, pageSize, sortBy, sortDir);
+    }
+
+    @Operation(summary = "Get Hot Posts REST API",
+            description = "Fetch posts ranked by recent comment activity, optionally within one category, using the opaque 'after' cursor")
+    @ApiResponse(responseCode = "200", description = "Http Status 200 SUCCESS")
+    @GetMapping("/hot")
+    public CursorResponse<PostSummaryDto> getHotPosts(
+            @RequestParam(value = "categoryId", required = false) Long categoryId,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.DEFAULT_PAGE_SIZE, required = false) int pageSize
+    ) {
+        return postService.getHotPosts(categoryId, after, pageSize);
+    }
+
+    @Operation(summary = "Search Posts REST API",
+            description = "Full-text search over post titles, descriptions, content and comments, best matches first, with highlighted snippets")
+    @ApiResponse(responseCode = "200", description = "Http Status 200 SUCCESS")
+    @GetMapping("/search")
+    public PostSearchResponse searchPosts(
+            @RequestParam(value = "q") String query,
+            @RequestParam(value = "categoryId", required = false) Long categoryId,
+            @RequestParam(value = "author", required = false) String author,
+            @RequestParam(value = "pageNo", defaultValue = AppConstants.DEFAULT_PAGE_NUMBER, required = false) int pageNo,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.DEFAULT_PAGE_SIZE, required = false) int pageSize
+    ) {
+        return postService.searchPosts(query, categoryId, author, pageNo, pageSize);
+    }
+
+    @Operation(summary = "Get Post By Id REST API",
+            description = "Fetch a single post by id; honours If-None-Match / If-Modified-Since with 304")
     @ApiResponse(responseCode = "200", description = "Http Status 200 SUCCESS")
     @GetMapping("/{id}")
-    public ResponseEntity<PostDto> getPostById(@PathVariable(name = "id") long id) {
-        return ResponseEntity.ok(postService.getPostById(id));
+    public ResponseEntity<PostDto> getPostById(@PathVariable(name = "id") long id, WebRequest webRequest) {
+        PostDto post = postService.getPostById(id);
+        if (webRequest.checkNotModified(ETags.of(post), ETags.epochMillis(ETags.lastModified(post)))) {
+            return null;
+        }
+        return ResponseEntity.ok(post);
     }
 
-    @Operation(summary = "Update Post REST API", description = "Update a post (only the author or ADMIN)")
+    @Operation(summary = "Update Post REST API",
+            description = "Update a post (only the author or ADMIN); a stale If-Match is rejected with 412")
     @ApiResponse(responseCode = "200", description = "Http Status 200 SUCCESS")
     @PutMapping("/{id}")
     public ResponseEntity<PostDto> updatePost(@Valid @RequestBody PostDto postDto,
                                               @PathVariable(name = "id") long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                               Principal principal) {
-        PostDto updated = postService.updatePost(postDto, id, principal.getName());
-        return ResponseEntity.ok(updated);
+        PostDto updated = postService.updatePost(postDto, id, principal.getName(), ifMatch);
+        return ResponseEntity.ok().eTag(ETags.of(updated)).body(updated);
+    }
+
+    @Operation(summary = "Patch Post REST API",
+            description = "Change only the fields sent (only the author or ADMIN), in a single statement")
+    @ApiResponse(responseCode = "204", description = "Http Status 204 NO CONTENT")
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchPost(@Valid @RequestBody PostPatchDto patch,
+                                          @PathVariable(name = "id") long id,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          @AuthenticationPrincipal UserPrincipal principal) {
+        postService.patchPost(id, patch, principal, ifMatch);
+        return ResponseEntity.noContent().build();
     }
 
     @Operation(summary = "Delete Post REST API", description = "Delete a post (only the author or ADMIN)")
@@ -76,8 +144,19 @@ public class PostController {
     // Get posts by category
     // http://localhost:8080/api/posts/category/3
     @GetMapping("/category/{id}")
-    public ResponseEntity<List<PostDto>> getPostsByCategory(@PathVariable("id") Long categoryId) {
-        List<PostDto> postDtos = postService.getPostsByCategory(categoryId);
+    public ResponseEntity<List<PostSummaryDto>> getPostsByCategory(@PathVariable("id") Long categoryId) {
+        List<PostSummaryDto> postDtos = postService.getPostsByCategory(categoryId);
         return ResponseEntity.ok(postDtos);
     }
+
+    // Get posts by category, newest first, one capped page at a time
+    // http://localhost:8080/api/posts/category/3/cursor?pageSize=20&after=...
+    @GetMapping("/category/{id}/cursor")
+    public CursorResponse<PostSummaryDto> getPostsByCategoryCursor(
+            @PathVariable("id") Long categoryId,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.DEFAULT_PAGE_SIZE, required = false) int pageSize
+    ) {
+        return postService.getPostsByCategoryCursor(categoryId, after, pageSize);
+    }
 }
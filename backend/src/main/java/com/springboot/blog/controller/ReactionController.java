@@ -0,0 +1,64 @@
+package com.springboot.blog.controller;
+
+import com.springboot.blog.entity.ReactionTarget;
+import com.springboot.blog.entity.ReactionType;
+import com.springboot.blog.payload.ReactionSummaryDto;
+import com.springboot.blog.security.UserPrincipal;
+import com.springboot.blog.service.ReactionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+public class ReactionController {
+
+    private final ReactionService reactionService;
+
+    public ReactionController(ReactionService reactionService) {
+        this.reactionService = reactionService;
+    }
+
+    // React to a post (authenticated); repeating the same reaction is a no-op
+    @PutMapping("/posts/{postId}/reactions/{type}")
+    public ResponseEntity<ReactionSummaryDto> reactToPost(@PathVariable("postId") long postId,
+                                                          @PathVariable("type") String type,
+                                                          @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(reactionService.react(postId, null, ReactionType.parse(type), principal));
+    }
+
+    @DeleteMapping("/posts/{postId}/reactions/{type}")
+    public ResponseEntity<ReactionSummaryDto> unreactToPost(@PathVariable("postId") long postId,
+                                                            @PathVariable("type") String type,
+                                                            @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(reactionService.unreact(postId, null, ReactionType.parse(type), principal));
+    }
+
+    // React to a comment (authenticated)
+    @PutMapping("/posts/{postId}/comments/{commentId}/reactions/{type}")
+    public ResponseEntity<ReactionSummaryDto> reactToComment(@PathVariable("postId") long postId,
+                                                             @PathVariable("commentId") long commentId,
+                                                             @PathVariable("type") String type,
+                                                             @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(reactionService.react(postId, commentId, ReactionType.parse(type), principal));
+    }
+
+    @DeleteMapping("/posts/{postId}/comments/{commentId}/reactions/{type}")
+    public ResponseEntity<ReactionSummaryDto> unreactToComment(@PathVariable("postId") long postId,
+                                                               @PathVariable("commentId") long commentId,
+                                                               @PathVariable("type") String type,
+                                                               @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(reactionService.unreact(postId, commentId, ReactionType.parse(type), principal));
+    }
+
+    // Counts and the caller's own reactions for a whole list page in one call (public)
+    // http://localhost:8080/api/reactions?target=post&ids=1,2,3
+    @GetMapping("/reactions")
+    public List<ReactionSummaryDto> getReactions(@RequestParam(value = "target", defaultValue = "post") String target,
+                                                 @RequestParam("ids") List<Long> ids,
+                                                 @AuthenticationPrincipal UserPrincipal principal) {
+        return reactionService.getSummaries(ReactionTarget.parse(target), ids, principal);
+    }
+}
@@ -0,0 +1,37 @@
+package com.springboot.blog.controller;
+
+import com.springboot.blog.payload.SuggestResponse;
+import com.springboot.blog.search.Suggester;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(
+        name = "Suggest REST API",
+        description = "Autocomplete for post titles and users"
+)
+@RestController
+@RequestMapping("/api/suggest")
+public class SuggestController {
+
+    private final Suggester suggester;
+
+    public SuggestController(Suggester suggester) {
+        this.suggester = suggester;
+    }
+
+    @Operation(summary = "Suggest REST API",
+            description = "Posts and users whose title, username or name has a word starting with the prefix, most popular first")
+    @ApiResponse(responseCode = "200", description = "Http Status 200 SUCCESS")
+    @GetMapping
+    public SuggestResponse suggest(
+            @RequestParam(value = "prefix") String prefix,
+            @RequestParam(value = "limit", defaultValue = "5", required = false) int limit
+    ) {
+        return suggester.suggest(prefix, limit);
+    }
+}
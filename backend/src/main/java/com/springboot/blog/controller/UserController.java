@@ -2,13 +2,20 @@ package com.springboot.blog.controller;
 
 import com.springboot.blog.entity.User;
 import com.springboot.blog.exception.ResourceNotFoundException;
+import com.springboot.blog.mapper.UserMapper;
+import com.springboot.blog.payload.CursorResponse;
 import com.springboot.blog.payload.PostResponse;
+import com.springboot.blog.payload.PostSummaryDto;
 import com.springboot.blog.payload.UserDto;
 import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.security.UserPrincipal;
 import com.springboot.blog.service.PostService;
 import com.springboot.blog.utils.AppConstants;
+import com.springboot.blog.utils.ETags;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.security.Principal;
 
@@ -18,26 +25,27 @@ public class UserController {
 
     private final UserRepository userRepository;
     private final PostService postService;
+    private final UserMapper userMapper;
 
-    public UserController(UserRepository userRepository, PostService postService) {
+    public UserController(UserRepository userRepository, PostService postService, UserMapper userMapper) {
         this.userRepository = userRepository;
         this.postService = postService;
+        this.userMapper = userMapper;
     }
 
     // Authenticated: fetch profile for the logged-in user
     @GetMapping("/me")
-    public ResponseEntity<UserDto> me(Principal principal) {
-        String username = principal.getName();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
-
-        UserDto dto = new UserDto();
-        dto.setId(user.getId());
-        dto.setUsername(user.getUsername());
-        dto.setName(user.getName());
-        dto.setEmail(user.getEmail());
-
-        return ResponseEntity.ok(dto);
+    public ResponseEntity<UserDto> me(@AuthenticationPrincipal UserPrincipal principal, WebRequest webRequest) {
+        // the email is not in the token, so this one does read the row, by primary key
+        User user = userRepository.findById(principal.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", principal.getId()));
+
+        // users carry no update timestamp, so this is ETag only
+        UserDto userDto = userMapper.toDto(user);
+        if (webRequest.checkNotModified(ETags.of(userDto))) {
+            return null;
+        }
+        return ResponseEntity.ok(userDto);
     }
 
     // Authenticated: fetch paginated posts created by the logged-in user
@@ -51,4 +59,16 @@ public class UserController {
     ) {
         return postService.getMyPosts(principal.getName(), pageNo, pageSize, sortBy, sortDir);
     }
+
+    // Authenticated: cursor-paginated posts created by the logged-in user
+    @GetMapping("/me/posts/cursor")
+    public CursorResponse<PostSummaryDto> myPostsByCursor(
+            Principal principal,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.DEFAULT_PAGE_SIZE, required = false) int pageSize,
+            @RequestParam(value = "sortBy", defaultValue = AppConstants.DEFAULT_CURSOR_SORT_BY, required = false) String sortBy,
+            @RequestParam(value = "sortDir", defaultValue = AppConstants.DEFAULT_CURSOR_SORT_DIRECTION, required = false) String sortDir
+    ) {
+        return postService.getMyPostsByCursor(principal.getName(), after, pageSize, sortBy, sortDir);
+    }
 }
@@ -22,6 +22,7 @@ public class Category {
     private String name;
     private String description;
 
-    @OneToMany(mappedBy = "category", cascade = CascadeType.ALL, orphanRemoval = true)
+    // categories are preset and never deleted, so nothing cascades to their posts
+    @OneToMany(mappedBy = "category")
     private List<Post> posts;
 }
\ No newline at end of file
@@ -13,7 +13,8 @@ import java.time.Instant;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "comments")
+@Table(name = "comments",
+        indexes = @Index(name = "idx_comments_post_created_at_id", columnList = "post_id, created_at, id"))
 public class Comment {
 
     @Id
@@ -2,7 +2,9 @@ package com.springboot.blog.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SQLRestriction;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -14,7 +16,18 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "posts", uniqueConstraints = {@UniqueConstraint(columnNames = {"title"})})
+@Table(name = "posts",
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"title"})},
+        indexes = {
+                @Index(name = "idx_posts_created_at_id", columnList = "created_at, id"),
+                @Index(name = "idx_posts_user_created_at_id", columnList = "user_id, created_at, id"),
+                @Index(name = "idx_posts_category_created_at_id", columnList = "category_id, created_at, id"),
+                @Index(name = "idx_posts_last_activity_at_id", columnList = "last_activity_at, id"),
+                @Index(name = "idx_posts_user_last_activity_at_id", columnList = "user_id, last_activity_at, id"),
+                @Index(name = "idx_posts_deleted_at", columnList = "deleted_at")
+        })
+// a deleted post is hidden from every entity query at once; PostPurgeJob removes the rows later
+@SQLRestriction("deleted_at is null")
 public class Post {
 
     @Id
@@ -38,6 +51,37 @@ public class Post {
     @Column(name="updated_at", nullable=false)
     private LocalDateTime updatedAt;
 
+    // comment_count and last_activity_at are maintained by single-statement updates in
+    // PostRepository and never written by entity updates, so a post edit cannot overwrite a
+    // concurrent comment's change; PostStatsRepairJob recomputes both
+    @ColumnDefault("0")
+    @Column(name="comment_count", nullable=false, updatable=false)
+    private long commentCount;
+
+    // creation time, then the time of the newest comment. Nullable in the schema on purpose: adding
+    // a NOT NULL column without a default fails on a populated table, so ddl-auto adds it empty and
+    // PostStatsRepairJob backfills it from created_at at startup
+    @CreationTimestamp
+    @Column(name="last_activity_at", updatable=false)
+    private LocalDateTime lastActivityAt;
+
+    // flushed in batches by PostViewCounter, so behind the live count by up to one flush interval;
+    // unique_viewers is a HyperLogLog estimate
+    @ColumnDefault("0")
+    @Column(name="view_count", nullable=false, updatable=false)
+    private long viewCount;
+
+    @ColumnDefault("0")
+    @Column(name="unique_viewers", nullable=false, updatable=false)
+    private long uniqueViewers;
+
+    @Column(name="deleted_at", updatable=false)
+    private LocalDateTime deletedAt;
+
+    // id in the legacy forum export for imported posts; how NdjsonImporter finds them again
+    @Column(name="legacy_id", unique=true, updatable=false)
+    private Long legacyId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="user_id")
     private User user;
@@ -46,6 +90,7 @@ public class Post {
     @JoinColumn(name="category_id")
     private Category category;
 
-    @OneToMany(mappedBy="post", cascade=CascadeType.ALL, orphanRemoval=true)
+    // no cascade: loading a large thread to delete it comment by comment is what PostPurgeJob avoids
+    @OneToMany(mappedBy="post")
     private Set<Comment> comments = new HashSet<>();
 }
@@ -0,0 +1,53 @@
+package com.springboot.blog.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Daily view rollup for analytics, one row per post and UTC day. Written only by
+ * PostViewCounter's flush; the sketch is kept so later flushes of the same day can merge into it.
+ * post_id is deliberately not a foreign key, so the rows never stand in the way of a post delete.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(PostViewDay.Key.class)
+@Table(name = "post_view_days", indexes = @Index(name = "idx_post_view_days_view_date", columnList = "view_date"))
+public class PostViewDay {
+
+    @Id
+    @Column(name = "post_id")
+    private long postId;
+
+    @Id
+    @Column(name = "view_date")
+    private LocalDate viewDate;
+
+    @Column(nullable = false)
+    private long views;
+
+    @Column(name = "unique_viewers", nullable = false)
+    private long uniqueViewers;
+
+    @Column(nullable = false, length = 1024)
+    private byte[] sketch;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private long postId;
+        private LocalDate viewDate;
+    }
+}
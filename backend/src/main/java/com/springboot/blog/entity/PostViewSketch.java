@@ -0,0 +1,27 @@
+package com.springboot.blog.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * All-time unique-viewer sketch of a post, behind posts.unique_viewers. Kept out of the posts
+ * table so loading a post never drags the 1 KiB of registers along.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "post_view_sketches")
+public class PostViewSketch {
+
+    @Id
+    @Column(name = "post_id")
+    private long postId;
+
+    @Column(nullable = false, length = 1024)
+    private byte[] sketch;
+}
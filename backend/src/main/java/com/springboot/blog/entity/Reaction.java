@@ -0,0 +1,49 @@
+package com.springboot.blog.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * One user's reaction of one type to a post or comment. The unique key makes reacting
+ * idempotent and, leading with user_id, also serves "which of these did I react to" for a whole
+ * page of targets in one lookup. Counts live in ReactionCount, not in a COUNT over these rows.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "reactions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_reactions_user_target_type",
+                columnNames = {"user_id", "target_type", "target_id", "reaction_type"}),
+        indexes = @Index(name = "idx_reactions_target", columnList = "target_type, target_id"))
+public class Reaction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_type", nullable = false, length = 16)
+    private ReactionTarget targetType;
+
+    @Column(name = "target_id", nullable = false)
+    private long targetId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reaction_type", nullable = false, length = 16)
+    private ReactionType reactionType;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+}
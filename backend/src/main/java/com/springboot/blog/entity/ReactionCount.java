@@ -0,0 +1,52 @@
+package com.springboot.blog.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * Reaction total per target and type. Written only by ReactionCounter's flush, which adds the
+ * buffered deltas in one batch, so a popular post's likes never queue up on this row.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(ReactionCount.Key.class)
+@Table(name = "reaction_counts")
+public class ReactionCount {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_type", length = 16)
+    private ReactionTarget targetType;
+
+    @Id
+    @Column(name = "target_id")
+    private long targetId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reaction_type", length = 16)
+    private ReactionType reactionType;
+
+    @Column(name = "reaction_count", nullable = false)
+    private long count;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private ReactionTarget targetType;
+        private long targetId;
+        private ReactionType reactionType;
+    }
+}
@@ -0,0 +1,19 @@
+package com.springboot.blog.entity;
+
+import com.springboot.blog.exception.BlogAPIException;
+import org.springframework.http.HttpStatus;
+
+import java.util.Locale;
+
+public enum ReactionTarget {
+    POST,
+    COMMENT;
+
+    public static ReactionTarget parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Unknown reaction target: " + value);
+        }
+    }
+}
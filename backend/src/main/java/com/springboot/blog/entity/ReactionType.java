@@ -0,0 +1,22 @@
+package com.springboot.blog.entity;
+
+import com.springboot.blog.exception.BlogAPIException;
+import org.springframework.http.HttpStatus;
+
+import java.util.Locale;
+
+public enum ReactionType {
+    LIKE,
+    LOVE,
+    LAUGH,
+    INSIGHTFUL;
+
+    // path segments are matched case-insensitively: /reactions/like and /reactions/LIKE alike
+    public static ReactionType parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Unknown reaction type: " + value);
+        }
+    }
+}
@@ -26,8 +26,11 @@ public class User {
     private String email;
     @Column(nullable = false)
     private String password;
+    // id in the legacy forum export for imported accounts; how NdjsonImporter finds them again
+    @Column(name = "legacy_id", unique = true, updatable = false)
+    private Long legacyId;
 
-    @ManyToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @ManyToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinTable(name = "users_roles",
             joinColumns = @JoinColumn(name = "user_id", referencedColumnName = "id"),
             inverseJoinColumns = @JoinColumn(name = "role_id", referencedColumnName = "id")
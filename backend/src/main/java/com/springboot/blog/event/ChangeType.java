@@ -0,0 +1,7 @@
+package com.springboot.blog.event;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,13 @@
+package com.springboot.blog.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published by CommentServiceImpl after a comment write has been saved.
+@Getter
+@AllArgsConstructor
+public class CommentChangedEvent {
+    private final ChangeType type;
+    private final long postId;
+    private final long commentId;
+}
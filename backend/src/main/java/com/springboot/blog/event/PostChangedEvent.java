@@ -0,0 +1,17 @@
+package com.springboot.blog.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published by PostServiceImpl after a post write has been saved.
+@Getter
+@AllArgsConstructor
+public class PostChangedEvent {
+    private final ChangeType type;
+    private final long postId;
+    private final Long categoryId;
+    // carried so listeners that only need these do not read the post back; a PATCH leaves the
+    // ones it did not change (and the author) null
+    private final Long authorId;
+    private final String title;
+}
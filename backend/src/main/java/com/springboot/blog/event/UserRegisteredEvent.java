@@ -0,0 +1,13 @@
+package com.springboot.blog.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published by AuthServiceImpl after a new user has been saved.
+@Getter
+@AllArgsConstructor
+public class UserRegisteredEvent {
+    private final long userId;
+    private final String username;
+    private final String name;
+}
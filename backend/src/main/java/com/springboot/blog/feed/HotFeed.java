@@ -0,0 +1,337 @@
+package com.springboot.blog.feed;
+
+import com.springboot.blog.event.ChangeType;
+import com.springboot.blog.event.CommentChangedEvent;
+import com.springboot.blog.event.PostChangedEvent;
+import com.springboot.blog.repository.CommentRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.utils.HotCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory ranking behind the hot feed: every post with recent activity, ordered by a
+ * time-decayed activity score, globally and per category.
+ *
+ * Scores use forward decay: an event of weight w at time t adds w * 2^((t - epoch) / halfLife),
+ * so newer events count for more and the relative order of two posts never changes just because
+ * time passes. Recording an event therefore only moves that one post inside the skip lists. The
+ * raw numbers grow with time, so a scheduled rebase moves the epoch to now, scales every score
+ * down to match and drops posts whose activity has decayed below one event at the window's edge.
+ *
+ * Built from the last window of posts, comments, reactions and daily views at startup, then fed
+ * by post and comment events after they commit, by ReactionServiceImpl for each new reaction and
+ * by PostViewCounter's flushes for views. Removing a reaction takes nothing back: it is activity
+ * that happened. Reads never take a lock and walk the skip list from a cursor position.
+ */
+@Component
+public class HotFeed implements ApplicationRunner {
+
+    public static final double POST_WEIGHT = 1.0;
+    public static final double COMMENT_WEIGHT = 1.0;
+    // reactions and views are cheaper than writing a comment, so count for less
+    public static final double REACTION_WEIGHT = 0.5;
+    public static final double VIEW_WEIGHT = 0.05;
+
+    private static final Logger logger = LoggerFactory.getLogger(HotFeed.class);
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingDouble(Entry::getScore).reversed()
+            .thenComparing(Comparator.comparingLong(Entry::getPostId).reversed());
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final double halfLifeMillis;
+    private final Duration window;
+
+    // recording shares the read side; rebuilds and rebases swap the index under the write side
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Index index = new Index(System.currentTimeMillis());
+
+    public HotFeed(PostRepository postRepository,
+                   CommentRepository commentRepository,
+                   JdbcTemplate jdbcTemplate,
+                   @Value("${app.feed.hot.half-life:PT12H}") Duration halfLife,
+                   @Value("${app.feed.hot.window:P3D}") Duration window) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.halfLifeMillis = halfLife.toMillis();
+        this.window = window;
+    }
+
+    /**
+     * Up to limit posts ranked below the cursor position (from the top when after is null),
+     * optionally within one category.
+     */
+    public Page page(Long categoryId, HotCursor after, int limit) {
+        Index current = index;
+        NavigableSet<Entry> ranked = categoryId == null
+                ? current.global
+                : current.byCategory.getOrDefault(categoryId, Collections.emptyNavigableSet());
+        if (after != null) {
+            double score = after.getScore() * scale(after.getEpochMillis(), current.epochMillis);
+            ranked = ranked.tailSet(new Entry(after.getPostId(), null, score), false);
+        }
+
+        List<Entry> entries = new ArrayList<>(Math.min(limit, 64));
+        for (Entry entry : ranked) {
+            if (entries.size() == limit) {
+                break;
+            }
+            entries.add(entry);
+        }
+        return new Page(entries, current.epochMillis);
+    }
+
+    public int size() {
+        return index.entries.size();
+    }
+
+    // categoryId may be null when unknown; the post then keeps the category it already has
+    public void record(long postId, Long categoryId, double weight, long atMillis) {
+        lock.readLock().lock();
+        try {
+            index.add(postId, categoryId, weight * scale(atMillis, index.epochMillis));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // activity on a post happening now, from wherever it is seen
+    public void recordActivity(long postId, double weight) {
+        // posts that dropped out of the window need their category looked up again
+        Long categoryId = index.entries.containsKey(postId)
+                ? null
+                : postRepository.findCategoryIdById(postId).orElse(null);
+        record(postId, categoryId, weight, System.currentTimeMillis());
+    }
+
+    // follows a post to its new category without touching its score
+    public void move(long postId, Long categoryId) {
+        lock.readLock().lock();
+        try {
+            index.move(postId, categoryId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void remove(long postId) {
+        lock.readLock().lock();
+        try {
+            index.remove(postId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED -> record(event.getPostId(), event.getCategoryId(), POST_WEIGHT, System.currentTimeMillis());
+            case UPDATED -> move(event.getPostId(), event.getCategoryId());
+            case DELETED -> remove(event.getPostId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentChanged(CommentChangedEvent event) {
+        if (event.getType() == ChangeType.CREATED) {
+            recordActivity(event.getPostId(), COMMENT_WEIGHT);
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    // replays the window's posts, comments, reactions and views into a fresh index; events wait while it loads
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            long now = System.currentTimeMillis();
+            Index rebuilt = new Index(now);
+            LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(now).minus(window), ZoneId.systemDefault());
+
+            for (Object[] row : postRepository.findActivitySince(since)) {
+                long at = ((LocalDateTime) row[2]).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                rebuilt.add((Long) row[0], (Long) row[1], POST_WEIGHT * scale(at, now));
+            }
+            for (Object[] row : commentRepository.findActivitySince(Instant.ofEpochMilli(now).minus(window))) {
+                rebuilt.add((Long) row[0], (Long) row[1], COMMENT_WEIGHT * scale(((Instant) row[2]).toEpochMilli(), now));
+            }
+            // a comment's reactions count towards its post
+            jdbcTemplate.query("select p.id, p.category_id, r.created_at from reactions r"
+                            + " left join comments c on r.target_type = 'COMMENT' and c.id = r.target_id"
+                            + " join posts p on p.id = case when r.target_type = 'POST' then r.target_id else c.post_id end"
+                            + " where r.created_at >= ? and p.deleted_at is null",
+                    rs -> {
+                        rebuilt.add(rs.getLong(1), rs.getObject(2, Long.class),
+                                REACTION_WEIGHT * scale(rs.getTimestamp(3).getTime(), now));
+                    }, Timestamp.from(Instant.ofEpochMilli(now).minus(window)));
+            // views are only kept per day, so a day's views count as of its middle (or now, for today)
+            jdbcTemplate.query("select d.post_id, p.category_id, d.view_date, d.views from post_view_days d"
+                            + " join posts p on p.id = d.post_id where d.view_date >= ? and p.deleted_at is null",
+                    rs -> {
+                        LocalDate day = rs.getObject(3, LocalDate.class);
+                        long at = Math.min(now, day.atTime(12, 0).toInstant(ZoneOffset.UTC).toEpochMilli());
+                        rebuilt.add(rs.getLong(1), rs.getObject(2, Long.class), VIEW_WEIGHT * rs.getLong(4) * scale(at, now));
+                    }, LocalDate.ofInstant(Instant.ofEpochMilli(now).minus(window), ZoneOffset.UTC));
+
+            index = rebuilt;
+            logger.info("Built hot feed with {} posts in {} ms", rebuilt.entries.size(), System.currentTimeMillis() - now);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // moves the epoch to now so scores stay small, and drops posts that have gone cold
+    @Scheduled(fixedDelayString = "${app.feed.hot.rebase-interval:PT1H}",
+            initialDelayString = "${app.feed.hot.rebase-interval:PT1H}")
+    public void rebase() {
+        lock.writeLock().lock();
+        try {
+            long now = System.currentTimeMillis();
+            Index current = index;
+            Index rebased = new Index(now);
+            double factor = scale(current.epochMillis, now);
+            double coldest = scale(now - window.toMillis(), now);
+
+            for (Entry entry : current.entries.values()) {
+                double score = entry.score * factor;
+                if (score >= coldest) {
+                    rebased.add(entry.postId, entry.categoryId, score);
+                }
+            }
+
+            index = rebased;
+            logger.debug("Rebased hot feed: kept {} of {} posts", rebased.entries.size(), current.entries.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // weight of an event at atMillis relative to an event at epochMillis
+    private double scale(long atMillis, long epochMillis) {
+        return Math.pow(2, (atMillis - epochMillis) / halfLifeMillis);
+    }
+
+    /**
+     * One generation of the ranking: the score per post plus the ordered views over it. The
+     * per-post compute serializes writers on the same post; readers may briefly see a post
+     * missing or twice while it moves.
+     */
+    private static final class Index {
+
+        private final long epochMillis;
+        private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+        private final NavigableSet<Entry> global = new ConcurrentSkipListSet<>(RANKING);
+        private final Map<Long, NavigableSet<Entry>> byCategory = new ConcurrentHashMap<>();
+
+        private Index(long epochMillis) {
+            this.epochMillis = epochMillis;
+        }
+
+        void add(long postId, Long categoryId, double score) {
+            entries.compute(postId, (id, old) -> {
+                Long category = categoryId != null ? categoryId : old != null ? old.categoryId : null;
+                Entry updated = new Entry(postId, category, (old != null ? old.score : 0) + score);
+                unlink(old);
+                link(updated);
+                return updated;
+            });
+        }
+
+        void move(long postId, Long categoryId) {
+            entries.computeIfPresent(postId, (id, old) -> {
+                if (categoryId == null || categoryId.equals(old.categoryId)) {
+                    return old;
+                }
+                Entry moved = new Entry(postId, categoryId, old.score);
+                unlink(old);
+                link(moved);
+                return moved;
+            });
+        }
+
+        void remove(long postId) {
+            entries.computeIfPresent(postId, (id, old) -> {
+                unlink(old);
+                return null;
+            });
+        }
+
+        private void link(Entry entry) {
+            global.add(entry);
+            if (entry.categoryId != null) {
+                byCategory.computeIfAbsent(entry.categoryId, id -> new ConcurrentSkipListSet<>(RANKING)).add(entry);
+            }
+        }
+
+        private void unlink(Entry entry) {
+            if (entry == null) {
+                return;
+            }
+            global.remove(entry);
+            if (entry.categoryId != null) {
+                NavigableSet<Entry> category = byCategory.get(entry.categoryId);
+                if (category != null) {
+                    category.remove(entry);
+                }
+            }
+        }
+    }
+
+    // ordered by score, then id; equality ignores the category so it can be removed from any view
+    public static final class Entry {
+
+        private final long postId;
+        private final Long categoryId;
+        private final double score;
+
+        private Entry(long postId, Long categoryId, double score) {
+            this.postId = postId;
+            this.categoryId = categoryId;
+            this.score = score;
+        }
+
+        public long getPostId() {
+            return postId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    // scores are relative to the epoch, so a cursor has to carry it across a rebase
+    public record Page(List<Entry> entries, long epochMillis) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.springboot.blog.importer;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * One NDJSON line. {@code type} is user, post or comment; ids are the legacy system's and are
+ * only used to connect the lines to each other.
+ *
+ * <pre>
+ * {"type":"user","id":7,"username":"ada","email":"ada@example.com","name":"Ada","password":"$2a$10$..."}
+ * {"type":"post","id":31,"userId":7,"category":"General","title":"...","description":"...","content":"...","createdAt":"2019-05-01T10:00:00Z"}
+ * {"type":"comment","id":90,"postId":31,"userId":7,"body":"...","createdAt":"2019-05-02T08:30:00Z"}
+ * </pre>
+ *
+ * Passwords must already be BCrypt hashes; they are stored as given.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ImportRecord {
+    private String type;
+    private Long id;
+
+    // user
+    private String username;
+    private String email;
+    private String name;
+    private String password;
+
+    // post
+    private String category;
+    private String title;
+    private String description;
+    private String content;
+
+    // comment
+    private Long postId;
+    private String body;
+
+    // post and comment
+    private Long userId;
+    private Instant createdAt;
+}
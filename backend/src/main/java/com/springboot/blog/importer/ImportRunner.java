@@ -0,0 +1,57 @@
+package com.springboot.blog.importer;
+
+import com.springboot.blog.payload.ImportReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Command-line mode: started with {@code --import.file=<path>}, the application imports the file,
+ * logs the report and exits instead of serving. {@code --import.start-line=<n>} resumes after the
+ * last committed line of an earlier run.
+ *
+ * <pre>
+ * java -jar springboot-blog-rest-api.jar --import.file=export.ndjson --spring.main.web-application-type=none
+ * </pre>
+ */
+@Component
+public class ImportRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportRunner.class);
+
+    private final NdjsonImporter importer;
+    private final ConfigurableApplicationContext context;
+
+    public ImportRunner(NdjsonImporter importer, ConfigurableApplicationContext context) {
+        this.importer = importer;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<String> file = args.getOptionValues("import.file");
+        if (file == null || file.isEmpty()) {
+            return;
+        }
+        List<String> startLine = args.getOptionValues("import.start-line");
+        long from = startLine == null || startLine.isEmpty() ? 0 : Long.parseLong(startLine.get(0));
+
+        ImportReport report;
+        try (InputStream in = Files.newInputStream(Path.of(file.get(0)))) {
+            report = importer.importFrom(in, from);
+        }
+        logger.info("Import of {} finished: {}", file.get(0), report);
+        int exitCode = report != null && report.isCompleted() ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+}
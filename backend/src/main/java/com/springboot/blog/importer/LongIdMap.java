@@ -0,0 +1,69 @@
+package com.springboot.blog.importer;
+
+/**
+ * Legacy id -> new id, open addressing over two long arrays: about 16 bytes an entry at most
+ * half full, where a HashMap of boxed Longs costs several times that. Ids are positive, so 0
+ * marks an empty slot.
+ */
+final class LongIdMap {
+
+    private long[] keys = new long[1024];
+    private long[] values = new long[1024];
+    private int size;
+
+    void put(long key, long value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Id 0 is not a valid legacy id");
+        }
+        if (size * 2 >= keys.length) {
+            grow();
+        }
+        int slot = slot(keys, key);
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    // 0 when absent
+    long get(long key) {
+        int slot = slot(keys, key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    // linear probing from a mixed hash; the table is never full, so this ends
+    private static int slot(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = (int) (mix(key) & mask);
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+}
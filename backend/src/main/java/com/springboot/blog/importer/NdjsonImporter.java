@@ -0,0 +1,525 @@
+package com.springboot.blog.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.blog.cache.PostCache;
+import com.springboot.blog.cache.ResponseCache;
+import com.springboot.blog.config.CategoryPreset;
+import com.springboot.blog.config.CategoryRegistry;
+import com.springboot.blog.config.RoleRegistry;
+import com.springboot.blog.feed.HotFeed;
+import com.springboot.blog.job.PostStatsRepairJob;
+import com.springboot.blog.payload.CategoryDto;
+import com.springboot.blog.payload.ImportReport;
+import com.springboot.blog.search.PostSearchIndex;
+import com.springboot.blog.search.Suggester;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Loads users, posts and comments from a legacy forum export, one JSON object per line.
+ *
+ * The stream is read a line at a time, so memory holds one batch of rows plus the legacy id ->
+ * new id maps (two longs an entry), not the file. Rows go in through JDBC batch inserts rather
+ * than the entities: every table uses identity ids, which Hibernate never batches, so the batches
+ * ask the driver for the generated keys instead. Each chunk of lines is one transaction.
+ *
+ * Imported users and posts keep their legacy id in a legacy_id column, and a user or post whose
+ * legacy id is already there is linked to that row instead of inserted, which makes a rerun from
+ * {@link ImportReport#getLastCommittedLine()} safe: earlier users and posts are re-read to rebuild
+ * the id maps, earlier comments are skipped. Nothing else is matched, so an export row never
+ * merges into an account or post created on the site. Lines that do not parse, point at an
+ * unknown user or post, or would take a username, email or title already in use are counted and
+ * skipped, not fatal.
+ */
+@Component
+public class NdjsonImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(NdjsonImporter.class);
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final String DEFAULT_ROLE = "ROLE_USER";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final CategoryRegistry categoryRegistry;
+    private final RoleRegistry roleRegistry;
+    private final PostStatsRepairJob postStatsRepairJob;
+    private final PostCache postCache;
+    private final ResponseCache responseCache;
+    private final HotFeed hotFeed;
+    private final Suggester suggester;
+    private final PostSearchIndex postSearchIndex;
+    private final int batchSize;
+    private final int chunkSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public NdjsonImporter(JdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate,
+                          ObjectMapper objectMapper,
+                          CategoryRegistry categoryRegistry,
+                          RoleRegistry roleRegistry,
+                          PostStatsRepairJob postStatsRepairJob,
+                          PostCache postCache,
+                          ResponseCache responseCache,
+                          HotFeed hotFeed,
+                          Suggester suggester,
+                          PostSearchIndex postSearchIndex,
+                          @Value("${app.import.batch-size:500}") int batchSize,
+                          @Value("${app.import.chunk-size:5000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.categoryRegistry = categoryRegistry;
+        this.roleRegistry = roleRegistry;
+        this.postStatsRepairJob = postStatsRepairJob;
+        this.postCache = postCache;
+        this.responseCache = responseCache;
+        this.hotFeed = hotFeed;
+        this.suggester = suggester;
+        this.postSearchIndex = postSearchIndex;
+        this.batchSize = batchSize;
+        this.chunkSize = Math.max(chunkSize, batchSize);
+    }
+
+    /**
+     * @param startLine lines up to and including this one were committed by an earlier run
+     * @return the report, or null if an import was already in progress
+     */
+    public ImportReport importFrom(InputStream in, long startLine) {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        long started = System.nanoTime();
+        Run run = new Run(startLine);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            boolean more = true;
+            while (more) {
+                more = Boolean.TRUE.equals(transactionTemplate.execute(status -> readChunk(reader, run)));
+                run.report.setLastCommittedLine(run.report.getLinesRead());
+                logger.info("Import committed through line {}: {} users, {} posts, {} comments, {} rejected",
+                        run.report.getLastCommittedLine(), run.report.getUsersImported(),
+                        run.report.getPostsImported(), run.report.getCommentsImported(), run.report.getRejected());
+            }
+            run.report.setCompleted(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            run.report.setDurationMillis((System.nanoTime() - started) / 1_000_000);
+            running.set(false);
+            if (run.report.getUsersImported() + run.report.getPostsImported() + run.report.getCommentsImported() > 0) {
+                refreshDerivedState();
+            }
+        }
+        return run.report;
+    }
+
+    // reads up to a chunk of lines and writes them; false once the stream is exhausted
+    private boolean readChunk(BufferedReader reader, Run run) {
+        try {
+            for (int i = 0; i < chunkSize; i++) {
+                String line = reader.readLine();
+                if (line == null) {
+                    flushAll(run);
+                    return false;
+                }
+                long lineNumber = run.report.getLinesRead() + 1;
+                run.report.setLinesRead(lineNumber);
+                if (!line.isBlank()) {
+                    accept(line, lineNumber, run);
+                }
+            }
+            flushAll(run);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void accept(String line, long lineNumber, Run run) {
+        ImportRecord record;
+        try {
+            record = objectMapper.readValue(line, ImportRecord.class);
+        } catch (JsonProcessingException e) {
+            run.reject(lineNumber, "not a JSON object");
+            return;
+        }
+        if (record.getId() == null || record.getId() == 0) {
+            run.reject(lineNumber, "missing id");
+            return;
+        }
+        switch (String.valueOf(record.getType())) {
+            case "user" -> {
+                if (isBlank(record.getUsername()) || isBlank(record.getEmail()) || isBlank(record.getPassword())) {
+                    run.reject(lineNumber, "user needs username, email and password");
+                    return;
+                }
+                add(run.users, new Pending(record, lineNumber), run);
+            }
+            case "post" -> {
+                if (isBlank(record.getTitle()) || isBlank(record.getDescription()) || record.getContent() == null) {
+                    run.reject(lineNumber, "post needs title, description and content");
+                    return;
+                }
+                flush(run.users, run);
+                add(run.posts, new Pending(record, lineNumber), run);
+            }
+            case "comment" -> {
+                if (lineNumber <= run.startLine) {
+                    return;
+                }
+                if (record.getPostId() == null || isBlank(record.getBody())) {
+                    run.reject(lineNumber, "comment needs postId and body");
+                    return;
+                }
+                flush(run.users, run);
+                flush(run.posts, run);
+                add(run.comments, new Pending(record, lineNumber), run);
+            }
+            default -> run.reject(lineNumber, "unknown type " + record.getType());
+        }
+    }
+
+    private void add(List<Pending> buffer, Pending pending, Run run) {
+        buffer.add(pending);
+        if (buffer.size() >= batchSize) {
+            flush(buffer, run);
+        }
+    }
+
+    // users before posts before comments, so every reference is already in the id maps
+    private void flushAll(Run run) {
+        flush(run.users, run);
+        flush(run.posts, run);
+        flush(run.comments, run);
+    }
+
+    private void flush(List<Pending> buffer, Run run) {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        if (buffer == run.users) {
+            writeUsers(buffer, run);
+        } else if (buffer == run.posts) {
+            writePosts(buffer, run);
+        } else {
+            writeComments(buffer, run);
+        }
+        buffer.clear();
+    }
+
+    private void writeUsers(List<Pending> batch, Run run) {
+        List<Pending> fresh = linkExisting(batch, run.userIds, "users", run);
+        fresh = rejectTaken(fresh, "users", "username", Pending::username, run);
+        fresh = rejectTaken(fresh, "users", "email", Pending::email, run);
+        if (fresh.isEmpty()) {
+            return;
+        }
+        long[] ids = insertReturningIds(
+                "insert into users (name, username, email, password, legacy_id) values (?, ?, ?, ?, ?)", fresh,
+                (ps, pending) -> {
+                    ImportRecord user = pending.record;
+                    ps.setString(1, user.getName() != null ? user.getName() : user.getUsername());
+                    ps.setString(2, user.getUsername());
+                    ps.setString(3, user.getEmail());
+                    ps.setString(4, user.getPassword());
+                    ps.setLong(5, user.getId());
+                });
+        for (int i = 0; i < ids.length; i++) {
+            run.userIds.put(fresh.get(i).record.getId(), ids[i]);
+        }
+        roleRegistry.findIdByName(DEFAULT_ROLE).ifPresent(roleId ->
+                jdbcTemplate.batchUpdate("insert into users_roles (user_id, role_id) values (?, ?)",
+                        new BatchPreparedStatementSetter() {
+                            @Override
+                            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                                ps.setLong(1, ids[i]);
+                                ps.setLong(2, roleId);
+                            }
+
+                            @Override
+                            public int getBatchSize() {
+                                return ids.length;
+                            }
+                        }));
+        run.report.setUsersImported(run.report.getUsersImported() + ids.length);
+    }
+
+    private void writePosts(List<Pending> batch, Run run) {
+        // resolve references first so a rejected row takes no part in the insert
+        List<Pending> resolved = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            ImportRecord post = pending.record;
+            String categoryName = isBlank(post.getCategory()) ? CategoryPreset.DEFAULT_CATEGORY_NAME : post.getCategory();
+            CategoryDto category = categoryRegistry.findByName(categoryName).orElse(null);
+            if (category == null) {
+                run.reject(pending.lineNumber, "unknown category " + categoryName);
+            } else if (post.getUserId() != null && run.userIds.get(post.getUserId()) == 0) {
+                run.reject(pending.lineNumber, "unknown user " + post.getUserId());
+            } else {
+                pending.categoryId = category.getId();
+                resolved.add(pending);
+            }
+        }
+        List<Pending> fresh = linkExisting(resolved, run.postIds, "posts", run);
+        fresh = rejectTaken(fresh, "posts", "title", Pending::title, run);
+        if (fresh.isEmpty()) {
+            return;
+        }
+        long[] ids = insertReturningIds(
+                "insert into posts (title, description, content, created_at, updated_at, last_activity_at,"
+                        + " comment_count, user_id, category_id, legacy_id) values (?, ?, ?, ?, ?, ?, 0, ?, ?, ?)", fresh,
+                (ps, pending) -> {
+                    ImportRecord post = pending.record;
+                    // post timestamps are local date-times
+                    LocalDateTime createdAt = LocalDateTime.ofInstant(
+                            post.getCreatedAt() != null ? post.getCreatedAt() : Instant.now(), ZoneId.systemDefault());
+                    ps.setString(1, post.getTitle());
+                    ps.setString(2, post.getDescription());
+                    ps.setString(3, post.getContent());
+                    ps.setObject(4, createdAt);
+                    ps.setObject(5, createdAt);
+                    ps.setObject(6, createdAt);
+                    setUser(ps, 7, post.getUserId(), run);
+                    ps.setLong(8, pending.categoryId);
+                    ps.setLong(9, post.getId());
+                });
+        for (int i = 0; i < ids.length; i++) {
+            run.postIds.put(fresh.get(i).record.getId(), ids[i]);
+        }
+        run.report.setPostsImported(run.report.getPostsImported() + ids.length);
+    }
+
+    private void writeComments(List<Pending> batch, Run run) {
+        List<Pending> resolved = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            ImportRecord comment = pending.record;
+            if (run.postIds.get(comment.getPostId()) == 0) {
+                run.reject(pending.lineNumber, "unknown post " + comment.getPostId());
+            } else if (comment.getUserId() != null && run.userIds.get(comment.getUserId()) == 0) {
+                run.reject(pending.lineNumber, "unknown user " + comment.getUserId());
+            } else {
+                resolved.add(pending);
+            }
+        }
+        if (resolved.isEmpty()) {
+            return;
+        }
+        // comment timestamps are Instants, stored the way Hibernate binds them: as UTC
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        jdbcTemplate.batchUpdate(
+                "insert into comments (body, created_at, updated_at, user_id, post_id) values (?, ?, ?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ImportRecord comment = resolved.get(i).record;
+                        Timestamp createdAt = Timestamp.from(
+                                comment.getCreatedAt() != null ? comment.getCreatedAt() : Instant.now());
+                        ps.setString(1, comment.getBody());
+                        ps.setTimestamp(2, createdAt, utc);
+                        ps.setTimestamp(3, createdAt, utc);
+                        setUser(ps, 4, comment.getUserId(), run);
+                        ps.setLong(5, run.postIds.get(comment.getPostId()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return resolved.size();
+                    }
+                });
+        run.report.setCommentsImported(run.report.getCommentsImported() + resolved.size());
+    }
+
+    /**
+     * Maps rows whose legacy id is already imported, in the table or earlier in the same batch, to
+     * that row's id, with one IN query for the batch.
+     *
+     * @return the rows still to insert
+     */
+    private List<Pending> linkExisting(List<Pending> batch, LongIdMap ids, String table, Run run) {
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        List<Long> keys = batch.stream().map(pending -> pending.record.getId()).distinct().toList();
+        Map<Long, Long> existing = new HashMap<>();
+        jdbcTemplate.query("select legacy_id, id from " + table + " where legacy_id in (" + placeholders(keys.size()) + ")",
+                rs -> {
+                    existing.put(rs.getLong(1), rs.getLong(2));
+                }, keys.toArray());
+
+        List<Pending> fresh = new ArrayList<>(batch.size());
+        Set<Long> inBatch = new HashSet<>();
+        for (Pending pending : batch) {
+            Long id = existing.get(pending.record.getId());
+            if (id != null) {
+                ids.put(pending.record.getId(), id);
+                run.report.setExisting(run.report.getExisting() + 1);
+            } else if (inBatch.add(pending.record.getId())) {
+                fresh.add(pending);
+            } else {
+                // a repeat inside the batch gets its first occurrence's id once that is inserted
+                run.report.setExisting(run.report.getExisting() + 1);
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Rejects rows whose value for a unique column is taken, in the table or by an earlier row of
+     * the batch, so one clash costs its line instead of failing the chunk on the constraint.
+     *
+     * @return the rows still to insert
+     */
+    private List<Pending> rejectTaken(List<Pending> rows, String table, String column,
+                                      Function<Pending, String> value, Run run) {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        List<String> values = rows.stream().map(value).distinct().toList();
+        Set<String> taken = new HashSet<>(jdbcTemplate.queryForList(
+                "select " + column + " from " + table + " where " + column + " in (" + placeholders(values.size()) + ")",
+                String.class, values.toArray()));
+        List<Pending> free = new ArrayList<>(rows.size());
+        for (Pending pending : rows) {
+            if (taken.add(value.apply(pending))) {
+                free.add(pending);
+            } else {
+                run.reject(pending.lineNumber, column + " " + value.apply(pending) + " already in use");
+            }
+        }
+        return free;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private long[] insertReturningIds(String sql, List<Pending> rows, RowBinder binder) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(sql, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        binder.bind(ps, rows.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, keys);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        if (generated.size() != rows.size()) {
+            throw new IllegalStateException("Expected " + rows.size() + " generated ids, got " + generated.size());
+        }
+        long[] ids = new long[generated.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = ((Number) generated.get(i).values().iterator().next()).longValue();
+        }
+        return ids;
+    }
+
+    private void setUser(PreparedStatement ps, int index, Long legacyUserId, Run run) throws SQLException {
+        if (legacyUserId == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, run.userIds.get(legacyUserId));
+        }
+    }
+
+    // the import went around the write paths, so everything derived from the tables is stale
+    private void refreshDerivedState() {
+        postStatsRepairJob.repairAll();
+        postCache.invalidateAll();
+        responseCache.invalidateAll();
+        hotFeed.rebuild();
+        suggester.rebuild();
+        postSearchIndex.rebuild();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    @FunctionalInterface
+    private interface RowBinder {
+        void bind(PreparedStatement ps, Pending pending) throws SQLException;
+    }
+
+    private static final class Pending {
+        final ImportRecord record;
+        final long lineNumber;
+        long categoryId;
+
+        Pending(ImportRecord record, long lineNumber) {
+            this.record = record;
+            this.lineNumber = lineNumber;
+        }
+
+        String username() {
+            return record.getUsername();
+        }
+
+        String email() {
+            return record.getEmail();
+        }
+
+        String title() {
+            return record.getTitle();
+        }
+    }
+
+    private static final class Run {
+        final long startLine;
+        final ImportReport report = new ImportReport();
+        final LongIdMap userIds = new LongIdMap();
+        final LongIdMap postIds = new LongIdMap();
+        final List<Pending> users = new ArrayList<>();
+        final List<Pending> posts = new ArrayList<>();
+        final List<Pending> comments = new ArrayList<>();
+
+        Run(long startLine) {
+            this.startLine = startLine;
+        }
+
+        void reject(long lineNumber, String reason) {
+            report.setRejected(report.getRejected() + 1);
+            if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+                report.getErrors().add("line " + lineNumber + ": " + reason);
+            }
+        }
+    }
+}
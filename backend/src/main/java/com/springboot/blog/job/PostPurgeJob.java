@@ -0,0 +1,133 @@
+package com.springboot.blog.job;
+
+import com.springboot.blog.entity.ReactionTarget;
+import com.springboot.blog.event.ChangeType;
+import com.springboot.blog.event.PostChangedEvent;
+import com.springboot.blog.payload.PurgeStatusDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes the rows of soft-deleted posts.
+ *
+ * Deleting a post only stamps posts.deleted_at, which hides it from every entity query at once.
+ * This job then empties the thread with set-based DELETE ... LIMIT statements, each its own short
+ * transaction, so a thread with tens of thousands of comments never holds a connection, long row
+ * locks or a persistence context full of comments: the comments' reactions and counts first,
+ * while the comments still say which targets were theirs, then the comments, the post row last.
+ * It starts in the background after each delete, sweeps on a schedule for whatever a restart or
+ * a run already in progress left behind, and reports its progress to the admin API.
+ */
+@Component
+public class PostPurgeJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostPurgeJob.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // progress, for the admin API: the post being emptied and the totals since startup
+    private volatile Long currentPostId;
+    private final AtomicLong currentPostComments = new AtomicLong();
+    private final AtomicLong postsPurged = new AtomicLong();
+    private final AtomicLong commentsPurged = new AtomicLong();
+
+    public PostPurgeJob(JdbcTemplate jdbcTemplate,
+                        @Value("${app.jobs.post-purge.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        if (event.getType() == ChangeType.DELETED) {
+            ForkJoinPool.commonPool().execute(this::purgeAll);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.post-purge.interval:PT5M}",
+            initialDelayString = "${app.jobs.post-purge.interval:PT5M}")
+    public void scheduledPurge() {
+        purgeAll();
+    }
+
+    /**
+     * @return number of posts purged, or -1 if a run was already in progress
+     */
+    public long purgeAll() {
+        if (!running.compareAndSet(false, true)) {
+            return -1;
+        }
+        try {
+            long purged = 0;
+            long afterId = 0;
+            while (true) {
+                List<Long> ids = jdbcTemplate.queryForList("select id from posts where deleted_at is not null"
+                        + " and id > ? order by id limit ?", Long.class, afterId, batchSize);
+                if (ids.isEmpty()) {
+                    return purged;
+                }
+                for (Long id : ids) {
+                    try {
+                        purgePost(id);
+                        purged++;
+                    } catch (RuntimeException e) {
+                        // left for the next sweep; the post stays hidden meanwhile
+                        logger.warn("Purging deleted post {} failed", id, e);
+                    }
+                }
+                afterId = ids.get(ids.size() - 1);
+            }
+        } finally {
+            currentPostId = null;
+            running.set(false);
+        }
+    }
+
+    public PurgeStatusDto status() {
+        Long pending = jdbcTemplate.queryForObject("select count(*) from posts where deleted_at is not null", Long.class);
+        return new PurgeStatusDto(running.get(), pending != null ? pending : 0, currentPostId,
+                currentPostComments.get(), postsPurged.get(), commentsPurged.get());
+    }
+
+    private void purgePost(long postId) {
+        long started = System.nanoTime();
+        currentPostId = postId;
+        currentPostComments.set(0);
+        purgeCommentReactions("reactions", postId);
+        purgeCommentReactions("reaction_counts", postId);
+        while (true) {
+            int deleted = jdbcTemplate.update("delete from comments where post_id = ? limit ?", postId, batchSize);
+            currentPostComments.addAndGet(deleted);
+            commentsPurged.addAndGet(deleted);
+            if (deleted < batchSize) {
+                break;
+            }
+            logger.debug("Purging deleted post {}: {} comments so far", postId, currentPostComments.get());
+        }
+        if (jdbcTemplate.update("delete from posts where id = ? and deleted_at is not null", postId) > 0) {
+            postsPurged.incrementAndGet();
+        }
+        logger.info("Purged deleted post {} with {} comments in {} ms",
+                postId, currentPostComments.get(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void purgeCommentReactions(String table, long postId) {
+        while (jdbcTemplate.update("delete from " + table + " where target_type = ? and target_id in"
+                + " (select id from comments where post_id = ?) limit ?",
+                ReactionTarget.COMMENT.name(), postId, batchSize) == batchSize) {
+            logger.debug("Purging deleted post {}: still clearing {}", postId, table);
+        }
+    }
+}
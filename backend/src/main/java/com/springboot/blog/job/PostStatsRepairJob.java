@@ -0,0 +1,159 @@
+package com.springboot.blog.job;
+
+import com.springboot.blog.cache.PostCache;
+import com.springboot.blog.cache.ResponseCache;
+import com.springboot.blog.repository.CommentRepository;
+import com.springboot.blog.repository.PostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Recomputes posts.comment_count and posts.last_activity_at from the comments table.
+ *
+ * The live values are kept by single-statement updates in the comment write paths; this job
+ * catches whatever drifts (rows that predate the columns, deletes, manual fixes). It walks posts
+ * by id in batches, one short transaction per batch, and locks each batch's post rows first so a
+ * comment written meanwhile waits for the batch instead of being overwritten by it. Runs nightly,
+ * at startup when rows were missing their last activity (after backfilling it from created_at),
+ * and on demand from the admin API.
+ */
+@Component
+public class PostStatsRepairJob implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostStatsRepairJob.class);
+
+    // createComment stamps last activity a moment before the comment row gets its own created_at,
+    // so a stored value this close to the recomputed one is left alone
+    private static final Duration ACTIVITY_SLACK = Duration.ofSeconds(1);
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PostCache postCache;
+    private final ResponseCache responseCache;
+    private final int batchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public PostStatsRepairJob(PostRepository postRepository,
+                              CommentRepository commentRepository,
+                              TransactionTemplate transactionTemplate,
+                              PostCache postCache,
+                              ResponseCache responseCache,
+                              @Value("${app.jobs.post-stats-repair.batch-size:500}") int batchSize) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.postCache = postCache;
+        this.responseCache = responseCache;
+        this.batchSize = batchSize;
+    }
+
+    // the backfill is one statement and runs before anything else, so the last-activity listings and
+    // cursors see a value on every row; the repair that moves them to their newest comment follows
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer backfilled = transactionTemplate.execute(status -> postRepository.backfillLastActivity());
+        if (backfilled != null && backfilled > 0) {
+            logger.info("Backfilled last activity of {} posts from their creation time", backfilled);
+            ForkJoinPool.commonPool().execute(this::repairAll);
+        }
+    }
+
+    @Scheduled(cron = "${app.jobs.post-stats-repair.cron:0 30 3 * * *}")
+    public void scheduledRepair() {
+        repairAll();
+    }
+
+    /**
+     * @return number of posts whose stats were corrected, or -1 if a run was already in progress
+     */
+    public long repairAll() {
+        if (!running.compareAndSet(false, true)) {
+            return -1;
+        }
+        try {
+            long started = System.nanoTime();
+            long afterId = 0;
+            long scanned = 0;
+            long repaired = 0;
+            while (true) {
+                long from = afterId;
+                Batch batch = transactionTemplate.execute(status -> repairBatch(from));
+                if (batch == null || batch.scanned == 0) {
+                    break;
+                }
+                scanned += batch.scanned;
+                repaired += batch.repaired;
+                afterId = batch.lastId;
+            }
+            if (repaired > 0) {
+                // the corrections bypass the write paths, so nothing else invalidated these
+                postCache.invalidateAll();
+                responseCache.invalidateAll();
+            }
+            logger.info("Post stats repair scanned {} posts, corrected {} in {} ms",
+                    scanned, repaired, (System.nanoTime() - started) / 1_000_000);
+            return repaired;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Batch repairBatch(long afterId) {
+        List<Object[]> posts = postRepository.lockStatsBatch(afterId, PageRequest.of(0, batchSize));
+        if (posts.isEmpty()) {
+            return new Batch(0, 0, afterId);
+        }
+
+        List<Long> ids = posts.stream().map(row -> (Long) row[0]).toList();
+        Map<Long, Object[]> comments = new HashMap<>();
+        for (Object[] row : commentRepository.summarizeByPostIds(ids)) {
+            comments.put((Long) row[0], row);
+        }
+
+        int repaired = 0;
+        for (Object[] post : posts) {
+            long id = (Long) post[0];
+            // last activity is the newest surviving comment, or the post's own creation without one
+            LocalDateTime lastActivity = (LocalDateTime) post[1];
+            LocalDateTime stored = (LocalDateTime) post[2];
+            long commentCount = 0;
+
+            Object[] summary = comments.get(id);
+            if (summary != null) {
+                commentCount = (Long) summary[1];
+                // comment timestamps are Instants, post timestamps local date-times
+                Instant newest = (Instant) summary[2];
+                LocalDateTime newestLocal = LocalDateTime.ofInstant(newest, ZoneId.systemDefault());
+                if (newestLocal.isAfter(lastActivity)) {
+                    lastActivity = newestLocal;
+                }
+            }
+            if (stored != null && Duration.between(stored, lastActivity).abs().compareTo(ACTIVITY_SLACK) <= 0) {
+                lastActivity = stored;
+            }
+            repaired += postRepository.repairStats(id, commentCount, lastActivity);
+        }
+        return new Batch(posts.size(), repaired, ids.get(ids.size() - 1));
+    }
+
+    private record Batch(int scanned, int repaired, long lastId) {
+    }
+}
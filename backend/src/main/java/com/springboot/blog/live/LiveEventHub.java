@@ -0,0 +1,430 @@
+package com.springboot.blog.live;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.blog.event.ChangeType;
+import com.springboot.blog.event.CommentChangedEvent;
+import com.springboot.blog.event.PostChangedEvent;
+import com.springboot.blog.mapper.CommentMapper;
+import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.payload.LiveUpdateDto;
+import com.springboot.blog.repository.CommentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-Sent Event streams of post and comment changes, one topic per post and per category.
+ *
+ * Streams are async requests: the servlet thread returns as soon as a stream is open, and a
+ * small pool of sender threads writes to whichever subscribers have something queued. Each
+ * subscriber has a bounded queue; a client too slow to keep up has its stream closed rather than
+ * the queue grown, and reconnects with Last-Event-ID like after any other drop. The socket
+ * writes themselves run on writer threads that a sender waits for only up to the write timeout,
+ * and streams are only ever completed there too, since completing waits for a write in progress:
+ * a stalled client costs a writer thread until the container gives up on its socket, never a
+ * sender or a publisher. The writers are a fixed pool with a bounded queue; once both are full,
+ * further streams are closed rather than more threads started.
+ *
+ * Every topic keeps its last events for that resume. Event ids are one sequence across topics,
+ * seeded from the clock so ids from before a restart are never reused; a resume from an id the
+ * buffer no longer covers, or from further back than a queue holds, gets a reset event, after
+ * which the client refetches. Heartbeats keep
+ * idle streams open through proxies and find dead connections, and topics nobody has listened to
+ * for a while are dropped with their buffers. A single instance only, like the other in-memory
+ * state.
+ */
+@Component
+public class LiveEventHub implements DisposableBean, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveEventHub.class);
+
+    public static final String RESET = "reset";
+    private static final LiveEvent HEARTBEAT = new LiveEvent(0, null, null);
+
+    private final CommentRepository commentRepository;
+    private final CommentMapper commentMapper;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final int queueSize;
+    private final int replaySize;
+    private final long replayTtlNanos;
+    private final long writeTimeoutMillis;
+    private final ExecutorService sender;
+    private final ExecutorService writer;
+
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    // a topic and its subscribers only change inside compute calls, so a subscriber never
+    // misses an event published while it joins
+    private final ConcurrentHashMap<String, Topic> topics = new ConcurrentHashMap<>();
+
+    public LiveEventHub(CommentRepository commentRepository,
+                        CommentMapper commentMapper,
+                        ObjectMapper objectMapper,
+                        @Value("${app.live.timeout:PT30M}") Duration timeout,
+                        @Value("${app.live.queue-size:64}") int queueSize,
+                        @Value("${app.live.replay-size:256}") int replaySize,
+                        @Value("${app.live.replay-ttl:PT10M}") Duration replayTtl,
+                        @Value("${app.live.sender-threads:2}") int senderThreads,
+                        @Value("${app.live.write-timeout:PT10S}") Duration writeTimeout,
+                        @Value("${app.live.writer-threads:16}") int writerThreads,
+                        @Value("${app.live.writer-queue:256}") int writerQueue) {
+        this.commentRepository = commentRepository;
+        this.commentMapper = commentMapper;
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeout.toMillis();
+        this.queueSize = queueSize;
+        this.replaySize = replaySize;
+        this.replayTtlNanos = replayTtl.toNanos();
+        this.writeTimeoutMillis = writeTimeout.toMillis();
+        this.sender = Executors.newFixedThreadPool(senderThreads, daemonThreads("live-sender-"));
+        ThreadPoolExecutor writers = new ThreadPoolExecutor(writerThreads, writerThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(writerQueue), daemonThreads("live-writer-"));
+        writers.allowCoreThreadTimeOut(true);
+        this.writer = writers;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static String postTopic(long postId) {
+        return "post:" + postId;
+    }
+
+    public static String categoryTopic(long categoryId) {
+        return "category:" + categoryId;
+    }
+
+    /**
+     * Opens a stream of the topic's events, starting after lastEventId when the client resumes.
+     */
+    public SseEmitter subscribe(String topic, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, new ArrayBlockingQueue<>(queueSize));
+        emitter.onCompletion(() -> unsubscribe(topic, subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> unsubscribe(topic, subscriber));
+        // buffered until the request returns, so the servlet thread commits the response and the
+        // client sees the stream open at once; the sender threads only ever write the body
+        try {
+            subscriber.send(HEARTBEAT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        topics.compute(topic, (key, existing) -> {
+            Topic joined = existing != null ? existing : new Topic(sequence.get());
+            if (lastEventId != null) {
+                joined.replay(lastEventId, subscriber);
+            }
+            joined.subscribers.add(subscriber);
+            joined.touch();
+            return joined;
+        });
+        schedule(subscriber);
+        return emitter;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.live.topics", topics, Map::size)
+                .description("Posts and categories with open streams or buffered events")
+                .register(registry);
+        Gauge.builder("app.live.subscribers", topics,
+                        current -> current.values().stream().mapToInt(topic -> topic.subscribers.size()).sum())
+                .description("Open event streams")
+                .register(registry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentChanged(CommentChangedEvent event) {
+        String topic = postTopic(event.getPostId());
+        if (!topics.containsKey(topic)) {
+            return;
+        }
+        CommentDto comment = null;
+        if (event.getType() != ChangeType.DELETED) {
+            // one read per change however many are listening; gone again means a delete follows
+            comment = commentRepository.findWithUserById(event.getCommentId()).map(commentMapper::toDto).orElse(null);
+            if (comment == null) {
+                return;
+            }
+        }
+        publish(topic, new LiveUpdateDto(name("comment", event.getType()), event.getPostId(), event.getCommentId(),
+                null, null, comment));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        LiveUpdateDto update = new LiveUpdateDto(name("post", event.getType()), event.getPostId(), null,
+                event.getCategoryId(), event.getTitle(), null);
+        publish(postTopic(event.getPostId()), update);
+        if (event.getCategoryId() != null) {
+            publish(categoryTopic(event.getCategoryId()), update);
+        }
+    }
+
+    // heartbeats for open streams; topics without subscribers or events for a while are dropped
+    @Scheduled(fixedRateString = "${app.live.heartbeat:PT15S}", initialDelayString = "${app.live.heartbeat:PT15S}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        for (String topic : topics.keySet()) {
+            topics.computeIfPresent(topic, (key, current) ->
+                    current.subscribers.isEmpty() && now - current.touchedAt > replayTtlNanos ? null : current);
+        }
+        for (Topic current : topics.values()) {
+            for (Subscriber subscriber : current.subscribers) {
+                if (subscriber.closed.get()) {
+                    // closed while the writers were saturated; retried until one takes it
+                    complete(subscriber);
+                } else if (subscriber.offer(HEARTBEAT)) {
+                    schedule(subscriber);
+                }
+            }
+        }
+    }
+
+    // open streams would otherwise hold up the graceful shutdown until they time out
+    @EventListener(ContextClosedEvent.class)
+    public void closeStreams() {
+        for (Topic current : topics.values()) {
+            for (Subscriber subscriber : current.subscribers) {
+                if (subscriber.closed.compareAndSet(false, true)) {
+                    schedule(subscriber);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        sender.shutdownNow();
+        writer.shutdownNow();
+    }
+
+    private void publish(String topic, LiveUpdateDto update) {
+        if (!topics.containsKey(topic)) {
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(update);
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not serialize live update {}", update, e);
+            return;
+        }
+        List<Subscriber> notified = new ArrayList<>();
+        topics.computeIfPresent(topic, (key, current) -> {
+            LiveEvent event = new LiveEvent(sequence.incrementAndGet(), update.getType(), json);
+            current.append(event);
+            for (Subscriber subscriber : current.subscribers) {
+                if (subscriber.offer(event)) {
+                    notified.add(subscriber);
+                }
+            }
+            return current;
+        });
+        notified.forEach(this::schedule);
+    }
+
+    private void unsubscribe(String topic, Subscriber subscriber) {
+        subscriber.closed.set(true);
+        topics.computeIfPresent(topic, (key, current) -> {
+            current.subscribers.remove(subscriber);
+            current.touch();
+            return current;
+        });
+    }
+
+    // at most one sender drains a subscriber at a time, so its events go out in order
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(subscriber));
+            } catch (RuntimeException e) {
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            LiveEvent event;
+            while (!subscriber.closed.get() && (event = subscriber.queue.poll()) != null) {
+                write(subscriber, event);
+            }
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // checked after draining is released, so a close marked meanwhile is either seen here or
+        // schedules a drain of its own
+        if (subscriber.closed.get()) {
+            complete(subscriber);
+        } else if (!subscriber.queue.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    private void write(Subscriber subscriber, LiveEvent event) {
+        Future<?> write;
+        try {
+            write = writer.submit(() -> {
+                subscriber.send(event);
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            // every writer busy and the queue full: this stream is dropped rather than waited on
+            subscriber.closed.set(true);
+            return;
+        }
+        try {
+            write.get(writeTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // the client went away
+            subscriber.failure = e.getCause();
+            subscriber.closed.set(true);
+        } catch (TimeoutException e) {
+            // the write stays blocked on its writer thread; the stream is given up on
+            logger.debug("Live stream write took over {} ms, closing it", writeTimeoutMillis);
+            subscriber.closed.set(true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            subscriber.closed.set(true);
+        }
+    }
+
+    // on a writer thread, as completing waits for any write still in progress; the emitter's
+    // callbacks then unsubscribe it
+    private void complete(Subscriber subscriber) {
+        if (!subscriber.completed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            writer.execute(() -> {
+                if (subscriber.failure != null) {
+                    subscriber.emitter.completeWithError(subscriber.failure);
+                } else {
+                    subscriber.emitter.complete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // saturated, and the next heartbeat tries again; or shutting down, and the container
+            // ends the request
+            subscriber.completed.set(false);
+        }
+    }
+
+    private static String name(String kind, ChangeType type) {
+        return kind + "." + type.name().toLowerCase(Locale.ROOT);
+    }
+
+    private record LiveEvent(long id, String name, String data) {
+    }
+
+    private final class Topic {
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        final ArrayDeque<LiveEvent> events = new ArrayDeque<>();
+        // the newest id that may have been missed: events after it are all still buffered
+        long floor;
+        volatile long touchedAt = System.nanoTime();
+
+        Topic(long floor) {
+            this.floor = floor;
+        }
+
+        void append(LiveEvent event) {
+            if (events.size() == replaySize) {
+                floor = events.removeFirst().id();
+            }
+            events.addLast(event);
+            touch();
+        }
+
+        // a gap the buffer no longer covers, or one too long for the subscriber's queue, gets the
+        // reset instead: replaying part of it would close the new stream before it sent anything
+        void replay(long lastEventId, Subscriber subscriber) {
+            List<LiveEvent> missed = events.stream().filter(event -> event.id() > lastEventId).toList();
+            if (lastEventId < floor || missed.size() > subscriber.queue.remainingCapacity()) {
+                subscriber.offer(new LiveEvent(sequence.get(), RESET, "{}"));
+                return;
+            }
+            missed.forEach(subscriber::offer);
+        }
+
+        void touch() {
+            touchedAt = System.nanoTime();
+        }
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final BlockingQueue<LiveEvent> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        final AtomicBoolean completed = new AtomicBoolean();
+        volatile Throwable failure;
+
+        Subscriber(SseEmitter emitter, BlockingQueue<LiveEvent> queue) {
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        // true when a sender has work: the event to send, or the stream to complete after falling
+        // behind. Only marked closed here, as callers hold a topic's lock
+        boolean offer(LiveEvent event) {
+            if (closed.get()) {
+                return false;
+            }
+            return queue.offer(event) || closed.compareAndSet(false, true);
+        }
+
+        void send(LiveEvent event) throws IOException {
+            if (event == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else {
+                emitter.send(SseEmitter.event().id(Long.toString(event.id())).name(event.name()).data(event.data()));
+            }
+        }
+    }
+}
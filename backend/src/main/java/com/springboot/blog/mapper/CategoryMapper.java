@@ -0,0 +1,13 @@
+package com.springboot.blog.mapper;
+
+import com.springboot.blog.entity.Category;
+import com.springboot.blog.payload.CategoryDto;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CategoryMapper {
+
+    public CategoryDto toDto(Category category) {
+        return new CategoryDto(category.getId(), category.getName(), category.getDescription());
+    }
+}
@@ -0,0 +1,31 @@
+package com.springboot.blog.mapper;
+
+import com.springboot.blog.entity.Comment;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.payload.CommentDto;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CommentMapper {
+
+    public CommentDto toDto(Comment comment) {
+        CommentDto dto = new CommentDto();
+        dto.setId(comment.getId());
+        dto.setBody(comment.getBody());
+        dto.setCreatedAt(comment.getCreatedAt());
+        dto.setUpdatedAt(comment.getUpdatedAt());
+
+        User user = comment.getUser();
+        if (user != null) {
+            dto.setAuthorId(user.getId());
+            // a bare reference from getReferenceById stays unloaded; the caller fills in the rest
+            if (Hibernate.isInitialized(user)) {
+                dto.setAuthorUsername(user.getUsername());
+                dto.setAuthorName(user.getName());
+            }
+        }
+
+        return dto;
+    }
+}
@@ -0,0 +1,85 @@
+package com.springboot.blog.mapper;
+
+import com.springboot.blog.entity.Comment;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.payload.PostDto;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+@Component
+public class PostMapper {
+
+    private final CommentMapper commentMapper;
+
+    public PostMapper(CommentMapper commentMapper) {
+        this.commentMapper = commentMapper;
+    }
+
+    // Maps only the post's own columns plus author/category ids; never touches post.getComments().
+    public PostDto toDto(Post post) {
+        PostDto dto = new PostDto();
+        dto.setId(post.getId());
+        dto.setTitle(post.getTitle());
+        dto.setDescription(post.getDescription());
+        dto.setContent(post.getContent());
+        dto.setCreatedAt(toInstant(post.getCreatedAt()));
+        dto.setUpdatedAt(toInstant(post.getUpdatedAt()));
+        dto.setCommentCount(post.getCommentCount());
+        dto.setLastActivityAt(toInstant(post.getLastActivityAt()));
+        dto.setViewCount(post.getViewCount());
+        dto.setUniqueViewers(post.getUniqueViewers());
+
+        User user = post.getUser();
+        if (user != null) {
+            dto.setAuthorId(user.getId());
+            // a bare reference from getReferenceById stays unloaded; the caller fills in the rest
+            if (Hibernate.isInitialized(user)) {
+                dto.setAuthorUsername(user.getUsername());
+                dto.setAuthorName(user.getName());
+            }
+        }
+
+        if (post.getCategory() != null) {
+            dto.setCategoryId(post.getCategory().getId());
+        }
+
+        return dto;
+    }
+
+    // Full representation with the comments the caller already loaded, oldest first.
+    public PostDto toDto(Post post, Collection<Comment> comments) {
+        PostDto dto = toDto(post);
+
+        Set<CommentDto> commentDtos = new LinkedHashSet<>();
+        comments.stream()
+                .sorted(Comparator.comparing(Comment::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(Comment::getId))
+                .map(commentMapper::toDto)
+                .forEach(commentDtos::add);
+        dto.setComments(commentDtos);
+
+        return dto;
+    }
+
+    public Post toEntity(PostDto postDto) {
+        Post post = new Post();
+        post.setTitle(postDto.getTitle());
+        post.setDescription(postDto.getDescription());
+        post.setContent(postDto.getContent());
+        return post;
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant() : null;
+    }
+}
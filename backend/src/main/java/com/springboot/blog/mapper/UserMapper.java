@@ -0,0 +1,18 @@
+package com.springboot.blog.mapper;
+
+import com.springboot.blog.entity.User;
+import com.springboot.blog.payload.UserDto;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserMapper {
+
+    public UserDto toDto(User user) {
+        UserDto dto = new UserDto();
+        dto.setId(user.getId());
+        dto.setUsername(user.getUsername());
+        dto.setName(user.getName());
+        dto.setEmail(user.getEmail());
+        return dto;
+    }
+}
@@ -0,0 +1,87 @@
+package com.springboot.blog.metrics;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the statements Hibernate prepares and the entities it loads on the current thread while
+ * a count is open. Hibernate's own statistics are global, so under concurrent requests they
+ * cannot say which request did the work; a request runs on one thread, and this can. Statements
+ * issued through JdbcTemplate bypass Hibernate and are not counted.
+ */
+@Component
+public class HibernateWorkCounter implements StatementInspector, PostLoadEventListener, Integrator,
+        HibernatePropertiesCustomizer {
+
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    public Counts open() {
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    public void close() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.statements++;
+        }
+        return sql;
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.entityLoads++;
+        }
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put("hibernate.session_factory.statement_inspector", this);
+        hibernateProperties.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(this));
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        sessionFactory.getServiceRegistry().requireService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, this);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    public static final class Counts {
+        private long statements;
+        private long entityLoads;
+
+        public long getStatements() {
+            return statements;
+        }
+
+        public long getEntityLoads() {
+            return entityLoads;
+        }
+    }
+}
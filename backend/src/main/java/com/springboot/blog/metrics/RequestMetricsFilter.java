@@ -0,0 +1,161 @@
+package com.springboot.blog.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Per-endpoint work next to the latency timers of http.server.requests: the Hibernate statements
+ * and entity loads a request caused, and the bytes of its response body, under the same method,
+ * uri and status tags. Runs outside the security chain and the response cache, so token checks
+ * and cache hits are part of what it measures. For event streams only the opening request is
+ * measured.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final HibernateWorkCounter workCounter;
+
+    public RequestMetricsFilter(MeterRegistry meterRegistry, HibernateWorkCounter workCounter) {
+        this.meterRegistry = meterRegistry;
+        this.workCounter = workCounter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        CountingResponse counting = new CountingResponse(response);
+        HibernateWorkCounter.Counts counts = workCounter.open();
+        try {
+            filterChain.doFilter(request, counting);
+        } finally {
+            workCounter.close();
+            Tags tags = Tags.of("method", request.getMethod(), "uri", uri(request, response),
+                    "status", Integer.toString(response.getStatus()));
+            summary("app.request.db.statements", "statements", 1_000, tags).record(counts.getStatements());
+            summary("app.request.db.entity.loads", "entities", 10_000, tags).record(counts.getEntityLoads());
+            if (!request.isAsyncStarted()) {
+                summary("app.request.response.size", "bytes", 16 << 20, tags).record(counting.bytes);
+            }
+        }
+    }
+
+    // the expected maximum bounds the histogram buckets when they are turned on
+    private DistributionSummary summary(String name, String baseUnit, double maximumExpected, Tags tags) {
+        return DistributionSummary.builder(name)
+                .baseUnit(baseUnit)
+                .maximumExpectedValue(maximumExpected)
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    // the same fallbacks as http.server.requests, to keep the number of uri values bounded
+    private static String uri(HttpServletRequest request, HttpServletResponse response) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            return pattern.toString();
+        }
+        int status = response.getStatus();
+        if (status == HttpServletResponse.SC_NOT_FOUND) {
+            return "NOT_FOUND";
+        }
+        return status >= 300 && status < 400 ? "REDIRECTION" : "UNKNOWN";
+    }
+
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+        private long bytes;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream target = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        target.write(b);
+                        bytes++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        target.write(b, off, len);
+                        bytes += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        target.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        target.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return target.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        target.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        // counts characters, which is bytes for the ASCII error pages that come this way
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(super.getWriter()) {
+                    @Override
+                    public void write(int c) {
+                        super.write(c);
+                        bytes++;
+                    }
+
+                    @Override
+                    public void write(char[] buf, int off, int len) {
+                        super.write(buf, off, len);
+                        bytes += len;
+                    }
+
+                    @Override
+                    public void write(String s, int off, int len) {
+                        super.write(s, off, len);
+                        bytes += len;
+                    }
+                };
+            }
+            return writer;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.springboot.blog.payload;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheStatsDto {
+    private String name;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private long loadFailureCount;
+    private double averageLoadPenaltyMillis;
+
+    public static CacheStatsDto of(String name, long size, CacheStats stats) {
+        return new CacheStatsDto(
+                name,
+                size,
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                stats.loadFailureCount(),
+                stats.averageLoadPenalty() / 1_000_000.0
+        );
+    }
+}
@@ -0,0 +1,21 @@
+package com.springboot.blog.payload;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class CommentCursorResponse extends CursorResponse<CommentDto> {
+    // read from the post's maintained counter, not a COUNT over the thread
+    private long totalComments;
+
+    public CommentCursorResponse(List<CommentDto> content, int pageSize, String nextCursor, boolean hasNext,
+                                 long totalComments) {
+        super(content, pageSize, nextCursor, hasNext);
+        this.totalComments = totalComments;
+    }
+}
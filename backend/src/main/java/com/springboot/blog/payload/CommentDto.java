@@ -4,10 +4,12 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.Instant;
 
 @Data
+@NoArgsConstructor
 @Schema(description = "CommentDto Model Information")
 public class CommentDto {
 
@@ -24,4 +26,16 @@ public class CommentDto {
     private Long authorId;
     private String authorUsername;
     private String authorName;
+
+    // used by the JPQL constructor expressions in CommentRepository
+    public CommentDto(Long id, String body, Instant createdAt, Instant updatedAt,
+                      Long authorId, String authorUsername, String authorName) {
+        this.id = id;
+        this.body = body;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.authorId = authorId;
+        this.authorUsername = authorUsername;
+        this.authorName = authorName;
+    }
 }
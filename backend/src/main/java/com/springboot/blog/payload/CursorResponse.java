@@ -0,0 +1,18 @@
+package com.springboot.blog.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorResponse<T> {
+    private List<T> content;
+    private int pageSize;
+    // opaque token for the next page, null on the last page
+    private String nextCursor;
+    private boolean hasNext;
+}
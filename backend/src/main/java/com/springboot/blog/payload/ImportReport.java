@@ -0,0 +1,30 @@
+package com.springboot.blog.payload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Progress of an NDJSON import; lastCommittedLine is where a rerun can resume")
+public class ImportReport {
+    private long linesRead;
+    private long lastCommittedLine;
+
+    private long usersImported;
+    private long postsImported;
+    private long commentsImported;
+
+    // users and posts already in the database (by username / title), linked rather than inserted
+    private long existing;
+    private long rejected;
+
+    // the first few rejections, "line N: reason"
+    private List<String> errors = new ArrayList<>();
+
+    private boolean completed;
+    private long durationMillis;
+}
@@ -0,0 +1,24 @@
+package com.springboot.blog.payload;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// data of one Server-Sent Event; the event name repeats type
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "A live post or comment change: comment.created/updated/deleted, post.created/updated/deleted")
+public class LiveUpdateDto {
+    private String type;
+    private long postId;
+    private Long commentId;
+    // post events only; null when a patch left them unchanged
+    private Long categoryId;
+    private String title;
+    // the comment as the comment endpoints return it, on comment.created and comment.updated
+    private CommentDto comment;
+}
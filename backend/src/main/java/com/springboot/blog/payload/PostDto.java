@@ -37,6 +37,12 @@ public class PostDto {
 
     private Set<CommentDto> comments;
 
+    // server-maintained thread activity
+    private long commentCount;
+    private Instant lastActivityAt;
+    private long viewCount;
+    private long uniqueViewers;
+
     @Schema(description = "Blog Post Category")
     private Long categoryId;
 }
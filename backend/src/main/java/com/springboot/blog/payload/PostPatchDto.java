@@ -0,0 +1,26 @@
+package com.springboot.blog.payload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+// PATCH body: absent (null) fields keep their current value
+@Data
+@Schema(description = "Partial post update; only the fields present are changed")
+public class PostPatchDto {
+
+    @Size(min = 2, message = "Post title should have at least 2 characters")
+    private String title;
+
+    @Size(min = 10, message = "Post description should have at least 10 characters")
+    private String description;
+
+    @Size(min = 1, message = "Post content must not be empty")
+    private String content;
+
+    private Long categoryId;
+
+    public boolean isEmpty() {
+        return title == null && description == null && content == null && categoryId == null;
+    }
+}
@@ -10,7 +10,7 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 public class PostResponse {
-    private List<PostDto> content;
+    private List<PostSummaryDto> content;
     private int pageNo;
     private int pageSize;
     private long totalElements;
@@ -0,0 +1,29 @@
+package com.springboot.blog.payload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Search result: the matched post's list fields plus highlighted snippets")
+public class PostSearchHit {
+    private long id;
+    private String title;
+    private String description;
+
+    private Instant createdAt;
+
+    private String authorUsername;
+    private String authorName;
+
+    private Long categoryId;
+
+    private float score;
+
+    // field name (title, description, content, comments) -> snippet with matches wrapped in <mark>
+    private Map<String, String> highlights;
+}
@@ -0,0 +1,57 @@
+package com.springboot.blog.payload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Post list item, without content and comments")
+public class PostSummaryDto {
+    private long id;
+    private String title;
+    private String description;
+
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    private Long authorId;
+    private String authorUsername;
+    private String authorName;
+
+    private Long categoryId;
+
+    private long commentCount;
+    private Instant lastActivityAt;
+    private long viewCount;
+    private long uniqueViewers;
+
+    // used by the JPQL constructor expressions in PostRepository
+    public PostSummaryDto(Long id, String title, String description,
+                          LocalDateTime createdAt, LocalDateTime updatedAt,
+                          Long authorId, String authorUsername, String authorName,
+                          Long categoryId, Long commentCount, LocalDateTime lastActivityAt,
+                          Long viewCount, Long uniqueViewers) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.createdAt = toInstant(createdAt);
+        this.updatedAt = toInstant(updatedAt);
+        this.authorId = authorId;
+        this.authorUsername = authorUsername;
+        this.authorName = authorName;
+        this.categoryId = categoryId;
+        this.commentCount = commentCount != null ? commentCount : 0L;
+        this.lastActivityAt = toInstant(lastActivityAt);
+        this.viewCount = viewCount != null ? viewCount : 0L;
+        this.uniqueViewers = uniqueViewers != null ? uniqueViewers : 0L;
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant() : null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.springboot.blog.payload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Progress of removing soft-deleted posts and their comments")
+public class PurgeStatusDto {
+    private boolean running;
+    // deleted posts whose rows are still there, the one being emptied included
+    private long pendingPosts;
+    private Long currentPostId;
+    private long currentPostCommentsPurged;
+
+    // since startup
+    private long postsPurged;
+    private long commentsPurged;
+}
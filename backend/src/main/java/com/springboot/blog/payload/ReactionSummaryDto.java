@@ -0,0 +1,21 @@
+package com.springboot.blog.payload;
+
+import com.springboot.blog.entity.ReactionType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Reaction counts of one post or comment, and the caller's own reactions to it")
+public class ReactionSummaryDto {
+    private long targetId;
+    private Map<ReactionType, Long> counts;
+    // empty for anonymous callers
+    private Set<ReactionType> mine;
+}
@@ -0,0 +1,17 @@
+package com.springboot.blog.payload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Posts and users matching a typed prefix, most popular first")
+public class SuggestResponse {
+    private List<SuggestionDto> posts;
+    private List<SuggestionDto> users;
+}
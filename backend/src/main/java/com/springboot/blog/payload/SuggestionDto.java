@@ -0,0 +1,16 @@
+package com.springboot.blog.payload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Autocomplete entry: a post (title, author username) or a user (username, name)")
+public class SuggestionDto {
+    private long id;
+    private String text;
+    private String detail;
+}
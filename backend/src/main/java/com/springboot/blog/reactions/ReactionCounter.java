@@ -0,0 +1,219 @@
+package com.springboot.blog.reactions;
+
+import com.springboot.blog.entity.ReactionTarget;
+import com.springboot.blog.entity.ReactionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Reaction totals in reaction_counts, with the increments in between flushes kept in memory.
+ *
+ * Reacting adds +1 or -1 to a striped LongAdder for the target and type, so a burst of likes on
+ * one post spreads over cells instead of queueing on one row lock. A scheduled flush swaps the
+ * buffer out and adds it to the stored totals in one transaction of batched statements; a failed
+ * flush puts the deltas back, and shutdown flushes what is left.
+ *
+ * Reads add the buffered and in-flight deltas to the stored totals, so a user sees their own
+ * reaction counted at once. A read that races a flush's commit can count that flush twice for a
+ * moment; the next read is exact again. Like PostViewCounter this assumes a single instance.
+ */
+@Component
+public class ReactionCounter implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactionCounter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    // adding shares the read side; the flush swaps the buffer under the write side
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile ConcurrentHashMap<CountKey, LongAdder> pending = new ConcurrentHashMap<>();
+    private volatile Map<CountKey, LongAdder> inFlight = Map.of();
+    private final Object flushing = new Object();
+
+    public ReactionCounter(JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${app.reactions.flush.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    public void add(ReactionTarget target, long targetId, ReactionType type, long delta) {
+        CountKey key = new CountKey(target, targetId, type);
+        lock.readLock().lock();
+        try {
+            LongAdder adder = pending.get(key);
+            if (adder == null) {
+                adder = pending.computeIfAbsent(key, k -> new LongAdder());
+            }
+            adder.add(delta);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Current totals of the given targets, one query per batch of ids; targets without
+     * reactions map to an empty map.
+     */
+    public Map<Long, Map<ReactionType, Long>> counts(ReactionTarget target, Collection<Long> targetIds) {
+        Map<Long, Map<ReactionType, Long>> counts = new HashMap<>();
+        for (Long id : targetIds) {
+            counts.put(id, new EnumMap<>(ReactionType.class));
+        }
+        for (List<Long> ids : chunks(counts.keySet())) {
+            List<Object> args = new ArrayList<>(ids.size() + 1);
+            args.add(target.name());
+            args.addAll(ids);
+            jdbcTemplate.query("select target_id, reaction_type, reaction_count from reaction_counts"
+                            + " where target_type = ? and target_id in " + placeholders(ids.size()),
+                    rs -> {
+                        counts.get(rs.getLong(1)).merge(ReactionType.valueOf(rs.getString(2)), rs.getLong(3), Long::sum);
+                    }, args.toArray());
+        }
+        addBuffered(counts, target, inFlight);
+        addBuffered(counts, target, pending);
+        counts.values().forEach(byType -> byType.values().removeIf(count -> count <= 0));
+        return counts;
+    }
+
+    /**
+     * @return number of counters written
+     */
+    @Scheduled(fixedDelayString = "${app.reactions.flush.interval:PT5S}",
+            initialDelayString = "${app.reactions.flush.interval:PT5S}")
+    public int flush() {
+        synchronized (flushing) {
+            Map<CountKey, LongAdder> drained;
+            lock.writeLock().lock();
+            try {
+                drained = pending;
+                pending = new ConcurrentHashMap<>();
+                inFlight = drained;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            try {
+                drained.values().removeIf(adder -> adder.sum() == 0);
+                if (drained.isEmpty()) {
+                    return 0;
+                }
+                transactionTemplate.executeWithoutResult(status -> write(drained));
+                return drained.size();
+            } catch (RuntimeException e) {
+                restore(drained);
+                logger.warn("Reaction count flush failed, {} counters kept for the next attempt", drained.size(), e);
+                return 0;
+            } finally {
+                inFlight = Map.of();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    // drops a deleted target's buffered deltas and stored totals; waits out a flush in progress,
+    // which would otherwise insert the drained deltas back after the delete
+    public void forget(ReactionTarget target, long targetId) {
+        synchronized (flushing) {
+            lock.readLock().lock();
+            try {
+                pending.keySet().removeIf(key -> key.target() == target && key.targetId() == targetId);
+            } finally {
+                lock.readLock().unlock();
+            }
+            jdbcTemplate.update("delete from reaction_counts where target_type = ? and target_id = ?",
+                    target.name(), targetId);
+        }
+    }
+
+    private void write(Map<CountKey, LongAdder> drained) {
+        List<CountKey> keys = new ArrayList<>(drained.keySet());
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            List<CountKey> batch = keys.subList(from, Math.min(keys.size(), from + batchSize));
+            List<Object[]> updates = new ArrayList<>(batch.size());
+            for (CountKey key : batch) {
+                updates.add(new Object[]{drained.get(key).sum(), key.target().name(), key.targetId(), key.type().name()});
+            }
+            int[] updated = jdbcTemplate.batchUpdate("update reaction_counts set reaction_count = reaction_count + ?"
+                    + " where target_type = ? and target_id = ? and reaction_type = ?", updates);
+
+            // first reactions of their kind; the single flusher means nobody else inserts them meanwhile
+            List<Object[]> inserts = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if (updated[i] == 0) {
+                    CountKey key = batch.get(i);
+                    inserts.add(new Object[]{key.target().name(), key.targetId(), key.type().name(),
+                            Math.max(0, drained.get(key).sum())});
+                }
+            }
+            jdbcTemplate.batchUpdate("insert into reaction_counts (target_type, target_id, reaction_type, reaction_count)"
+                    + " values (?, ?, ?, ?)", inserts);
+        }
+    }
+
+    // back into the live buffer, on top of whatever arrived since the swap
+    private void restore(Map<CountKey, LongAdder> drained) {
+        lock.readLock().lock();
+        try {
+            drained.forEach((key, adder) -> pending.computeIfAbsent(key, k -> new LongAdder()).add(adder.sum()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void addBuffered(Map<Long, Map<ReactionType, Long>> counts, ReactionTarget target,
+                                    Map<CountKey, LongAdder> buffer) {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        counts.forEach((id, byType) -> {
+            for (ReactionType type : ReactionType.values()) {
+                LongAdder adder = buffer.get(new CountKey(target, id, type));
+                if (adder != null) {
+                    byType.merge(type, adder.sum(), Long::sum);
+                }
+            }
+        });
+    }
+
+    private List<List<Long>> chunks(Set<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += batchSize) {
+            chunks.add(all.subList(from, Math.min(all.size(), from + batchSize)));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        return "(" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+    }
+
+    private record CountKey(ReactionTarget target, long targetId, ReactionType type) {
+    }
+}
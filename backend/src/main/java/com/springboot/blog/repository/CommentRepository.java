@@ -1,10 +1,93 @@
 package com.springboot.blog.repository;
 
 import com.springboot.blog.entity.Comment;
+import com.springboot.blog.payload.CommentDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+
+    // authors are joined in, so mapping a thread never issues a query per comment
+    @EntityGraph(attributePaths = "user")
     List<Comment> findByPostId(long postId);
+
+    // single comments and the statements below ask for their post as well, so the restriction on
+    // posts hides the comments of a deleted post until PostPurgeJob removes them. A subquery, as
+    // Hibernate applies the restriction to a query's Post root but not to a join to one
+    @Query("select c from Comment c left join fetch c.user " +
+            "where c.id = :id and exists (select p.id from Post p where p.id = c.post.id)")
+    Optional<Comment> findWithUserById(@Param("id") Long id);
+
+    @Query("select count(c) > 0 from Comment c " +
+            "where c.id = :id and c.post.id = :postId and exists (select p.id from Post p where p.id = :postId)")
+    boolean existsByIdAndPostId(@Param("id") long id, @Param("postId") long postId);
+
+    // PUT: ownership is checked on the loaded comment, and with an If-Match, expected is the
+    // updatedAt the tag was computed from, so a write committed since makes this touch 0 rows
+    @Modifying
+    @Query("update Comment c set c.body = :body, c.updatedAt = :updatedAt " +
+            "where c.id = :id and (:expected is null or c.updatedAt = :expected) " +
+            "and exists (select p.id from Post p where p.id = c.post.id)")
+    int replaceBody(@Param("id") long id, @Param("body") String body, @Param("updatedAt") Instant updatedAt,
+                    @Param("expected") Instant expected);
+
+    // edit and delete in one statement each, ownership included; 0 rows means missing, in another
+    // post or not the caller's, or for an edit with an If-Match (expected, as in replaceBody) changed
+    // since the tag
+    @Modifying
+    @Query("update Comment c set c.body = :body, c.updatedAt = :updatedAt " +
+            "where c.id = :id and c.post.id = :postId and (c.user.id = :userId or :admin = true) " +
+            "and (:expected is null or c.updatedAt = :expected) " +
+            "and exists (select p.id from Post p where p.id = :postId)")
+    int updateBody(@Param("id") long id, @Param("postId") long postId, @Param("userId") long userId,
+                   @Param("admin") boolean admin, @Param("body") String body, @Param("updatedAt") Instant updatedAt,
+                   @Param("expected") Instant expected);
+
+    @Modifying
+    @Query("delete from Comment c " +
+            "where c.id = :id and c.post.id = :postId and (c.user.id = :userId or :admin = true) " +
+            "and exists (select p.id from Post p where p.id = :postId)")
+    int deleteOwned(@Param("id") long id, @Param("postId") long postId, @Param("userId") long userId,
+                    @Param("admin") boolean admin);
+
+    // [postId, count, newest createdAt] for the given posts, for PostStatsRepairJob
+    @Query("select c.post.id, count(c), max(c.createdAt) from Comment c where c.post.id in :postIds group by c.post.id")
+    List<Object[]> summarizeByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    // [id, postId, body] rows, all PostSearchIndex needs from comments
+    @Query("select c.id, c.post.id, c.body from Comment c where c.post.id in :postIds order by c.post.id, c.id")
+    List<Object[]> findBodiesByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    @Query("select c.body from Comment c where c.id = :id and exists (select p.id from Post p where p.id = c.post.id)")
+    Optional<String> findBodyById(@Param("id") long id);
+
+    // [postId, categoryId, createdAt] of every comment since the cutoff, for rebuilding HotFeed
+    @Query("select c.post.id, c.post.category.id, c.createdAt from Comment c where c.createdAt >= :since")
+    List<Object[]> findActivitySince(@Param("since") Instant since);
+
+    // thread pages are projected straight from comments joined to their authors and walk the
+    // (post_id, created_at, id) index; Slices, so no COUNT
+    String PAGE_SELECT = "select new com.springboot.blog.payload.CommentDto(" +
+            "c.id, c.body, c.createdAt, c.updatedAt, u.id, u.username, u.name) " +
+            "from Comment c left join c.user u ";
+
+    @Query(PAGE_SELECT + "where c.post.id = :postId order by c.createdAt asc, c.id asc")
+    Slice<CommentDto> findPageByPostId(@Param("postId") long postId, Pageable pageable);
+
+    @Query(PAGE_SELECT + "where c.post.id = :postId " +
+            "and (c.createdAt > :createdAt or (c.createdAt = :createdAt and c.id > :id)) " +
+            "order by c.createdAt asc, c.id asc")
+    Slice<CommentDto> findPageByPostIdAfter(@Param("postId") long postId,
+                                            @Param("createdAt") Instant createdAt,
+                                            @Param("id") long id, Pageable pageable);
 }
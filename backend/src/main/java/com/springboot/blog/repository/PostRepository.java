@@ -1,15 +1,213 @@
 package com.springboot.blog.repository;
 
+import com.springboot.blog.entity.Category;
 import com.springboot.blog.entity.Post;
+import com.springboot.blog.payload.PostSummaryDto;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface PostRepository extends JpaRepository<Post, Long> {
 
-    List<Post> findByCategoryId(Long categoryId);
+    // everything a PostDto needs except comments, in one statement
+    @EntityGraph(attributePaths = {"user", "category"})
+    Optional<Post> findWithUserAndCategoryById(Long id);
 
-    Page<Post> findByUserUsername(String username, Pageable pageable);
+    // PostSearchIndex rebuild: the next batch of posts by id, with what a search document needs
+    @EntityGraph(attributePaths = {"user", "category"})
+    @Query("select p from Post p where p.id > :afterId order by p.id")
+    List<Post> findBatchAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // list endpoints read summaries straight from the query: no content column, no comment rows
+    String SUMMARY_SELECT = "select new com.springboot.blog.payload.PostSummaryDto(" +
+            "p.id, p.title, p.description, p.createdAt, p.updatedAt, " +
+            "u.id, u.username, u.name, c.id, p.commentCount, p.lastActivityAt, p.viewCount, p.uniqueViewers) " +
+            "from Post p left join p.user u left join p.category c ";
+
+    @Query("select p.commentCount from Post p where p.id = :id")
+    Optional<Long> findCommentCountById(@Param("id") long id);
+
+    // single-statement counter updates; they return 0 when the post does not exist
+    @Modifying
+    @Query("update Post p set p.commentCount = p.commentCount + 1, p.lastActivityAt = :activityAt where p.id = :id")
+    int incrementCommentCount(@Param("id") long id, @Param("activityAt") LocalDateTime activityAt);
+
+    @Modifying
+    @Query("update Post p set p.commentCount = p.commentCount - 1 where p.id = :id and p.commentCount > 0")
+    int decrementCommentCount(@Param("id") long id);
+
+    // PUT in one statement. With an If-Match, expected is the updatedAt the tag was computed from,
+    // so a write committed after the tag was checked makes this touch 0 rows instead of being lost
+    @Modifying
+    @Query("update Post p set p.title = :title, p.description = :description, p.content = :content, " +
+            "p.category = :category, p.updatedAt = :updatedAt " +
+            "where p.id = :id and (:expected is null or p.updatedAt = :expected)")
+    int replace(@Param("id") long id, @Param("title") String title, @Param("description") String description,
+                @Param("content") String content, @Param("category") Category category,
+                @Param("updatedAt") LocalDateTime updatedAt, @Param("expected") LocalDateTime expected);
+
+    // PATCH in one statement: null parameters keep the column, and the ownership check and the
+    // If-Match precondition (expected, as in replace) are part of the WHERE, so 0 rows means the
+    // post is missing, not the caller's or changed since the tag. Hibernate cannot coalesce an
+    // association, so a patch that moves the post to another category uses the second variant
+    @Modifying
+    @Query("update Post p set p.title = coalesce(:title, p.title), " +
+            "p.description = coalesce(:description, p.description), " +
+            "p.content = coalesce(:content, p.content), p.updatedAt = :updatedAt " +
+            "where p.id = :id and (p.user.id = :userId or :admin = true) " +
+            "and (:expected is null or p.updatedAt = :expected)")
+    int patch(@Param("id") long id, @Param("userId") long userId, @Param("admin") boolean admin,
+              @Param("title") String title, @Param("description") String description,
+              @Param("content") String content, @Param("updatedAt") LocalDateTime updatedAt,
+              @Param("expected") LocalDateTime expected);
+
+    @Modifying
+    @Query("update Post p set p.title = coalesce(:title, p.title), " +
+            "p.description = coalesce(:description, p.description), " +
+            "p.content = coalesce(:content, p.content), p.category = :category, p.updatedAt = :updatedAt " +
+            "where p.id = :id and (p.user.id = :userId or :admin = true) " +
+            "and (:expected is null or p.updatedAt = :expected)")
+    int patchWithCategory(@Param("id") long id, @Param("userId") long userId, @Param("admin") boolean admin,
+                          @Param("title") String title, @Param("description") String description,
+                          @Param("content") String content, @Param("category") Category category,
+                          @Param("updatedAt") LocalDateTime updatedAt, @Param("expected") LocalDateTime expected);
+
+    // the delete itself: the post disappears from every entity query, its rows stay until PostPurgeJob
+    @Modifying
+    @Query("update Post p set p.deletedAt = :deletedAt where p.id = :id and p.deletedAt is null")
+    int softDelete(@Param("id") long id, @Param("deletedAt") LocalDateTime deletedAt);
+
+    // PostStatsRepairJob: the next batch of [id, createdAt, lastActivityAt] rows, locked so live counter updates on
+    // them wait until the batch is rewritten
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p.id, p.createdAt, p.lastActivityAt from Post p where p.id > :afterId order by p.id")
+    List<Object[]> lockStatsBatch(@Param("afterId") long afterId, Pageable pageable);
+
+    // writes only rows that actually drifted
+    @Modifying
+    @Query("update Post p set p.commentCount = :commentCount, p.lastActivityAt = :lastActivityAt " +
+            "where p.id = :id and (p.commentCount <> :commentCount " +
+            "or p.lastActivityAt is null or p.lastActivityAt <> :lastActivityAt)")
+    int repairStats(@Param("id") long id, @Param("commentCount") long commentCount,
+                    @Param("lastActivityAt") LocalDateTime lastActivityAt);
+
+    // rows from before last_activity_at existed start from their creation until PostStatsRepairJob
+    // moves them to their newest comment
+    @Modifying
+    @Query("update Post p set p.lastActivityAt = p.createdAt where p.lastActivityAt is null")
+    int backfillLastActivity();
+
+    // [id, categoryId, createdAt] of posts created since the cutoff, for rebuilding HotFeed
+    @Query("select p.id, p.category.id, p.createdAt from Post p where p.createdAt >= :since")
+    List<Object[]> findActivitySince(@Param("since") LocalDateTime since);
+
+    // [id, title, commentCount, authorId] of the next batch by id, for rebuilding Suggester
+    @Query("select p.id, p.title, p.commentCount, p.user.id from Post p where p.id > :afterId order by p.id")
+    List<Object[]> findSuggestionsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("select p.category.id from Post p where p.id = :id")
+    Optional<Long> findCategoryIdById(@Param("id") long id);
+
+    @Query("select p.id from Post p order by p.createdAt desc, p.id desc")
+    List<Long> findRecentIds(Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT, countQuery = "select count(p) from Post p")
+    Page<PostSummaryDto> findSummaries(Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "where u.username = :username",
+            countQuery = "select count(p) from Post p where p.user.username = :username")
+    Page<PostSummaryDto> findSummariesByUsername(@Param("username") String username, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where p.category.id = :categoryId")
+    List<PostSummaryDto> findSummariesByCategoryId(@Param("categoryId") Long categoryId);
+
+    // rows come back in no particular order; callers that rank ids reorder them
+    @Query(SUMMARY_SELECT + "where p.id in :ids")
+    List<PostSummaryDto> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // keyset (cursor) pagination: callers always pass page 0 with the matching sort, so these
+    // stay index range scans and, being Slices, never issue a COUNT
+
+    @Query(SUMMARY_SELECT)
+    Slice<PostSummaryDto> findSummarySlice(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id)")
+    Slice<PostSummaryDto> findSummariesCreatedBefore(@Param("createdAt") LocalDateTime createdAt,
+                                                     @Param("id") long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where p.createdAt > :createdAt or (p.createdAt = :createdAt and p.id > :id)")
+    Slice<PostSummaryDto> findSummariesCreatedAfter(@Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("id") long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where p.id < :id")
+    Slice<PostSummaryDto> findSummariesIdBefore(@Param("id") long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where p.id > :id")
+    Slice<PostSummaryDto> findSummariesIdAfter(@Param("id") long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where p.lastActivityAt < :lastActivityAt " +
+            "or (p.lastActivityAt = :lastActivityAt and p.id < :id)")
+    Slice<PostSummaryDto> findSummariesActiveBefore(@Param("lastActivityAt") LocalDateTime lastActivityAt,
+                                                    @Param("id") long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where p.lastActivityAt > :lastActivityAt " +
+            "or (p.lastActivityAt = :lastActivityAt and p.id > :id)")
+    Slice<PostSummaryDto> findSummariesActiveAfter(@Param("lastActivityAt") LocalDateTime lastActivityAt,
+                                                   @Param("id") long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where u.username = :username")
+    Slice<PostSummaryDto> findSummarySliceByUsername(@Param("username") String username, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where u.username = :username " +
+            "and (p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id))")
+    Slice<PostSummaryDto> findSummariesByUsernameCreatedBefore(@Param("username") String username,
+                                                               @Param("createdAt") LocalDateTime createdAt,
+                                                               @Param("id") long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where u.username = :username " +
+            "and (p.createdAt > :createdAt or (p.createdAt = :createdAt and p.id > :id))")
+    Slice<PostSummaryDto> findSummariesByUsernameCreatedAfter(@Param("username") String username,
+                                                              @Param("createdAt") LocalDateTime createdAt,
+                                                              @Param("id") long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where u.username = :username " +
+            "and (p.lastActivityAt < :lastActivityAt or (p.lastActivityAt = :lastActivityAt and p.id < :id))")
+    Slice<PostSummaryDto> findSummariesByUsernameActiveBefore(@Param("username") String username,
+                                                              @Param("lastActivityAt") LocalDateTime lastActivityAt,
+                                                              @Param("id") long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where u.username = :username " +
+            "and (p.lastActivityAt > :lastActivityAt or (p.lastActivityAt = :lastActivityAt and p.id > :id))")
+    Slice<PostSummaryDto> findSummariesByUsernameActiveAfter(@Param("username") String username,
+                                                             @Param("lastActivityAt") LocalDateTime lastActivityAt,
+                                                             @Param("id") long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where u.username = :username and p.id < :id")
+    Slice<PostSummaryDto> findSummariesByUsernameIdBefore(@Param("username") String username,
+                                                          @Param("id") long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where u.username = :username and p.id > :id")
+    Slice<PostSummaryDto> findSummariesByUsernameIdAfter(@Param("username") String username,
+                                                         @Param("id") long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where p.category.id = :categoryId")
+    Slice<PostSummaryDto> findSummarySliceByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where p.category.id = :categoryId " +
+            "and (p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id))")
+    Slice<PostSummaryDto> findSummariesByCategoryIdCreatedBefore(@Param("categoryId") Long categoryId,
+                                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                                 @Param("id") long id, Pageable pageable);
 }
@@ -1,14 +1,23 @@
 package com.springboot.blog.repository;
 
 import com.springboot.blog.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
+    // roles are lazy; authentication is the one path that needs them
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByUsernameOrEmail(String username, String email);
 
     Optional<User> findByUsername(String username);
@@ -16,4 +25,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByUsername(String username);
 
     Boolean existsByEmail(String email);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePassword(@Param("id") long id, @Param("password") String password);
+
+    // [id, username, name, postCount] of the next batch by id, for rebuilding Suggester
+    @Query("select u.id, u.username, u.name, count(p.id) from User u left join Post p on p.user = u " +
+            "where u.id > :afterId group by u.id, u.username, u.name order by u.id")
+    List<Object[]> findSuggestionsAfter(@Param("afterId") long afterId, Pageable pageable);
 }
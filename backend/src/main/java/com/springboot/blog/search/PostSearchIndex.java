@@ -0,0 +1,635 @@
+package com.springboot.blog.search;
+
+import com.springboot.blog.cache.ResponseCache;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.event.ChangeType;
+import com.springboot.blog.event.CommentChangedEvent;
+import com.springboot.blog.event.PostChangedEvent;
+import com.springboot.blog.exception.BlogAPIException;
+import com.springboot.blog.payload.PostSearchHit;
+import com.springboot.blog.payload.PostSearchResponse;
+import com.springboot.blog.repository.CommentRepository;
+import com.springboot.blog.repository.PostRepository;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded Lucene index over posts: one document per post holding its title, description and
+ * content, and one per comment holding its body and post id. Searches return posts, ranked with
+ * BM25 (Lucene's default) plus the score of their best matching comment, title matches weighted
+ * highest, with highlighted snippets per field.
+ *
+ * Post events queue the post's document for reindexing once they commit, comment events only
+ * the comment's, and deleting a post drops its comments with it. All writes go through one
+ * indexer thread, so a burst on the same document collapses into one reindex and a rebuild
+ * never interleaves with incremental updates. Searches use near-real-time readers over
+ * the uncommitted writer; the index is committed to disk on a schedule and on shutdown, and
+ * rebuilt in the background when it starts out empty.
+ */
+@Component
+public class PostSearchIndex implements ApplicationRunner, DisposableBean {
+
+    public static final String TITLE = "title";
+    public static final String DESCRIPTION = "description";
+    public static final String CONTENT = "content";
+    public static final String COMMENTS = "comments";
+
+    private static final String KIND = "kind";
+    private static final String POST = "post";
+    private static final String COMMENT = "comment";
+    // the update key of each kind: the post id on posts, the comment id on comments
+    private static final String ID = "id";
+    private static final String COMMENT_ID = "commentId";
+    // on both kinds, to tie comments to their post
+    private static final String POST_ID = "postId";
+    private static final String CATEGORY_ID = "categoryId";
+    private static final String AUTHOR = "author";
+    private static final String AUTHOR_NAME = "authorName";
+    private static final String CREATED_AT = "createdAt";
+
+    // highlighted on the post's document; comments on the best matching comment's
+    private static final String[] POST_FIELDS = {TITLE, DESCRIPTION, CONTENT};
+    private static final Map<String, Float> WEIGHTS = Map.of(TITLE, 3f, DESCRIPTION, 2f, CONTENT, 1f, COMMENTS, 0.5f);
+
+    // deeper pages cost a full top-n collection each; nobody reads past this
+    private static final int MAX_RESULT_WINDOW = 1000;
+
+    private static final Logger logger = LoggerFactory.getLogger(PostSearchIndex.class);
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final ResponseCache responseCache;
+    private final int batchSize;
+    private final int rebuildThreads;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final Directory directory;
+    // replaced together when a failed rebuild is rolled back, on the indexer thread
+    private volatile IndexWriter writer;
+    private volatile SearcherManager searcherManager;
+
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "post-search-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingComments = ConcurrentHashMap.newKeySet();
+
+    public PostSearchIndex(PostRepository postRepository,
+                           CommentRepository commentRepository,
+                           ResponseCache responseCache,
+                           @Value("${app.search.index-dir:data/search-index}") Path indexDir,
+                           @Value("${app.search.rebuild.batch-size:500}") int batchSize,
+                           @Value("${app.search.rebuild.threads:0}") int rebuildThreads) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.responseCache = responseCache;
+        this.batchSize = batchSize;
+        this.rebuildThreads = rebuildThreads > 0 ? rebuildThreads : Runtime.getRuntime().availableProcessors();
+        try {
+            this.directory = FSDirectory.open(indexDir);
+            this.writer = openWriter();
+            this.searcherManager = new SearcherManager(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open search index at " + indexDir, e);
+        }
+    }
+
+    public PostSearchResponse search(String text, Long categoryId, String author, int pageNo, int pageSize) {
+        if (text == null || text.isBlank()) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Search query must not be blank.");
+        }
+        if (pageNo < 0 || (pageNo + 1L) * pageSize > MAX_RESULT_WINDOW) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST,
+                    "Search results are limited to the first " + MAX_RESULT_WINDOW + " hits.");
+        }
+
+        // the simple syntax never throws: quotes, +, -, | and trailing * work, anything else is text
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, WEIGHTS);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        Query matches = parser.parse(text);
+        if (matches == null) {
+            return new PostSearchResponse(List.of(), pageNo, pageSize, 0, 0, true);
+        }
+
+        try {
+            SearcherManager manager = searcherManager;
+            IndexSearcher searcher = manager.acquire();
+            try {
+                // comments match on their own, then lift their post into the results
+                BestCommentCollector comments = new BestCommentCollector();
+                searcher.search(new BooleanQuery.Builder()
+                        .add(matches, BooleanClause.Occur.MUST)
+                        .add(new TermQuery(new Term(KIND, COMMENT)), BooleanClause.Occur.FILTER)
+                        .build(), comments);
+
+                BooleanQuery.Builder matching = new BooleanQuery.Builder().add(matches, BooleanClause.Occur.SHOULD);
+                if (!comments.best.isEmpty()) {
+                    Query commented = LongPoint.newSetQuery(POST_ID, comments.best.keySet());
+                    // scored by the collector from the comment itself
+                    matching.add(new BoostQuery(new ConstantScoreQuery(commented), 0f), BooleanClause.Occur.SHOULD);
+                }
+                BooleanQuery.Builder query = new BooleanQuery.Builder()
+                        .add(matching.build(), BooleanClause.Occur.MUST)
+                        .add(new TermQuery(new Term(KIND, POST)), BooleanClause.Occur.FILTER);
+                if (categoryId != null) {
+                    query.add(LongPoint.newExactQuery(CATEGORY_ID, categoryId), BooleanClause.Occur.FILTER);
+                }
+                if (author != null && !author.isBlank()) {
+                    query.add(new TermQuery(new Term(AUTHOR, author)), BooleanClause.Occur.FILTER);
+                }
+
+                TopPostCollector posts = new TopPostCollector((pageNo + 1) * pageSize, comments.best);
+                searcher.search(query.build(), posts);
+                List<ScoreDoc> page = posts.page(pageNo * pageSize);
+                return new PostSearchResponse(toHits(searcher, matches, page, comments.best), pageNo, pageSize,
+                        posts.totalHits, (int) ((posts.totalHits + pageSize - 1) / pageSize),
+                        (pageNo + 1L) * pageSize >= posts.totalHits);
+            } finally {
+                manager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<PostSearchHit> toHits(IndexSearcher searcher, Query query, List<ScoreDoc> page,
+                                       Map<Long, ScoreDoc> bestComments) throws IOException {
+        if (page.isEmpty()) {
+            return List.of();
+        }
+        StoredFields stored = searcher.storedFields();
+        List<Document> docs = new ArrayList<>(page.size());
+        List<ScoreDoc> commentDocs = new ArrayList<>();
+        for (ScoreDoc scoreDoc : page) {
+            Document doc = stored.document(scoreDoc.doc);
+            docs.add(doc);
+            ScoreDoc comment = bestComments.get(Long.parseLong(doc.get(ID)));
+            if (comment != null) {
+                commentDocs.add(comment);
+            }
+        }
+
+        UnifiedHighlighter highlighter = UnifiedHighlighter.builder(searcher, analyzer)
+                .withFormatter(new DefaultPassageFormatter("<mark>", "</mark>", "… ", true))
+                .build();
+        Map<String, String[]> snippets = highlighter.highlightFields(POST_FIELDS, query,
+                topDocs(page), new int[] {1, 1, 1});
+        Map<Integer, String> commentSnippets = new HashMap<>();
+        if (!commentDocs.isEmpty()) {
+            String[] highlighted = highlighter.highlightFields(new String[] {COMMENTS}, query,
+                    topDocs(commentDocs), new int[] {1}).get(COMMENTS);
+            for (int i = 0; i < commentDocs.size(); i++) {
+                commentSnippets.put(commentDocs.get(i).doc, highlighted[i]);
+            }
+        }
+
+        List<PostSearchHit> hits = new ArrayList<>(page.size());
+        for (int i = 0; i < page.size(); i++) {
+            ScoreDoc scoreDoc = page.get(i);
+            Document doc = docs.get(i);
+
+            PostSearchHit hit = new PostSearchHit();
+            hit.setId(Long.parseLong(doc.get(ID)));
+            hit.setTitle(doc.get(TITLE));
+            hit.setDescription(doc.get(DESCRIPTION));
+            hit.setCreatedAt(Instant.ofEpochMilli(doc.getField(CREATED_AT).numericValue().longValue()));
+            hit.setAuthorUsername(doc.get(AUTHOR));
+            hit.setAuthorName(doc.get(AUTHOR_NAME));
+            hit.setCategoryId(doc.getField(CATEGORY_ID) != null ? doc.getField(CATEGORY_ID).numericValue().longValue() : null);
+            hit.setScore(scoreDoc.score);
+
+            Map<String, String> highlights = new LinkedHashMap<>();
+            for (String field : POST_FIELDS) {
+                putHighlight(highlights, field, snippets.get(field)[i]);
+            }
+            ScoreDoc comment = bestComments.get(hit.getId());
+            if (comment != null) {
+                putHighlight(highlights, COMMENTS, commentSnippets.get(comment.doc));
+            }
+            hit.setHighlights(highlights);
+            hits.add(hit);
+        }
+        return hits;
+    }
+
+    private static void putHighlight(Map<String, String> highlights, String field, String snippet) {
+        if (snippet != null && snippet.contains("<mark>")) {
+            highlights.put(field, snippet);
+        }
+    }
+
+    private static TopDocs topDocs(List<ScoreDoc> scoreDocs) {
+        return new TopDocs(new TotalHits(scoreDocs.size(), TotalHits.Relation.EQUAL_TO), scoreDocs.toArray(new ScoreDoc[0]));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        if (event.getType() == ChangeType.DELETED) {
+            indexer.execute(() -> apply(() -> writer.deleteDocuments(LongPoint.newExactQuery(POST_ID, event.getPostId()))));
+        } else {
+            queue(event.getPostId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentChanged(CommentChangedEvent event) {
+        queueComment(event.getPostId(), event.getCommentId());
+    }
+
+    // reindexes the post's own document from the database; a post that no longer exists is
+    // removed together with its comments
+    private void queue(long postId) {
+        if (pending.add(postId)) {
+            indexer.execute(() -> {
+                pending.remove(postId);
+                apply(() -> {
+                    Post post = postRepository.findWithUserAndCategoryById(postId).orElse(null);
+                    if (post == null) {
+                        writer.deleteDocuments(LongPoint.newExactQuery(POST_ID, postId));
+                    } else {
+                        writer.updateDocument(new Term(ID, String.valueOf(postId)), toDocument(post));
+                    }
+                });
+            });
+        }
+    }
+
+    // reindexes one comment; a comment that no longer exists, or whose post is gone, is removed
+    private void queueComment(long postId, long commentId) {
+        if (pendingComments.add(commentId)) {
+            indexer.execute(() -> {
+                pendingComments.remove(commentId);
+                apply(() -> {
+                    Term key = new Term(COMMENT_ID, String.valueOf(commentId));
+                    String body = commentRepository.findBodyById(commentId).orElse(null);
+                    if (body == null) {
+                        writer.deleteDocuments(key);
+                    } else {
+                        writer.updateDocument(key, toDocument(commentId, postId, body));
+                    }
+                });
+            });
+        }
+    }
+
+    /**
+     * Replaces the whole index from the tables. Runs on the indexer thread, so queued updates wait
+     * and apply on top of it; readers keep seeing the old index until it is done, and go on seeing
+     * it if the rebuild fails. Posts are walked by id in batches and each batch is turned into
+     * documents on a worker pool.
+     */
+    public Future<?> rebuild() {
+        return indexer.submit(() -> apply(this::rebuildNow));
+    }
+
+    private void rebuildNow() throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        // what a failure rolls back to, so the updates applied before the rebuild are kept
+        writer.commit();
+        writer.deleteAll();
+        long indexed;
+        try {
+            indexed = addAll();
+            writer.commit();
+        } catch (Exception e) {
+            rollback();
+            throw e;
+        }
+        logger.info("Rebuilt search index with {} posts in {} ms", indexed, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private long addAll() throws IOException, InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(rebuildThreads);
+        // bounds how many loaded batches wait for a worker
+        Semaphore inFlight = new Semaphore(rebuildThreads * 2);
+        List<Future<?>> batches = new ArrayList<>();
+        long indexed = 0;
+        try {
+            long afterId = 0;
+            while (true) {
+                List<Post> posts = postRepository.findBatchAfter(afterId, PageRequest.of(0, batchSize));
+                if (posts.isEmpty()) {
+                    break;
+                }
+                inFlight.acquire();
+                batches.add(workers.submit(() -> {
+                    try {
+                        for (Post post : posts) {
+                            writer.addDocument(toDocument(post));
+                        }
+                        for (Object[] row : commentRepository.findBodiesByPostIds(posts.stream().map(Post::getId).toList())) {
+                            writer.addDocument(toDocument((Long) row[0], (Long) row[1], (String) row[2]));
+                        }
+                        return null;
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+                indexed += posts.size();
+                afterId = posts.get(posts.size() - 1).getId();
+            }
+            for (Future<?> batch : batches) {
+                batch.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search index rebuild failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+            // nothing may still be writing when a failure rolls back
+            workers.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        return indexed;
+    }
+
+    // drops everything since the last commit; rollback closes the writer, so it and the searchers
+    // on it are reopened over the committed index
+    private void rollback() throws IOException {
+        SearcherManager stale = searcherManager;
+        writer.rollback();
+        writer = openWriter();
+        searcherManager = new SearcherManager(writer, null);
+        // searches still holding a reader from it release into it as usual
+        stale.close();
+    }
+
+    private IndexWriter openWriter() throws IOException {
+        return new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+    }
+
+    // waits until everything queued so far is searchable
+    public void awaitIdle() {
+        try {
+            indexer.submit(() -> { }).get(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Search indexer did not drain", e);
+        }
+    }
+
+    // durability only: searchers already see every write, so nothing is refreshed or invalidated
+    @Scheduled(fixedDelayString = "${app.search.commit-interval:PT30S}")
+    public void commit() {
+        indexer.execute(() -> {
+            try {
+                if (writer.hasUncommittedChanges()) {
+                    writer.commit();
+                }
+            } catch (Exception e) {
+                logger.warn("Search index commit failed", e);
+            }
+        });
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (indexedPosts() == 0 && postRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    // an index without post documents is empty, or was written before documents had a kind
+    private int indexedPosts() {
+        try {
+            SearcherManager manager = searcherManager;
+            IndexSearcher searcher = manager.acquire();
+            try {
+                return searcher.count(new TermQuery(new Term(KIND, POST)));
+            } finally {
+                manager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        indexer.shutdown();
+        indexer.awaitTermination(30, TimeUnit.SECONDS);
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private static Document toDocument(Post post) {
+        Document doc = new Document();
+        doc.add(new StringField(KIND, POST, Field.Store.NO));
+        doc.add(new StringField(ID, String.valueOf(post.getId()), Field.Store.YES));
+        addPostId(doc, post.getId());
+        doc.add(new StoredField(CREATED_AT, post.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+        if (post.getCategory() != null) {
+            doc.add(new LongPoint(CATEGORY_ID, post.getCategory().getId()));
+            doc.add(new StoredField(CATEGORY_ID, post.getCategory().getId()));
+        }
+        if (post.getUser() != null) {
+            doc.add(new StringField(AUTHOR, post.getUser().getUsername(), Field.Store.YES));
+            if (post.getUser().getName() != null) {
+                doc.add(new StoredField(AUTHOR_NAME, post.getUser().getName()));
+            }
+        }
+        addText(doc, TITLE, post.getTitle());
+        addText(doc, DESCRIPTION, post.getDescription());
+        addText(doc, CONTENT, post.getContent());
+        return doc;
+    }
+
+    private static Document toDocument(long commentId, long postId, String body) {
+        Document doc = new Document();
+        doc.add(new StringField(KIND, COMMENT, Field.Store.NO));
+        doc.add(new StringField(COMMENT_ID, String.valueOf(commentId), Field.Store.NO));
+        addPostId(doc, postId);
+        addText(doc, COMMENTS, body);
+        return doc;
+    }
+
+    // a point to delete and look up by, doc values for the collectors to read it cheaply
+    private static void addPostId(Document doc, long postId) {
+        doc.add(new LongPoint(POST_ID, postId));
+        doc.add(new NumericDocValuesField(POST_ID, postId));
+    }
+
+    private static void addText(Document doc, String field, String value) {
+        if (value != null) {
+            doc.add(new TextField(field, value, Field.Store.YES));
+        }
+    }
+
+    // one index write on the indexer thread, made searchable straight away
+    private void apply(IndexWrite write) {
+        try {
+            write.run();
+            searcherManager.maybeRefreshBlocking();
+            responseCache.invalidateGroups(ResponseCache.GROUP_SEARCH);
+        } catch (Exception e) {
+            logger.warn("Search index update failed", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexWrite {
+        void run() throws Exception;
+    }
+
+    // the highest scoring matching comment of each post
+    private static final class BestCommentCollector extends SimpleCollector {
+
+        final Map<Long, ScoreDoc> best = new HashMap<>();
+        private Scorable scorer;
+        private NumericDocValues postIds;
+        private int docBase;
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            postIds = DocValues.getNumeric(context.reader(), POST_ID);
+            docBase = context.docBase;
+        }
+
+        @Override
+        public void setScorer(Scorable scorer) {
+            this.scorer = scorer;
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (postIds.advanceExact(doc)) {
+                float score = scorer.score();
+                ScoreDoc current = best.get(postIds.longValue());
+                if (current == null || score > current.score) {
+                    best.put(postIds.longValue(), new ScoreDoc(docBase + doc, score));
+                }
+            }
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE;
+        }
+    }
+
+    // the top n posts by their own score plus their best comment's, counting every match
+    private static final class TopPostCollector extends SimpleCollector {
+
+        // ranked like Lucene's own top docs: score first, then index order
+        private static final Comparator<ScoreDoc> RANK =
+                Comparator.comparingDouble((ScoreDoc hit) -> -hit.score).thenComparingInt(hit -> hit.doc);
+
+        private final int size;
+        private final Map<Long, ScoreDoc> bestComments;
+        private final PriorityQueue<ScoreDoc> top;
+        int totalHits;
+        private Scorable scorer;
+        private NumericDocValues postIds;
+        private int docBase;
+
+        TopPostCollector(int size, Map<Long, ScoreDoc> bestComments) {
+            this.size = size;
+            this.bestComments = bestComments;
+            this.top = new PriorityQueue<>(size + 1, RANK.reversed());
+        }
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            postIds = DocValues.getNumeric(context.reader(), POST_ID);
+            docBase = context.docBase;
+        }
+
+        @Override
+        public void setScorer(Scorable scorer) {
+            this.scorer = scorer;
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            totalHits++;
+            float score = scorer.score();
+            if (postIds.advanceExact(doc)) {
+                ScoreDoc comment = bestComments.get(postIds.longValue());
+                if (comment != null) {
+                    score += comment.score;
+                }
+            }
+            top.add(new ScoreDoc(docBase + doc, score));
+            if (top.size() > size) {
+                top.poll();
+            }
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE;
+        }
+
+        List<ScoreDoc> page(int from) {
+            List<ScoreDoc> ranked = new ArrayList<>(top);
+            ranked.sort(RANK);
+            return from < ranked.size() ? ranked.subList(from, ranked.size()) : List.of();
+        }
+    }
+}
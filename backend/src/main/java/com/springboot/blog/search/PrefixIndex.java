@@ -0,0 +1,287 @@
+package com.springboot.blog.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Prefix tree over normalized keys where every node keeps the top {@link #TOP_K} items of its
+ * subtree by score, so a lookup is one walk down the prefix and no scan at all.
+ *
+ * Keys are cut off at {@link #MAX_DEPTH} characters to bound the node count; the node at the cut
+ * holds every item whose key runs past it, and longer prefixes filter those by the full key.
+ * Children are sorted arrays rather than maps to keep nodes small. Writers are serialized and
+ * publish fresh arrays; readers never lock.
+ */
+public class PrefixIndex {
+
+    public static final int TOP_K = 10;
+    static final int MAX_DEPTH = 12;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Item[] NO_ITEMS = new Item[0];
+    private static final Comparator<Item> BY_SCORE = Comparator.comparingLong(Item::getScore).reversed()
+            .thenComparing(Comparator.comparingLong(Item::getId).reversed());
+
+    private final Node root = new Node();
+    private final Map<Long, Item> items = new HashMap<>();
+
+    // lower case without accents, whitespace collapsed
+    public static String normalize(String text) {
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("");
+        return SPACES.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // the text plus every tail starting at a word, so "tuning the jvm" is found by "the j" and "jvm"
+    public static Set<String> wordTails(String text) {
+        String normalized = normalize(text);
+        Set<String> keys = new LinkedHashSet<>();
+        if (!normalized.isEmpty()) {
+            keys.add(normalized);
+            for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+                keys.add(normalized.substring(i + 1));
+            }
+        }
+        return keys;
+    }
+
+    public synchronized void put(long id, String text, String detail, long score, Set<String> keys) {
+        remove(id);
+        Item item = new Item(id, text, detail, score, keys.toArray(new String[0]));
+        items.put(id, item);
+        for (String key : item.keys) {
+            List<Node> path = pathTo(key, true);
+            Node end = path.get(path.size() - 1);
+            end.terminal = with(end.terminal, item);
+            recompute(path);
+        }
+    }
+
+    // same keys and text, new score
+    public synchronized void rescore(long id, long delta) {
+        Item item = items.get(id);
+        if (item != null) {
+            put(id, item.text, item.detail, Math.max(0, item.score + delta), Set.of(item.keys));
+        }
+    }
+
+    // new text and keys, score kept
+    // a null detail keeps the current one
+    public synchronized void retext(long id, String text, String detail, Set<String> keys) {
+        Item item = items.get(id);
+        put(id, text, detail != null || item == null ? detail : item.detail, item != null ? item.score : 0, keys);
+    }
+
+    public synchronized Item get(long id) {
+        return items.get(id);
+    }
+
+    public synchronized void remove(long id) {
+        Item item = items.remove(id);
+        if (item == null) {
+            return;
+        }
+        for (String key : item.keys) {
+            List<Node> path = pathTo(key, false);
+            if (path == null) {
+                continue;
+            }
+            Node end = path.get(path.size() - 1);
+            end.terminal = without(end.terminal, id);
+            recompute(path);
+            prune(path, key);
+        }
+    }
+
+    public synchronized int size() {
+        return items.size();
+    }
+
+    public List<Item> find(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        Node node = root;
+        int depth = Math.min(key.length(), MAX_DEPTH);
+        for (int i = 0; i < depth && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        if (key.length() <= MAX_DEPTH) {
+            Item[] top = node.top;
+            return Arrays.asList(top).subList(0, Math.min(limit, top.length));
+        }
+
+        // past the cut every candidate sits in this node; match the full keys
+        List<Item> matches = new ArrayList<>();
+        for (Item item : node.terminal) {
+            for (String itemKey : item.keys) {
+                if (itemKey.startsWith(key)) {
+                    matches.add(item);
+                    break;
+                }
+            }
+        }
+        matches.sort(BY_SCORE);
+        return matches.subList(0, Math.min(limit, matches.size()));
+    }
+
+    private List<Node> pathTo(String key, boolean create) {
+        List<Node> path = new ArrayList<>(MAX_DEPTH + 1);
+        Node node = root;
+        path.add(node);
+        int depth = Math.min(key.length(), MAX_DEPTH);
+        for (int i = 0; i < depth; i++) {
+            Node next = node.child(key.charAt(i));
+            if (next == null) {
+                if (!create) {
+                    return null;
+                }
+                next = node.addChild(key.charAt(i));
+            }
+            node = next;
+            path.add(node);
+        }
+        return path;
+    }
+
+    // bottom-up, since each node's top k comes from its own items and its children's top k
+    private static void recompute(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            List<Item> candidates = new ArrayList<>(Arrays.asList(node.terminal));
+            for (Node child : node.children.nodes) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort(BY_SCORE);
+            Set<Long> seen = new HashSet<>();
+            List<Item> top = new ArrayList<>(TOP_K);
+            for (Item candidate : candidates) {
+                if (top.size() == TOP_K) {
+                    break;
+                }
+                // an item reachable through several of its keys only counts once
+                if (seen.add(candidate.id)) {
+                    top.add(candidate);
+                }
+            }
+            node.top = top.toArray(NO_ITEMS);
+        }
+    }
+
+    private static void prune(List<Node> path, String key) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (node.terminal.length > 0 || node.children.nodes.length > 0) {
+                return;
+            }
+            path.get(i - 1).removeChild(key.charAt(i - 1));
+        }
+    }
+
+    private static Item[] with(Item[] items, Item item) {
+        Item[] copy = Arrays.copyOf(items, items.length + 1);
+        copy[items.length] = item;
+        return copy;
+    }
+
+    private static Item[] without(Item[] items, long id) {
+        return Arrays.stream(items).filter(item -> item.id != id).toArray(Item[]::new);
+    }
+
+    private static final class Node {
+
+        private volatile Children children = Children.NONE;
+        private volatile Item[] terminal = NO_ITEMS;
+        private volatile Item[] top = NO_ITEMS;
+
+        Node child(char label) {
+            Children current = children;
+            int at = Arrays.binarySearch(current.labels, label);
+            return at >= 0 ? current.nodes[at] : null;
+        }
+
+        Node addChild(char label) {
+            Children current = children;
+            int at = -Arrays.binarySearch(current.labels, label) - 1;
+            int size = current.labels.length;
+            char[] labels = new char[size + 1];
+            Node[] nodes = new Node[size + 1];
+            System.arraycopy(current.labels, 0, labels, 0, at);
+            System.arraycopy(current.nodes, 0, nodes, 0, at);
+            labels[at] = label;
+            nodes[at] = new Node();
+            System.arraycopy(current.labels, at, labels, at + 1, size - at);
+            System.arraycopy(current.nodes, at, nodes, at + 1, size - at);
+            children = new Children(labels, nodes);
+            return nodes[at];
+        }
+
+        void removeChild(char label) {
+            Children current = children;
+            int at = Arrays.binarySearch(current.labels, label);
+            if (at < 0) {
+                return;
+            }
+            int size = current.labels.length;
+            char[] labels = new char[size - 1];
+            Node[] nodes = new Node[size - 1];
+            System.arraycopy(current.labels, 0, labels, 0, at);
+            System.arraycopy(current.nodes, 0, nodes, 0, at);
+            System.arraycopy(current.labels, at + 1, labels, at, size - at - 1);
+            System.arraycopy(current.nodes, at + 1, nodes, at, size - at - 1);
+            children = new Children(labels, nodes);
+        }
+    }
+
+    // labels sorted for binary search, nodes in the same order; replaced as a unit
+    private record Children(char[] labels, Node[] nodes) {
+        static final Children NONE = new Children(new char[0], new Node[0]);
+    }
+
+    public static final class Item {
+
+        private final long id;
+        private final String text;
+        private final String detail;
+        private final long score;
+        private final String[] keys;
+
+        private Item(long id, String text, String detail, long score, String[] keys) {
+            this.id = id;
+            this.text = text;
+            this.detail = detail;
+            this.score = score;
+            this.keys = keys;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+
+        public long getScore() {
+            return score;
+        }
+    }
+}
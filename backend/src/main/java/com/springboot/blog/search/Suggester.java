@@ -0,0 +1,177 @@
+package com.springboot.blog.search;
+
+import com.springboot.blog.event.ChangeType;
+import com.springboot.blog.event.CommentChangedEvent;
+import com.springboot.blog.event.PostChangedEvent;
+import com.springboot.blog.event.UserRegisteredEvent;
+import com.springboot.blog.payload.SuggestResponse;
+import com.springboot.blog.payload.SuggestionDto;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Autocomplete over post titles and user names, served from two in-memory {@link PrefixIndex}es
+ * so a keystroke never reaches the database.
+ *
+ * Posts match on any word of the title and rank by comment count; users match on the username or
+ * any word of the display name and rank by how many posts they have written. Both are loaded at
+ * startup and kept current by post, comment and registration events after they commit.
+ */
+@Component
+public class Suggester implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(Suggester.class);
+
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final int batchSize;
+
+    // events hold the read side so none is lost while a rebuild swaps the indexes
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile PrefixIndex posts = new PrefixIndex();
+    private volatile PrefixIndex users = new PrefixIndex();
+
+    public Suggester(PostRepository postRepository,
+                     UserRepository userRepository,
+                     @Value("${app.suggest.rebuild.batch-size:1000}") int batchSize) {
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.batchSize = batchSize;
+    }
+
+    public SuggestResponse suggest(String prefix, int limit) {
+        int capped = Math.max(1, Math.min(limit, PrefixIndex.TOP_K));
+        return new SuggestResponse(toDtos(posts.find(prefix, capped)), toDtos(users.find(prefix, capped)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        lock.readLock().lock();
+        try {
+            switch (event.getType()) {
+                case CREATED -> {
+                    posts.put(event.getPostId(), event.getTitle(), username(event.getAuthorId()), 0,
+                            PrefixIndex.wordTails(event.getTitle()));
+                    rescoreUser(event.getAuthorId(), 1);
+                }
+                case UPDATED -> {
+                    if (event.getTitle() != null) {
+                        posts.retext(event.getPostId(), event.getTitle(), username(event.getAuthorId()),
+                                PrefixIndex.wordTails(event.getTitle()));
+                    }
+                }
+                case DELETED -> {
+                    posts.remove(event.getPostId());
+                    rescoreUser(event.getAuthorId(), -1);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentChanged(CommentChangedEvent event) {
+        if (event.getType() == ChangeType.UPDATED) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            posts.rescore(event.getPostId(), event.getType() == ChangeType.CREATED ? 1 : -1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserRegistered(UserRegisteredEvent event) {
+        lock.readLock().lock();
+        try {
+            users.put(event.getUserId(), event.getUsername(), event.getName(), 0,
+                    userKeys(event.getUsername(), event.getName()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    // users first, so post entries can show their author's username
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            PrefixIndex rebuiltUsers = new PrefixIndex();
+            List<Object[]> rows;
+            long afterId = 0;
+            do {
+                rows = userRepository.findSuggestionsAfter(afterId, PageRequest.of(0, batchSize));
+                for (Object[] row : rows) {
+                    afterId = (Long) row[0];
+                    String username = (String) row[1];
+                    String name = (String) row[2];
+                    rebuiltUsers.put(afterId, username, name, (Long) row[3], userKeys(username, name));
+                }
+            } while (rows.size() == batchSize);
+
+            PrefixIndex rebuiltPosts = new PrefixIndex();
+            afterId = 0;
+            do {
+                rows = postRepository.findSuggestionsAfter(afterId, PageRequest.of(0, batchSize));
+                for (Object[] row : rows) {
+                    afterId = (Long) row[0];
+                    String title = (String) row[1];
+                    PrefixIndex.Item author = row[3] != null ? rebuiltUsers.get((Long) row[3]) : null;
+                    rebuiltPosts.put(afterId, title, author != null ? author.getText() : null,
+                            (Long) row[2], PrefixIndex.wordTails(title));
+                }
+            } while (rows.size() == batchSize);
+
+            users = rebuiltUsers;
+            posts = rebuiltPosts;
+            logger.info("Suggester loaded {} posts and {} users", rebuiltPosts.size(), rebuiltUsers.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private String username(Long userId) {
+        PrefixIndex.Item user = userId != null ? users.get(userId) : null;
+        return user != null ? user.getText() : null;
+    }
+
+    private void rescoreUser(Long userId, long delta) {
+        if (userId != null) {
+            users.rescore(userId, delta);
+        }
+    }
+
+    private static Set<String> userKeys(String username, String name) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(PrefixIndex.normalize(username));
+        if (name != null) {
+            keys.addAll(PrefixIndex.wordTails(name));
+        }
+        return keys;
+    }
+
+    private static List<SuggestionDto> toDtos(List<PrefixIndex.Item> items) {
+        return items.stream().map(item -> new SuggestionDto(item.getId(), item.getText(), item.getDetail())).toList();
+    }
+}
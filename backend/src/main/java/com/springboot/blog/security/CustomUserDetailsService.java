@@ -35,8 +35,10 @@ public class CustomUserDetailsService implements UserDetailsService {
 
         // Use the real username as the Spring Security "username"
         // so JWT subject becomes username (not email).
-        return new org.springframework.security.core.userdetails.User(
+        return new UserPrincipal(
+                user.getId(),
                 user.getUsername(),
+                user.getName(),
                 user.getPassword(),
                 authorities
         );
@@ -1,5 +1,8 @@
 package com.springboot.blog.security;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,9 +25,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private UserDetailsService userDetailsService;
 
-    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, UserDetailsService userDetailsService) {
+    private MeterRegistry meterRegistry;
+
+    // token checks by outcome: claims enough, user looked up (tokens without the user claims), rejected
+    private Timer fromClaims;
+    private Timer withUserLookup;
+    private Timer rejected;
+
+    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider,
+                                   UserDetailsService userDetailsService,
+                                   MeterRegistry meterRegistry) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.userDetailsService = userDetailsService;
+        this.meterRegistry = meterRegistry;
+        this.fromClaims = timer(meterRegistry, "claims");
+        this.withUserLookup = timer(meterRegistry, "user-lookup");
+        this.rejected = timer(meterRegistry, "rejected");
     }
 
     @Override
@@ -35,14 +51,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // get JWT token from http request
         String token = getTokenFromRequest(request);
 
-        // validate token
-        if(StringUtils.hasText(token) && jwtTokenProvider.validateToken(token)){
-
-            // get username from token
-            String username = jwtTokenProvider.getUsername(token);
-
-            // load the user associated with token
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        // verify once: signature and expiry, served from the verified-token cache when recently seen
+        if(StringUtils.hasText(token)){
+
+            // the user travels in the token; only tokens issued before it did need a lookup
+            Timer.Sample sample = Timer.start(meterRegistry);
+            Timer outcome = rejected;
+            UserDetails userDetails;
+            try {
+                Claims claims = jwtTokenProvider.verify(token);
+                userDetails = jwtTokenProvider.getPrincipal(claims);
+                outcome = fromClaims;
+                if (userDetails == null) {
+                    userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+                    outcome = withUserLookup;
+                }
+            } finally {
+                sample.stop(outcome);
+            }
 
             UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                     userDetails,
@@ -59,6 +85,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private static Timer timer(MeterRegistry meterRegistry, String outcome){
+        return Timer.builder("app.auth.jwt")
+                .description("Bearer token verification in the request filter")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
     private String getTokenFromRequest(HttpServletRequest request){
 
         String bearerToken = request.getHeader("Authorization");
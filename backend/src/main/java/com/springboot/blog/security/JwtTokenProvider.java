@@ -1,29 +1,68 @@
 package com.springboot.blog.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.springboot.blog.exception.BlogAPIException;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
-import java.security.Key;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.List;
 
+/**
+ * Issues and verifies the bearer tokens. The key and parser are built once; verification parses
+ * each token a single time and keeps the claims of recently verified tokens, keyed by a SHA-256
+ * digest of the token so the tokens themselves are not held in memory. A cached entry never
+ * outlives the token's own expiry.
+ */
 @Component
-public class JwtTokenProvider {
+public class JwtTokenProvider implements MeterBinder {
 
-    @Value("${app.jwt-secret}")
-    private String jwtSecret;
+    static final String USER_ID_CLAIM = "uid";
+    static final String NAME_CLAIM = "name";
+    static final String ROLES_CLAIM = "roles";
 
-    @Value("${app-jwt-expiration-milliseconds}")
-    private long jwtExpirationDate;
+    private final long jwtExpirationDate;
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final Cache<ByteBuffer, Claims> verified;
+
+    public JwtTokenProvider(@Value("${app.jwt-secret}") String jwtSecret,
+                            @Value("${app-jwt-expiration-milliseconds}") long jwtExpirationDate,
+                            @Value("${app.jwt.verified-cache.max-size:10000}") long cacheSize,
+                            @Value("${app.jwt.verified-cache.ttl:PT5M}") Duration cacheTtl) {
+        this.jwtExpirationDate = jwtExpirationDate;
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(untilExpiry(cacheTtl))
+                .recordStats()
+                .build();
+    }
 
     // generate JWT token
     public String generateToken(Authentication authentication){
@@ -34,39 +73,67 @@ public class JwtTokenProvider {
 
         Date expireDate = new Date(currentDate.getTime() + jwtExpirationDate);
 
-        String token = Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .subject(username)
                 .issuedAt(new Date())
-                .expiration(expireDate)
-                .signWith(key())
-                .compact();
+                .expiration(expireDate);
 
-        return token;
-    }
+        // enough to authenticate later requests without loading the user again
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            builder.claim(USER_ID_CLAIM, principal.getId())
+                    .claim(NAME_CLAIM, principal.getName())
+                    .claim(ROLES_CLAIM, authentication.getAuthorities().stream()
+                            .map(GrantedAuthority::getAuthority)
+                            .toList());
+        }
 
-    private Key key(){
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        return builder.signWith(key).compact();
     }
 
     // get username from JWT token
     public String getUsername(String token){
-
-        return Jwts.parser()
-                .verifyWith((SecretKey) key())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        return verify(token).getSubject();
     }
 
     // validate JWT token
     public boolean validateToken(String token){
+        verify(token);
+        return true;
+    }
+
+    // the token's claims once its signature and expiry check out; parsed at most once while cached
+    public Claims verify(String token){
+        ByteBuffer digest = digest(token);
+        Claims claims = verified.getIfPresent(digest);
+        if (claims == null) {
+            claims = parse(token);
+            verified.put(digest, claims);
+        }
+        return claims;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, verified, "jwt-verified");
+    }
+
+    // the principal carried by the token, or null for tokens issued without the user claims
+    public UserPrincipal getPrincipal(Claims claims){
+
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        if (userId == null) {
+            return null;
+        }
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        List<GrantedAuthority> authorities = roles == null ? List.of() : roles.stream()
+                .<GrantedAuthority>map(role -> new SimpleGrantedAuthority(role.toString()))
+                .toList();
+        return new UserPrincipal(userId, claims.getSubject(), claims.get(NAME_CLAIM, String.class), "", authorities);
+    }
+
+    private Claims parse(String token){
         try{
-            Jwts.parser()
-                    .verifyWith((SecretKey) key())
-                    .build()
-                    .parse(token);
-            return true;
+            return parser.parseSignedClaims(token).getPayload();
         }catch (MalformedJwtException malformedJwtException){
             throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid JWT Token");
         }catch (ExpiredJwtException expiredJwtException){
@@ -77,4 +144,38 @@ public class JwtTokenProvider {
             throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Jwt claims string is null or empty");
         }
     }
-}
\ No newline at end of file
+
+    private static ByteBuffer digest(String token){
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // kept for the ttl, or until the token expires if that comes first
+    private static Expiry<ByteBuffer, Claims> untilExpiry(Duration ttl){
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(ByteBuffer digest, Claims claims, long currentTime) {
+                long ttlNanos = ttl.toNanos();
+                Date expiration = claims.getExpiration();
+                if (expiration == null) {
+                    return ttlNanos;
+                }
+                long remaining = Duration.ofMillis(expiration.getTime() - System.currentTimeMillis()).toNanos();
+                return Math.max(0, Math.min(ttlNanos, remaining));
+            }
+
+            @Override
+            public long expireAfterUpdate(ByteBuffer digest, Claims claims, long currentTime, long currentDuration) {
+                return expireAfterCreate(digest, claims, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(ByteBuffer digest, Claims claims, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+}
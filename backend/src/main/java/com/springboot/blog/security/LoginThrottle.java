@@ -0,0 +1,63 @@
+package com.springboot.blog.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springboot.blog.exception.BlogAPIException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts failed logins per account and per client address in memory. Once either count reaches
+ * its limit, further attempts are refused with 429 before any hashing is done, until the window
+ * since the first failure has passed. A successful login clears the account's count.
+ */
+@Component
+public class LoginThrottle {
+
+    private final int maxAccountFailures;
+    private final int maxAddressFailures;
+    private final Cache<String, AtomicInteger> accounts;
+    private final Cache<String, AtomicInteger> addresses;
+
+    public LoginThrottle(@Value("${app.auth.throttle.max-account-failures:5}") int maxAccountFailures,
+                         @Value("${app.auth.throttle.max-address-failures:20}") int maxAddressFailures,
+                         @Value("${app.auth.throttle.window:PT15M}") Duration window,
+                         @Value("${app.auth.throttle.max-size:100000}") long maxSize) {
+        this.maxAccountFailures = maxAccountFailures;
+        this.maxAddressFailures = maxAddressFailures;
+        this.accounts = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(window).build();
+        this.addresses = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(window).build();
+    }
+
+    public void check(String account, String address) {
+        if (count(accounts, key(account)) >= maxAccountFailures || count(addresses, address) >= maxAddressFailures) {
+            throw new BlogAPIException(HttpStatus.TOO_MANY_REQUESTS, "Too many failed sign-in attempts, please try again later.");
+        }
+    }
+
+    public void failed(String account, String address) {
+        // get() only writes on the first failure, so the window runs from there
+        accounts.get(key(account), k -> new AtomicInteger()).incrementAndGet();
+        if (address != null) {
+            addresses.get(address, k -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    public void succeeded(String account) {
+        accounts.invalidate(key(account));
+    }
+
+    private static int count(Cache<String, AtomicInteger> cache, String key) {
+        AtomicInteger failures = key != null ? cache.getIfPresent(key) : null;
+        return failures != null ? failures.get() : 0;
+    }
+
+    private static String key(String account) {
+        return account != null ? account.trim().toLowerCase(Locale.ROOT) : "";
+    }
+}
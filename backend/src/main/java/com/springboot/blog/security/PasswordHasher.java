@@ -0,0 +1,123 @@
+package com.springboot.blog.security;
+
+import com.springboot.blog.exception.BlogAPIException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on a small pool of its own instead of the request threads, so a burst of logins
+ * can only ever occupy that pool. The queue is bounded and a caller waits at most max-wait for
+ * its turn; past either limit the request is turned away with 429 rather than piling up.
+ *
+ * The hashing time is timed per operation on the pool thread, so it shows the configured cost
+ * apart from the wait for a turn, and the pool's queue and activity are exported as executor meters.
+ */
+@Component
+public class PasswordHasher implements DisposableBean {
+
+    private final PasswordEncoder passwordEncoder;
+    private final Duration maxWait;
+    private final ThreadPoolExecutor pool;
+    private final Timer matchesTimer;
+    private final Timer encodeTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.auth.hashing.threads:0}") int threads,
+                          @Value("${app.auth.hashing.queue-size:64}") int queueSize,
+                          @Value("${app.auth.hashing.max-wait:PT2S}") Duration maxWait) {
+        this.passwordEncoder = passwordEncoder;
+        this.maxWait = maxWait;
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger count = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.matchesTimer = hashTimer(meterRegistry, "matches");
+        this.encodeTimer = hashTimer(meterRegistry, "encode");
+        this.rejected = Counter.builder("app.auth.bcrypt.rejected")
+                .description("Password checks turned away with 429: queue full or no turn within max-wait")
+                .register(meterRegistry);
+        new ExecutorServiceMetrics(pool, "password-hasher", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> matchesTimer.recordCallable(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return run(() -> encodeTimer.recordCallable(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    // true when the hash was made with a lower cost than is configured now
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = pool.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw busy();
+        }
+        try {
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // a task still queued never runs; one already hashing finishes and is discarded
+            future.cancel(false);
+            pool.remove((Runnable) future);
+            throw busy();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw busy();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private BlogAPIException busy() {
+        rejected.increment();
+        return new BlogAPIException(HttpStatus.TOO_MANY_REQUESTS, "Too many sign-in attempts right now, please retry shortly.");
+    }
+
+    private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("app.auth.bcrypt")
+                .description("BCrypt hashing on the password-hasher pool, without the wait for a turn")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,22 @@
+package com.springboot.blog.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+// The authenticated user as the rest of the app sees it: what the JWT carries, so no lookup is needed.
+@Getter
+public class UserPrincipal extends User {
+
+    private final long id;
+    private final String name;
+
+    public UserPrincipal(long id, String username, String name, String password,
+                         Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.id = id;
+        this.name = name;
+    }
+}
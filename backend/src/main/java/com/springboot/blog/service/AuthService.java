@@ -1,10 +1,11 @@
 package com.springboot.blog.service;
 
+import com.springboot.blog.payload.JWTAuthResponse;
 import com.springboot.blog.payload.LoginDto;
 import com.springboot.blog.payload.RegisterDto;
 
 public interface AuthService {
-    String login(LoginDto loginDto);
+    JWTAuthResponse login(LoginDto loginDto, String clientAddress);
 
     String register(RegisterDto registerDto);
 }
\ No newline at end of file
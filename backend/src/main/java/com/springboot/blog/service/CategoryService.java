@@ -2,6 +2,7 @@ package com.springboot.blog.service;
 
 import com.springboot.blog.payload.CategoryDto;
 
+import java.time.Instant;
 import java.util.List;
 
 public interface CategoryService {
@@ -11,6 +12,11 @@ public interface CategoryService {
 
     List<CategoryDto> getAllCategories();
 
+    // validators for conditional GETs of the (preset, read-only) categories
+    String getAllCategoriesETag();
+
+    Instant getLastModified();
+
     CategoryDto updateCategory(CategoryDto categoryDto, Long categoryId);
 
     void deleteCategory(Long categoryId);
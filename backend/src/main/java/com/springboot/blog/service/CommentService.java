@@ -1,18 +1,26 @@
 package com.springboot.blog.service;
 
+import com.springboot.blog.payload.CommentCursorResponse;
 import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.security.UserPrincipal;
 
 import java.util.List;
 
 public interface CommentService {
 
-    CommentDto createComment(long postId, CommentDto commentDto, String username);
+    CommentDto createComment(long postId, CommentDto commentDto, UserPrincipal author);
 
     List<CommentDto> getCommentsByPostId(long postId);
 
+    CommentCursorResponse getCommentsByPostIdCursor(long postId, String after, int pageSize);
+
     CommentDto getCommentById(Long postId, Long commentId);
 
-    CommentDto updateComment(Long postId, Long commentId, CommentDto commentRequest, String username);
+    // ifMatch is the client's If-Match header, or null to update unconditionally
+    CommentDto updateComment(Long postId, Long commentId, CommentDto commentRequest, String username, String ifMatch);
+
+    // body-only edit in one statement; a non-null ifMatch costs a read to compare against
+    void patchComment(long postId, long commentId, CommentDto commentRequest, UserPrincipal user, String ifMatch);
 
-    void deleteComment(Long postId, Long commentId, String username);
+    void deleteComment(long postId, long commentId, UserPrincipal user);
 }
@@ -1,23 +1,44 @@
 package com.springboot.blog.service;
 
+import com.springboot.blog.payload.CursorResponse;
 import com.springboot.blog.payload.PostDto;
+import com.springboot.blog.payload.PostPatchDto;
 import com.springboot.blog.payload.PostResponse;
+import com.springboot.blog.payload.PostSearchResponse;
+import com.springboot.blog.payload.PostSummaryDto;
+import com.springboot.blog.security.UserPrincipal;
 
 import java.util.List;
 
 public interface PostService {
 
-    PostDto createPost(PostDto postDto, String username);
+    PostDto createPost(PostDto postDto, UserPrincipal author);
 
     PostResponse getAllPosts(int pageNo, int pageSize, String sortBy, String sortDir);
 
     PostDto getPostById(long id);
 
-    PostDto updatePost(PostDto postDto, long id, String username);
+    // ifMatch is the client's If-Match header, or null to update unconditionally
+    PostDto updatePost(PostDto postDto, long id, String username, String ifMatch);
 
     void deletePostById(long id, String username);
 
-    List<PostDto> getPostsByCategory(Long categoryId);
+    // partial update in one statement; ifMatch as for updatePost
+    void patchPost(long id, PostPatchDto patch, UserPrincipal user, String ifMatch);
+
+    List<PostSummaryDto> getPostsByCategory(Long categoryId);
 
     PostResponse getMyPosts(String username, int pageNo, int pageSize, String sortBy, String sortDir);
+
+    CursorResponse<PostSummaryDto> getAllPostsByCursor(String after, int pageSize, String sortBy, String sortDir);
+
+    CursorResponse<PostSummaryDto> getMyPostsByCursor(String username, String after, int pageSize, String sortBy, String sortDir);
+
+    CursorResponse<PostSummaryDto> getPostsByCategoryCursor(Long categoryId, String after, int pageSize);
+
+    // ranked by recent activity; categoryId may be null for the global feed
+    CursorResponse<PostSummaryDto> getHotPosts(Long categoryId, String after, int pageSize);
+
+    // full-text search over posts and their comments; categoryId and author narrow it when given
+    PostSearchResponse searchPosts(String query, Long categoryId, String author, int pageNo, int pageSize);
 }
@@ -0,0 +1,19 @@
+package com.springboot.blog.service;
+
+import com.springboot.blog.entity.ReactionTarget;
+import com.springboot.blog.entity.ReactionType;
+import com.springboot.blog.payload.ReactionSummaryDto;
+import com.springboot.blog.security.UserPrincipal;
+
+import java.util.List;
+
+public interface ReactionService {
+
+    // commentId null reacts to the post itself; reacting twice with the same type changes nothing
+    ReactionSummaryDto react(long postId, Long commentId, ReactionType type, UserPrincipal user);
+
+    ReactionSummaryDto unreact(long postId, Long commentId, ReactionType type, UserPrincipal user);
+
+    // one summary per id, in the order given; user may be null
+    List<ReactionSummaryDto> getSummaries(ReactionTarget target, List<Long> targetIds, UserPrincipal user);
+}
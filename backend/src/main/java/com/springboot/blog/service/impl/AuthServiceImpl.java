@@ -1,62 +1,131 @@
 package com.springboot.blog.service.impl;
 
+import com.springboot.blog.config.RoleRegistry;
 import com.springboot.blog.entity.Role;
 import com.springboot.blog.entity.User;
+import com.springboot.blog.event.UserRegisteredEvent;
 import com.springboot.blog.exception.BlogAPIException;
+import com.springboot.blog.payload.JWTAuthResponse;
 import com.springboot.blog.payload.LoginDto;
 import com.springboot.blog.payload.RegisterDto;
 import com.springboot.blog.repository.RoleRepository;
 import com.springboot.blog.repository.UserRepository;
 import com.springboot.blog.security.JwtTokenProvider;
+import com.springboot.blog.security.LoginThrottle;
+import com.springboot.blog.security.PasswordHasher;
+import com.springboot.blog.security.UserPrincipal;
 import com.springboot.blog.service.AuthService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class AuthServiceImpl implements AuthService {
 
-    private AuthenticationManager authenticationManager;
     private UserRepository userRepository;
     private RoleRepository roleRepository;
-    private PasswordEncoder passwordEncoder;
+    private RoleRegistry roleRegistry;
+    private PasswordHasher passwordHasher;
+    private LoginThrottle loginThrottle;
     private JwtTokenProvider jwtTokenProvider;
+    private ApplicationEventPublisher eventPublisher;
+    private MeterRegistry meterRegistry;
 
-    public AuthServiceImpl(AuthenticationManager authenticationManager,
-                           UserRepository userRepository,
+    // compared against when the account does not exist, so a miss costs as much as a wrong password
+    private final String unknownUserHash;
+
+    public AuthServiceImpl(UserRepository userRepository,
                            RoleRepository roleRepository,
+                           RoleRegistry roleRegistry,
                            PasswordEncoder passwordEncoder,
-                           JwtTokenProvider jwtTokenProvider) {
-        this.authenticationManager = authenticationManager;
+                           PasswordHasher passwordHasher,
+                           LoginThrottle loginThrottle,
+                           JwtTokenProvider jwtTokenProvider,
+                           ApplicationEventPublisher eventPublisher,
+                           MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.roleRegistry = roleRegistry;
+        this.passwordHasher = passwordHasher;
+        this.loginThrottle = loginThrottle;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.unknownUserHash = passwordEncoder.encode("unknown-user");
     }
 
+    // timed end to end by outcome: success, invalid credentials, throttled (or hashing pool busy)
     @Override
-    public String login(LoginDto loginDto) {
+    public JWTAuthResponse login(LoginDto loginDto, String clientAddress) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            JWTAuthResponse response = authenticate(loginDto, clientAddress);
+            outcome = "success";
+            return response;
+        } catch (BlogAPIException e) {
+            if (e.getStatus() == HttpStatus.UNAUTHORIZED) {
+                outcome = "invalid";
+            } else if (e.getStatus() == HttpStatus.TOO_MANY_REQUESTS) {
+                outcome = "throttled";
+            }
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("app.auth.login", "outcome", outcome));
+        }
+    }
+
+    // one user fetch (with roles) serves the password check, the token and the response
+    private JWTAuthResponse authenticate(LoginDto loginDto, String clientAddress) {
 
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginDto.getUsernameOrEmail(),
-                        loginDto.getPassword()
-                )
-        );
+        String usernameOrEmail = loginDto.getUsernameOrEmail();
+        loginThrottle.check(usernameOrEmail, clientAddress);
 
-        SecurityContextHolder.getContext().setAuthentication(authentication);
+        User user = usernameOrEmail == null ? null
+                : userRepository.findByUsernameOrEmail(usernameOrEmail, usernameOrEmail).orElse(null);
+        String password = loginDto.getPassword() != null ? loginDto.getPassword() : "";
+        boolean matches = passwordHasher.matches(password, user != null ? user.getPassword() : unknownUserHash);
+        if (user == null || !matches) {
+            loginThrottle.failed(usernameOrEmail, clientAddress);
+            throw new BlogAPIException(HttpStatus.UNAUTHORIZED, "Invalid username or password.");
+        }
+        loginThrottle.succeeded(usernameOrEmail);
+
+        // the configured cost went up since this hash was made; the plain password is at hand only now
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            userRepository.updatePassword(user.getId(), passwordHasher.encode(password));
+        }
 
-        return jwtTokenProvider.generateToken(authentication);
+        Set<GrantedAuthority> authorities = user.getRoles().stream()
+                .map(role -> new SimpleGrantedAuthority(role.getName()))
+                .collect(Collectors.toSet());
+        UserPrincipal principal = new UserPrincipal(user.getId(), user.getUsername(), user.getName(), "", authorities);
+        String token = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, authorities));
+
+        JWTAuthResponse jwtAuthResponse = new JWTAuthResponse();
+        jwtAuthResponse.setAccessToken(token);
+        jwtAuthResponse.setUserId(user.getId());
+        jwtAuthResponse.setUsername(user.getUsername());
+        jwtAuthResponse.setName(user.getName());
+        jwtAuthResponse.setEmail(user.getEmail());
+        return jwtAuthResponse;
     }
 
+    // transactional so the role reference stays attached while the user (cascading to roles) is persisted
     @Override
+    @Transactional
     public String register(RegisterDto registerDto) {
 
         if (userRepository.existsByUsername(registerDto.getUsername())) {
@@ -71,20 +140,19 @@ public class AuthServiceImpl implements AuthService {
         user.setName(registerDto.getName());
         user.setUsername(registerDto.getUsername());
         user.setEmail(registerDto.getEmail());
-        user.setPassword(passwordEncoder.encode(registerDto.getPassword()));
+        user.setPassword(passwordHasher.encode(registerDto.getPassword()));
 
-        Role userRole = roleRepository.findByName("ROLE_USER")
-                .orElseGet(() -> {
-                    Role r = new Role();
-                    r.setName("ROLE_USER");
-                    return roleRepository.save(r);
-                });
+        Role userRole = roleRegistry.findIdByName("ROLE_USER")
+                .map(roleRepository::getReferenceById)
+                .orElseThrow(() -> new BlogAPIException(HttpStatus.INTERNAL_SERVER_ERROR,
+                        "Role 'ROLE_USER' is missing. Please restart the server to seed it."));
 
         Set<Role> roles = new HashSet<>();
         roles.add(userRole);
         user.setRoles(roles);
 
-        userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserRegisteredEvent(saved.getId(), saved.getUsername(), saved.getName()));
 
         return "User registered successfully!.";
     }
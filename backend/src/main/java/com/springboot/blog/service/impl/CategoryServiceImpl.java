@@ -1,25 +1,22 @@
 package com.springboot.blog.service.impl;
 
+import com.springboot.blog.config.CategoryRegistry;
 import com.springboot.blog.exception.BlogAPIException;
 import com.springboot.blog.payload.CategoryDto;
-import com.springboot.blog.repository.CategoryRepository;
 import com.springboot.blog.service.CategoryService;
-import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class CategoryServiceImpl implements CategoryService {
 
-    private final CategoryRepository categoryRepository;
-    private final ModelMapper modelMapper;
+    private final CategoryRegistry categoryRegistry;
 
-    public CategoryServiceImpl(CategoryRepository categoryRepository, ModelMapper modelMapper) {
-        this.categoryRepository = categoryRepository;
-        this.modelMapper = modelMapper;
+    public CategoryServiceImpl(CategoryRegistry categoryRegistry) {
+        this.categoryRegistry = categoryRegistry;
     }
 
     @Override
@@ -29,16 +26,23 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Override
     public CategoryDto getCategory(Long categoryId) {
-        return categoryRepository.findById(categoryId)
-                .map(category -> modelMapper.map(category, CategoryDto.class))
+        return categoryRegistry.findById(categoryId)
                 .orElseThrow(() -> new com.springboot.blog.exception.ResourceNotFoundException("Category", "id", categoryId));
     }
 
     @Override
     public List<CategoryDto> getAllCategories() {
-        return categoryRepository.findAll().stream()
-                .map(category -> modelMapper.map(category, CategoryDto.class))
-                .collect(Collectors.toList());
+        return categoryRegistry.findAll();
+    }
+
+    @Override
+    public String getAllCategoriesETag() {
+        return categoryRegistry.getETag();
+    }
+
+    @Override
+    public Instant getLastModified() {
+        return categoryRegistry.getLoadedAt();
     }
 
     @Override
@@ -1,23 +1,39 @@
 package com.springboot.blog.service.impl;
 
+import com.springboot.blog.cache.PostCache;
 import com.springboot.blog.entity.Comment;
 import com.springboot.blog.entity.Post;
-import com.springboot.blog.entity.User;
+import com.springboot.blog.event.ChangeType;
+import com.springboot.blog.event.CommentChangedEvent;
 import com.springboot.blog.exception.BlogAPIException;
 import com.springboot.blog.exception.ResourceNotFoundException;
+import com.springboot.blog.mapper.CommentMapper;
+import com.springboot.blog.payload.CommentCursorResponse;
 import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.payload.PostDto;
 import com.springboot.blog.repository.CommentRepository;
 import com.springboot.blog.repository.PostRepository;
 import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.security.UserPrincipal;
 import com.springboot.blog.service.CommentService;
-import org.modelmapper.ModelMapper;
+import com.springboot.blog.utils.CommentCursor;
+import com.springboot.blog.utils.ETags;
+import com.springboot.blog.utils.PostCursor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class CommentServiceImpl implements CommentService {
@@ -25,80 +41,162 @@ public class CommentServiceImpl implements CommentService {
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
-    private final ModelMapper mapper;
+    private final CommentMapper commentMapper;
+    private final PostCache postCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     public CommentServiceImpl(CommentRepository commentRepository,
                               PostRepository postRepository,
                               UserRepository userRepository,
-                              ModelMapper mapper) {
+                              CommentMapper commentMapper,
+                              PostCache postCache,
+                              ApplicationEventPublisher eventPublisher) {
         this.commentRepository = commentRepository;
         this.postRepository = postRepository;
         this.userRepository = userRepository;
-        this.mapper = mapper;
+        this.commentMapper = commentMapper;
+        this.postCache = postCache;
+        this.eventPublisher = eventPublisher;
     }
 
+    // transactional so the comment row and the post's comment_count commit together; the increment
+    // doubles as the existence check
     @Override
-    public CommentDto createComment(long postId, CommentDto commentDto, String username) {
+    @Transactional
+    public CommentDto createComment(long postId, CommentDto commentDto, UserPrincipal author) {
 
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
-
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
+        if (postRepository.incrementCommentCount(postId, LocalDateTime.now()) == 0) {
+            throw new ResourceNotFoundException("Post", "id", postId);
+        }
 
         Comment comment = new Comment();
         comment.setBody(commentDto.getBody());
-        comment.setPost(post);
-        comment.setUser(user);
+        comment.setPost(postRepository.getReferenceById(postId));
+        comment.setUser(userRepository.getReferenceById(author.getId()));
 
         Comment saved = commentRepository.save(comment);
-        return mapToDto(saved);
+        eventPublisher.publishEvent(new CommentChangedEvent(ChangeType.CREATED, postId, saved.getId()));
+
+        CommentDto dto = commentMapper.toDto(saved);
+        dto.setAuthorUsername(author.getUsername());
+        dto.setAuthorName(author.getName());
+        return dto;
     }
 
     @Override
     public List<CommentDto> getCommentsByPostId(long postId) {
-        return commentRepository.findByPostId(postId)
-                .stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        // the cached post detail already holds the mapped comments, oldest first
+        PostDto post = postCache.get(postId);
+        if (post == null || post.getComments() == null) {
+            return List.of();
+        }
+        return new ArrayList<>(post.getComments());
+    }
+
+    @Override
+    public CommentCursorResponse getCommentsByPostIdCursor(long postId, String after, int pageSize) {
+        long totalComments = postRepository.findCommentCountById(postId)
+                .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
+
+        int size = PostCursor.capPageSize(pageSize);
+        Pageable pageable = PageRequest.of(0, size);
+        Slice<CommentDto> slice;
+        if (after == null || after.isBlank()) {
+            slice = commentRepository.findPageByPostId(postId, pageable);
+        } else {
+            CommentCursor cursor = CommentCursor.decode(after);
+            slice = commentRepository.findPageByPostIdAfter(postId, cursor.getCreatedAt(), cursor.getId(), pageable);
+        }
+
+        List<CommentDto> content = slice.getContent();
+        String nextCursor = slice.hasNext() && !content.isEmpty()
+                ? CommentCursor.after(content.get(content.size() - 1)).encode()
+                : null;
+        return new CommentCursorResponse(content, size, nextCursor, nextCursor != null, totalComments);
     }
 
     @Override
     public CommentDto getCommentById(Long postId, Long commentId) {
         Comment comment = getCommentEntity(postId, commentId);
-        return mapToDto(comment);
+        return commentMapper.toDto(comment);
     }
 
     @Override
-    public CommentDto updateComment(Long postId, Long commentId, CommentDto commentRequest, String username) {
+    @Transactional
+    public CommentDto updateComment(Long postId, Long commentId, CommentDto commentRequest, String username,
+                                    String ifMatch) {
 
         Comment comment = getCommentEntity(postId, commentId);
 
         enforceOwnershipOrAdmin(comment, username);
 
-        comment.setBody(commentRequest.getBody());
+        CommentDto updated = commentMapper.toDto(comment);
+        Instant expected = null;
+        if (ifMatch != null) {
+            ETags.requireMatch(ifMatch, ETags.of(updated));
+            expected = updated.getUpdatedAt();
+        }
+
+        // the database keeps microseconds, and the response's tag must be the one a later read serves
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        if (commentRepository.replaceBody(commentId, commentRequest.getBody(), now, expected) == 0) {
+            throw expected != null ? ETags.preconditionFailed() : new ResourceNotFoundException("Comment", "id", commentId);
+        }
+        eventPublisher.publishEvent(new CommentChangedEvent(ChangeType.UPDATED, postId, commentId));
 
-        Comment updated = commentRepository.save(comment);
-        return mapToDto(updated);
+        updated.setBody(commentRequest.getBody());
+        updated.setUpdatedAt(now);
+        return updated;
     }
 
     @Override
-    public void deleteComment(Long postId, Long commentId, String username) {
-        Comment comment = getCommentEntity(postId, commentId);
-
-        enforceOwnershipOrAdmin(comment, username);
+    @Transactional
+    public void patchComment(long postId, long commentId, CommentDto commentRequest, UserPrincipal user,
+                             String ifMatch) {
+        Instant expected = null;
+        if (ifMatch != null) {
+            CommentDto current = commentMapper.toDto(getCommentEntity(postId, commentId));
+            ETags.requireMatch(ifMatch, ETags.of(current));
+            expected = current.getUpdatedAt();
+        }
 
-        commentRepository.delete(comment);
+        int updated = commentRepository.updateBody(commentId, postId, user.getId(), isAdmin(),
+                commentRequest.getBody(), Instant.now(), expected);
+        if (updated == 0) {
+            throw refusal(postId, commentId, user);
+        }
+        eventPublisher.publishEvent(new CommentChangedEvent(ChangeType.UPDATED, postId, commentId));
     }
 
-    private Comment getCommentEntity(Long postId, Long commentId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
+    @Override
+    @Transactional
+    public void deleteComment(long postId, long commentId, UserPrincipal user) {
+        if (commentRepository.deleteOwned(commentId, postId, user.getId(), isAdmin()) == 0) {
+            throw refusal(postId, commentId, user);
+        }
+        postRepository.decrementCommentCount(postId);
+        eventPublisher.publishEvent(new CommentChangedEvent(ChangeType.DELETED, postId, commentId));
+    }
 
-        Comment comment = commentRepository.findById(commentId)
-                .orElseThrow(() -> new ResourceNotFoundException("Comment", "id", commentId));
+    // why a conditional statement touched nothing: 404 or 400 from the lookup, 403 when not the
+    // caller's, otherwise the If-Match precondition it carried
+    private BlogAPIException refusal(long postId, long commentId, UserPrincipal user) {
+        enforceOwnershipOrAdmin(getCommentEntity(postId, commentId), user.getUsername());
+        return ETags.preconditionFailed();
+    }
 
-        if (comment.getPost() == null || comment.getPost().getId() == null || !comment.getPost().getId().equals(post.getId())) {
+    private Comment getCommentEntity(Long postId, Long commentId) {
+        // one statement on the happy path; the post is only looked up to explain a miss
+        Comment comment = commentRepository.findWithUserById(commentId).orElse(null);
+
+        Post post = comment != null ? comment.getPost() : null;
+        if (post == null || post.getId() == null || !post.getId().equals(postId)) {
+            if (!postRepository.existsById(postId)) {
+                throw new ResourceNotFoundException("Post", "id", postId);
+            }
+            if (comment == null) {
+                throw new ResourceNotFoundException("Comment", "id", commentId);
+            }
             throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Comment does not belong to post");
         }
 
@@ -119,16 +217,4 @@ public class CommentServiceImpl implements CommentService {
         if (auth == null) return false;
         return auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
     }
-
-    private CommentDto mapToDto(Comment comment) {
-        CommentDto dto = mapper.map(comment, CommentDto.class);
-
-        if (comment.getUser() != null) {
-            dto.setAuthorId(comment.getUser().getId());
-            dto.setAuthorUsername(comment.getUser().getUsername());
-            dto.setAuthorName(comment.getUser().getName());
-        }
-
-        return dto;
-    }
 }
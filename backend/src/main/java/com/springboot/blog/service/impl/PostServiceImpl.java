@@ -1,25 +1,48 @@
 package com.springboot.blog.service.impl;
 
+import com.springboot.blog.cache.PostCache;
 import com.springboot.blog.entity.Category;
 import com.springboot.blog.entity.Post;
-import com.springboot.blog.entity.User;
 import com.springboot.blog.config.CategoryPreset;
+import com.springboot.blog.config.CategoryRegistry;
+import com.springboot.blog.event.ChangeType;
+import com.springboot.blog.event.PostChangedEvent;
 import com.springboot.blog.exception.BlogAPIException;
 import com.springboot.blog.exception.ResourceNotFoundException;
+import com.springboot.blog.feed.HotFeed;
+import com.springboot.blog.mapper.PostMapper;
+import com.springboot.blog.payload.CategoryDto;
+import com.springboot.blog.payload.CursorResponse;
 import com.springboot.blog.payload.PostDto;
+import com.springboot.blog.payload.PostPatchDto;
 import com.springboot.blog.payload.PostResponse;
+import com.springboot.blog.payload.PostSearchResponse;
+import com.springboot.blog.payload.PostSummaryDto;
 import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.CommentRepository;
 import com.springboot.blog.repository.PostRepository;
 import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.search.PostSearchIndex;
+import com.springboot.blog.security.UserPrincipal;
 import com.springboot.blog.service.PostService;
-import org.modelmapper.ModelMapper;
+import com.springboot.blog.utils.ETags;
+import com.springboot.blog.utils.HotCursor;
+import com.springboot.blog.utils.PostCursor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,51 +52,68 @@ public class PostServiceImpl implements PostService {
 
     private final PostRepository postRepository;
     private final CategoryRepository categoryRepository;
+    private final CategoryRegistry categoryRegistry;
+    private final CommentRepository commentRepository;
     private final UserRepository userRepository;
-    private final ModelMapper mapper;
+    private final PostMapper postMapper;
+    private final PostCache postCache;
+    private final HotFeed hotFeed;
+    private final PostSearchIndex postSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PostServiceImpl(PostRepository postRepository,
                            CategoryRepository categoryRepository,
+                           CategoryRegistry categoryRegistry,
+                           CommentRepository commentRepository,
                            UserRepository userRepository,
-                           ModelMapper mapper) {
+                           PostMapper postMapper,
+                           PostCache postCache,
+                           HotFeed hotFeed,
+                           PostSearchIndex postSearchIndex,
+                           ApplicationEventPublisher eventPublisher) {
         this.postRepository = postRepository;
         this.categoryRepository = categoryRepository;
+        this.categoryRegistry = categoryRegistry;
+        this.commentRepository = commentRepository;
         this.userRepository = userRepository;
-        this.mapper = mapper;
+        this.postMapper = postMapper;
+        this.postCache = postCache;
+        this.hotFeed = hotFeed;
+        this.postSearchIndex = postSearchIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
-    public PostDto createPost(PostDto postDto, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
-
+    public PostDto createPost(PostDto postDto, UserPrincipal author) {
         Category category = resolveCategory(postDto.getCategoryId());
 
-        Post post = mapToEntity(postDto);
-        post.setId(null);
-        post.setUser(user);
+        Post post = postMapper.toEntity(postDto);
+        post.setUser(userRepository.getReferenceById(author.getId()));
         post.setCategory(category);
 
         Post saved = postRepository.save(post);
-        return mapToDto(saved);
+        eventPublisher.publishEvent(new PostChangedEvent(ChangeType.CREATED, saved.getId(), category.getId(),
+                author.getId(), saved.getTitle()));
+
+        // the author comes from the token; the user row is never read
+        PostDto dto = postMapper.toDto(saved);
+        dto.setAuthorUsername(author.getUsername());
+        dto.setAuthorName(author.getName());
+        return dto;
     }
 
     @Override
     public PostResponse getAllPosts(int pageNo, int pageSize, String sortBy, String sortDir) {
 
         Sort sort = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name())
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
+                ? Sort.by(PostCursor.sortProperty(sortBy)).ascending()
+                : Sort.by(PostCursor.sortProperty(sortBy)).descending();
 
         Pageable pageable = PageRequest.of(pageNo, pageSize, sort);
-        Page<Post> posts = postRepository.findAll(pageable);
-
-        List<PostDto> content = posts.getContent().stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        Page<PostSummaryDto> posts = postRepository.findSummaries(pageable);
 
         return new PostResponse(
-                content,
+                posts.getContent(),
                 posts.getNumber(),
                 posts.getSize(),
                 posts.getTotalElements(),
@@ -84,65 +124,119 @@ public class PostServiceImpl implements PostService {
 
     @Override
     public PostDto getPostById(long id) {
-        Post post = postRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Post", "id", id));
-        return mapToDto(post);
+        PostDto post = postCache.get(id);
+        if (post == null) {
+            throw new ResourceNotFoundException("Post", "id", id);
+        }
+        return post;
     }
 
     @Override
-    public PostDto updatePost(PostDto postDto, long id, String username) {
+    @Transactional
+    public PostDto updatePost(PostDto postDto, long id, String username, String ifMatch) {
 
-        Post post = postRepository.findById(id)
+        Post post = postRepository.findWithUserAndCategoryById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Post", "id", id));
 
         enforceOwnershipOrAdmin(post, username);
 
+        LocalDateTime expected = ifMatch != null ? requireCurrent(id, ifMatch) : null;
         Category category = resolveCategory(postDto.getCategoryId());
 
-        post.setTitle(postDto.getTitle());
-        post.setDescription(postDto.getDescription());
-        post.setContent(postDto.getContent());
-        post.setCategory(category);
+        // the database keeps microseconds, and the response's tag must be the one a later read serves
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        if (postRepository.replace(id, postDto.getTitle(), postDto.getDescription(), postDto.getContent(),
+                category, now, expected) == 0) {
+            throw expected != null ? ETags.preconditionFailed() : new ResourceNotFoundException("Post", "id", id);
+        }
+        eventPublisher.publishEvent(new PostChangedEvent(ChangeType.UPDATED, id, category.getId(),
+                post.getUser().getId(), postDto.getTitle()));
+
+        // the entity is left as read, so the commit flushes nothing more; the response takes the new values
+        PostDto updated = postMapper.toDto(post, commentRepository.findByPostId(id));
+        updated.setTitle(postDto.getTitle());
+        updated.setDescription(postDto.getDescription());
+        updated.setContent(postDto.getContent());
+        updated.setCategoryId(category.getId());
+        updated.setUpdatedAt(now.atZone(ZoneId.systemDefault()).toInstant());
+        return updated;
+    }
+
+    // the tag a client holds is the one GET served, which comes from the cache; returns the
+    // updatedAt it was computed from, for the write's WHERE
+    private LocalDateTime requireCurrent(long id, String ifMatch) {
+        PostDto current = postCache.get(id);
+        if (current == null) {
+            throw new ResourceNotFoundException("Post", "id", id);
+        }
+        ETags.requireMatch(ifMatch, ETags.of(current));
+        return LocalDateTime.ofInstant(current.getUpdatedAt(), ZoneId.systemDefault());
+    }
+
+    @Override
+    @Transactional
+    public void patchPost(long id, PostPatchDto patch, UserPrincipal user, String ifMatch) {
+        if (patch.isEmpty()) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Nothing to update.");
+        }
 
-        Post updated = postRepository.save(post);
-        return mapToDto(updated);
+        // a conditional patch costs a read (usually a cache hit); an unconditional one does not
+        LocalDateTime expected = ifMatch != null ? requireCurrent(id, ifMatch) : null;
+
+        // the registry answers from memory, so naming a category adds no round trip
+        Category category = patch.getCategoryId() != null ? resolveCategory(patch.getCategoryId()) : null;
+
+        LocalDateTime now = LocalDateTime.now();
+        int updated = category == null
+                ? postRepository.patch(id, user.getId(), isAdmin(), patch.getTitle(), patch.getDescription(),
+                        patch.getContent(), now, expected)
+                : postRepository.patchWithCategory(id, user.getId(), isAdmin(), patch.getTitle(),
+                        patch.getDescription(), patch.getContent(), category, now, expected);
+        if (updated == 0) {
+            // only a refused patch pays for telling a missing post from someone else's, and either
+            // from one changed since the tag was checked
+            Post post = postRepository.findWithUserAndCategoryById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Post", "id", id));
+            enforceOwnershipOrAdmin(post, user.getUsername());
+            throw ETags.preconditionFailed();
+        }
+        eventPublisher.publishEvent(new PostChangedEvent(ChangeType.UPDATED, id,
+                category != null ? category.getId() : null, null, patch.getTitle()));
     }
 
     @Override
+    @Transactional
     public void deletePostById(long id, String username) {
-        Post post = postRepository.findById(id)
+        Post post = postRepository.findWithUserAndCategoryById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Post", "id", id));
 
         enforceOwnershipOrAdmin(post, username);
 
-        postRepository.delete(post);
+        Long categoryId = post.getCategory() != null ? post.getCategory().getId() : null;
+        // a soft delete, so a large thread costs one statement here; the comments go in PostPurgeJob
+        postRepository.softDelete(id, LocalDateTime.now());
+        eventPublisher.publishEvent(new PostChangedEvent(ChangeType.DELETED, id, categoryId,
+                post.getUser().getId(), post.getTitle()));
     }
 
     @Override
-    public List<PostDto> getPostsByCategory(Long categoryId) {
-        return postRepository.findByCategoryId(categoryId)
-                .stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+    public List<PostSummaryDto> getPostsByCategory(Long categoryId) {
+        return postRepository.findSummariesByCategoryId(categoryId);
     }
 
     @Override
     public PostResponse getMyPosts(String username, int pageNo, int pageSize, String sortBy, String sortDir) {
 
         Sort sort = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name())
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
+                ? Sort.by(PostCursor.sortProperty(sortBy)).ascending()
+                : Sort.by(PostCursor.sortProperty(sortBy)).descending();
 
         Pageable pageable = PageRequest.of(pageNo, pageSize, sort);
 
-        Page<Post> posts = postRepository.findByUserUsername(username, pageable);
-
-        List<PostDto> content = posts.getContent().stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        Page<PostSummaryDto> posts = postRepository.findSummariesByUsername(username, pageable);
 
         return new PostResponse(
-                content,
+                posts.getContent(),
                 posts.getNumber(),
                 posts.getSize(),
                 posts.getTotalElements(),
@@ -151,24 +245,159 @@ public class PostServiceImpl implements PostService {
         );
     }
 
+    @Override
+    public CursorResponse<PostSummaryDto> getAllPostsByCursor(String after, int pageSize, String sortBy, String sortDir) {
+        return scrollPosts(null, after, pageSize, sortBy, sortDir);
+    }
+
+    @Override
+    public CursorResponse<PostSummaryDto> getMyPostsByCursor(String username, String after, int pageSize, String sortBy, String sortDir) {
+        return scrollPosts(username, after, pageSize, sortBy, sortDir);
+    }
+
+    @Override
+    public CursorResponse<PostSummaryDto> getPostsByCategoryCursor(Long categoryId, String after, int pageSize) {
+
+        int size = PostCursor.capPageSize(pageSize);
+
+        // the category feed is always newest first
+        PostCursor cursor = after != null && !after.isBlank() ? PostCursor.decode(after) : null;
+        if (cursor != null && (!PostCursor.SORT_CREATED_AT.equals(cursor.getSortBy()) || !cursor.getDirection().isDescending())) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid pagination cursor.");
+        }
+
+        Sort sort = Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
+        Pageable pageable = PageRequest.of(0, size, sort);
+
+        Slice<PostSummaryDto> posts = cursor == null
+                ? postRepository.findSummarySliceByCategoryId(categoryId, pageable)
+                : postRepository.findSummariesByCategoryIdCreatedBefore(categoryId, cursor.getSortValue(), cursor.getId(), pageable);
+
+        return toCursorResponse(posts, size, PostCursor.SORT_CREATED_AT, Sort.Direction.DESC);
+    }
+
+    @Override
+    public CursorResponse<PostSummaryDto> getHotPosts(Long categoryId, String after, int pageSize) {
+
+        int size = PostCursor.capPageSize(pageSize);
+        HotCursor cursor = after != null && !after.isBlank() ? HotCursor.decode(after) : null;
+
+        // ranked in memory; the database only fills in the summaries for one page of ids
+        HotFeed.Page page = hotFeed.page(categoryId, cursor, size + 1);
+        boolean hasNext = page.entries().size() > size;
+        List<HotFeed.Entry> entries = hasNext ? page.entries().subList(0, size) : page.entries();
+        if (entries.isEmpty()) {
+            return new CursorResponse<>(List.of(), size, null, false);
+        }
+
+        Map<Long, PostSummaryDto> summaries = postRepository
+                .findSummariesByIdIn(entries.stream().map(HotFeed.Entry::getPostId).toList())
+                .stream()
+                .collect(Collectors.toMap(PostSummaryDto::getId, Function.identity()));
+
+        // a post deleted since it was ranked is skipped rather than failing the page
+        List<PostSummaryDto> posts = new ArrayList<>(entries.size());
+        for (HotFeed.Entry entry : entries) {
+            PostSummaryDto summary = summaries.get(entry.getPostId());
+            if (summary != null) {
+                posts.add(summary);
+            }
+        }
+
+        HotFeed.Entry last = entries.get(entries.size() - 1);
+        String nextCursor = hasNext
+                ? new HotCursor(page.epochMillis(), last.getScore(), last.getPostId()).encode()
+                : null;
+        return new CursorResponse<>(posts, size, nextCursor, hasNext);
+    }
+
+    @Override
+    public PostSearchResponse searchPosts(String query, Long categoryId, String author, int pageNo, int pageSize) {
+        return postSearchIndex.search(query, categoryId, author, pageNo, PostCursor.capPageSize(pageSize));
+    }
+
+    private CursorResponse<PostSummaryDto> scrollPosts(String username, String after, int pageSize, String sortBy, String sortDir) {
+
+        int size = PostCursor.capPageSize(pageSize);
+
+        // a cursor carries the ordering it was issued for, so later pages ignore sortBy/sortDir
+        PostCursor cursor = after != null && !after.isBlank() ? PostCursor.decode(after) : null;
+        String key = cursor != null ? cursor.getSortBy() : PostCursor.requireSortable(sortBy);
+        Sort.Direction direction = cursor != null ? cursor.getDirection()
+                : sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.Direction.ASC : Sort.Direction.DESC;
+
+        Sort sort = PostCursor.SORT_ID.equals(key)
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, PostCursor.sortProperty(key)).and(Sort.by(direction, "id"));
+        Pageable pageable = PageRequest.of(0, size, sort);
+
+        Slice<PostSummaryDto> posts = findSlice(username, cursor, key, direction, pageable);
+
+        return toCursorResponse(posts, size, key, direction);
+    }
+
+    private CursorResponse<PostSummaryDto> toCursorResponse(Slice<PostSummaryDto> posts, int size, String key, Sort.Direction direction) {
+        String nextCursor = posts.hasNext()
+                ? PostCursor.after(posts.getContent().get(posts.getNumberOfElements() - 1), key, direction).encode()
+                : null;
+
+        return new CursorResponse<>(posts.getContent(), size, nextCursor, posts.hasNext());
+    }
+
+    private Slice<PostSummaryDto> findSlice(String username, PostCursor cursor, String key, Sort.Direction direction, Pageable pageable) {
+        boolean desc = direction.isDescending();
+
+        if (cursor == null) {
+            return username == null
+                    ? postRepository.findSummarySlice(pageable)
+                    : postRepository.findSummarySliceByUsername(username, pageable);
+        }
+
+        if (PostCursor.SORT_ID.equals(key)) {
+            if (username == null) {
+                return desc ? postRepository.findSummariesIdBefore(cursor.getId(), pageable)
+                        : postRepository.findSummariesIdAfter(cursor.getId(), pageable);
+            }
+            return desc ? postRepository.findSummariesByUsernameIdBefore(username, cursor.getId(), pageable)
+                    : postRepository.findSummariesByUsernameIdAfter(username, cursor.getId(), pageable);
+        }
+
+        if (PostCursor.SORT_LAST_ACTIVITY.equals(key)) {
+            if (username == null) {
+                return desc ? postRepository.findSummariesActiveBefore(cursor.getSortValue(), cursor.getId(), pageable)
+                        : postRepository.findSummariesActiveAfter(cursor.getSortValue(), cursor.getId(), pageable);
+            }
+            return desc ? postRepository.findSummariesByUsernameActiveBefore(username, cursor.getSortValue(), cursor.getId(), pageable)
+                    : postRepository.findSummariesByUsernameActiveAfter(username, cursor.getSortValue(), cursor.getId(), pageable);
+        }
+
+        if (username == null) {
+            return desc ? postRepository.findSummariesCreatedBefore(cursor.getSortValue(), cursor.getId(), pageable)
+                    : postRepository.findSummariesCreatedAfter(cursor.getSortValue(), cursor.getId(), pageable);
+        }
+        return desc ? postRepository.findSummariesByUsernameCreatedBefore(username, cursor.getSortValue(), cursor.getId(), pageable)
+                : postRepository.findSummariesByUsernameCreatedAfter(username, cursor.getSortValue(), cursor.getId(), pageable);
+    }
+
+    // validated against the in-memory registry; the returned proxy only carries the id for the FK
     private Category resolveCategory(Long categoryId) {
-        Category category;
+        CategoryDto category;
         if (categoryId != null) {
-            category = categoryRepository.findById(categoryId)
+            category = categoryRegistry.findById(categoryId)
                     .orElseThrow(() -> new ResourceNotFoundException("Category", "id", categoryId));
         } else {
-            category = categoryRepository.findByName(DEFAULT_CATEGORY_NAME)
+            category = categoryRegistry.findByName(DEFAULT_CATEGORY_NAME)
                     .orElseThrow(() -> new BlogAPIException(
                             HttpStatus.INTERNAL_SERVER_ERROR,
                             "Default category '" + DEFAULT_CATEGORY_NAME + "' is missing. Please restart the server to seed it."
                     ));
         }
-    
+
         if (category.getName() == null || !CategoryPreset.allowedNames().contains(category.getName())) {
             throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid category. Please choose one of the preset categories.");
         }
 
-        return category;
+        return categoryRepository.getReferenceById(category.getId());
     }
 
     private void enforceOwnershipOrAdmin(Post post, String username) {
@@ -185,26 +414,4 @@ public class PostServiceImpl implements PostService {
         if (auth == null) return false;
         return auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
     }
-
-    private PostDto mapToDto(Post post) {
-        PostDto dto = mapper.map(post, PostDto.class);
-
-        // author
-        if (post.getUser() != null) {
-            dto.setAuthorId(post.getUser().getId());
-            dto.setAuthorUsername(post.getUser().getUsername());
-            dto.setAuthorName(post.getUser().getName());
-        }
-
-        // categoryId
-        if (post.getCategory() != null) {
-            dto.setCategoryId(post.getCategory().getId());
-        }
-
-        return dto;
-    }
-
-    private Post mapToEntity(PostDto postDto) {
-        return mapper.map(postDto, Post.class);
-    }
 }
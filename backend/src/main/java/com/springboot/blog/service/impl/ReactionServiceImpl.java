@@ -0,0 +1,160 @@
+package com.springboot.blog.service.impl;
+
+import com.springboot.blog.entity.ReactionTarget;
+import com.springboot.blog.entity.ReactionType;
+import com.springboot.blog.event.ChangeType;
+import com.springboot.blog.event.CommentChangedEvent;
+import com.springboot.blog.event.PostChangedEvent;
+import com.springboot.blog.exception.BlogAPIException;
+import com.springboot.blog.exception.ResourceNotFoundException;
+import com.springboot.blog.feed.HotFeed;
+import com.springboot.blog.payload.ReactionSummaryDto;
+import com.springboot.blog.reactions.ReactionCounter;
+import com.springboot.blog.repository.CommentRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.security.UserPrincipal;
+import com.springboot.blog.service.ReactionService;
+import com.springboot.blog.utils.AppConstants;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reactions are rows in reactions, one per user, target and type, written with single plain
+ * statements: the unique key turns a repeated reaction into a no-op and the row count of the
+ * delete tells whether an unreaction removed anything. Only an actual change moves the totals,
+ * which ReactionCounter buffers and flushes, and only a new reaction counts towards the hot feed.
+ */
+@Service
+public class ReactionServiceImpl implements ReactionService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReactionCounter reactionCounter;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final HotFeed hotFeed;
+
+    public ReactionServiceImpl(JdbcTemplate jdbcTemplate,
+                               ReactionCounter reactionCounter,
+                               PostRepository postRepository,
+                               CommentRepository commentRepository,
+                               HotFeed hotFeed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reactionCounter = reactionCounter;
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.hotFeed = hotFeed;
+    }
+
+    @Override
+    public ReactionSummaryDto react(long postId, Long commentId, ReactionType type, UserPrincipal user) {
+        ReactionTarget target = checkTarget(postId, commentId);
+        long targetId = commentId != null ? commentId : postId;
+        try {
+            jdbcTemplate.update("insert into reactions (user_id, target_type, target_id, reaction_type, created_at)"
+                            + " values (?, ?, ?, ?, ?)",
+                    user.getId(), target.name(), targetId, type.name(), Timestamp.from(Instant.now()));
+            reactionCounter.add(target, targetId, type, 1);
+            // a reaction to a comment warms up its post too
+            hotFeed.recordActivity(postId, HotFeed.REACTION_WEIGHT);
+        } catch (DuplicateKeyException alreadyReacted) {
+            // idempotent: the earlier reaction stands and was already counted
+        }
+        return getSummaries(target, List.of(targetId), user).get(0);
+    }
+
+    @Override
+    public ReactionSummaryDto unreact(long postId, Long commentId, ReactionType type, UserPrincipal user) {
+        ReactionTarget target = checkTarget(postId, commentId);
+        long targetId = commentId != null ? commentId : postId;
+        int removed = jdbcTemplate.update("delete from reactions"
+                        + " where user_id = ? and target_type = ? and target_id = ? and reaction_type = ?",
+                user.getId(), target.name(), targetId, type.name());
+        if (removed > 0) {
+            reactionCounter.add(target, targetId, type, -removed);
+        }
+        return getSummaries(target, List.of(targetId), user).get(0);
+    }
+
+    @Override
+    public List<ReactionSummaryDto> getSummaries(ReactionTarget target, List<Long> targetIds, UserPrincipal user) {
+        if (targetIds.size() > AppConstants.MAX_PAGE_SIZE) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST,
+                    "At most " + AppConstants.MAX_PAGE_SIZE + " ids per request.");
+        }
+        if (targetIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Map<ReactionType, Long>> counts = reactionCounter.counts(target, targetIds);
+        Map<Long, Set<ReactionType>> mine = user != null ? findMine(target, targetIds, user.getId()) : Map.of();
+
+        List<ReactionSummaryDto> summaries = new ArrayList<>(targetIds.size());
+        for (Long id : targetIds) {
+            summaries.add(new ReactionSummaryDto(id, counts.get(id),
+                    mine.getOrDefault(id, EnumSet.noneOf(ReactionType.class))));
+        }
+        return summaries;
+    }
+
+    // the reactions of one user over a whole page of targets, in one index lookup
+    private Map<Long, Set<ReactionType>> findMine(ReactionTarget target, List<Long> targetIds, long userId) {
+        List<Object> args = new ArrayList<>(targetIds.size() + 2);
+        args.add(userId);
+        args.add(target.name());
+        args.addAll(targetIds);
+        Map<Long, Set<ReactionType>> mine = new HashMap<>();
+        jdbcTemplate.query("select target_id, reaction_type from reactions"
+                        + " where user_id = ? and target_type = ? and target_id in ("
+                        + String.join(", ", Collections.nCopies(targetIds.size(), "?")) + ")",
+                rs -> {
+                    mine.computeIfAbsent(rs.getLong(1), id -> EnumSet.noneOf(ReactionType.class))
+                            .add(ReactionType.valueOf(rs.getString(2)));
+                }, args.toArray());
+        return mine;
+    }
+
+    private ReactionTarget checkTarget(long postId, Long commentId) {
+        if (commentId == null) {
+            if (!postRepository.existsById(postId)) {
+                throw new ResourceNotFoundException("Post", "id", postId);
+            }
+            return ReactionTarget.POST;
+        }
+        if (!commentRepository.existsByIdAndPostId(commentId, postId)) {
+            throw new ResourceNotFoundException("Comment", "id", commentId);
+        }
+        return ReactionTarget.COMMENT;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        if (event.getType() == ChangeType.DELETED) {
+            forget(ReactionTarget.POST, event.getPostId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentChanged(CommentChangedEvent event) {
+        if (event.getType() == ChangeType.DELETED) {
+            forget(ReactionTarget.COMMENT, event.getCommentId());
+        }
+    }
+
+    // reactions to the comments of a deleted post go with the thread, in PostPurgeJob
+    private void forget(ReactionTarget target, long targetId) {
+        jdbcTemplate.update("delete from reactions where target_type = ? and target_id = ?", target.name(), targetId);
+        reactionCounter.forget(target, targetId);
+    }
+}
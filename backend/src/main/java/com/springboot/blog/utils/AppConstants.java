@@ -5,4 +5,8 @@ public class AppConstants {
     public static final String DEFAULT_PAGE_SIZE = "10";
     public static final String DEFAULT_SORT_BY = "id";
     public static final String DEFAULT_SORT_DIRECTION = "asc";
+
+    public static final String DEFAULT_CURSOR_SORT_BY = "createdAt";
+    public static final String DEFAULT_CURSOR_SORT_DIRECTION = "desc";
+    public static final int MAX_PAGE_SIZE = 50;
 }
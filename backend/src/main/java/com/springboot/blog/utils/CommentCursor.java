@@ -0,0 +1,61 @@
+package com.springboot.blog.utils;
+
+import com.springboot.blog.exception.BlogAPIException;
+import com.springboot.blog.payload.CommentDto;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position inside a post's comment thread, which is always read oldest first by
+ * (createdAt, id). Encoded the same way as {@link PostCursor}.
+ */
+public class CommentCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final Instant createdAt;
+    private final long id;
+
+    private CommentCursor(Instant createdAt, long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static CommentCursor after(CommentDto comment) {
+        return new CommentCursor(comment.getCreatedAt(), comment.getId());
+    }
+
+    public static CommentCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 2) {
+                throw invalid();
+            }
+            return new CommentCursor(Instant.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw invalid();
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static BlogAPIException invalid() {
+        return new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid pagination cursor.");
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
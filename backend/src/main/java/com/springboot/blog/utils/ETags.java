@@ -0,0 +1,162 @@
+package com.springboot.blog.utils;
+
+import com.springboot.blog.exception.BlogAPIException;
+import com.springboot.blog.payload.CategoryDto;
+import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.payload.PostDto;
+import com.springboot.blog.payload.UserDto;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+
+/**
+ * Strong entity tags for the conditional GET / If-Match support in the controllers.
+ *
+ * Tags are a 64-bit FNV-1a hash over the fields that make up a representation (ids and update
+ * timestamps, or the values themselves where there is no timestamp), so they are computed from
+ * DTOs already in hand and never need another query. Timestamps are hashed at microsecond
+ * precision because that is what the database keeps: a DTO mapped from a freshly saved entity
+ * must tag the same as one read back later.
+ */
+public final class ETags {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ETags() {
+    }
+
+    // the post detail representation includes its comments, so comment edits change the tag too
+    public static String of(PostDto post) {
+        Hash hash = new Hash().add("post").add(post.getId()).add(post.getUpdatedAt());
+        if (post.getComments() != null) {
+            for (CommentDto comment : post.getComments()) {
+                hash.add(comment.getId()).add(comment.getUpdatedAt());
+            }
+        }
+        return hash.toTag();
+    }
+
+    public static String of(CommentDto comment) {
+        return new Hash().add("comment").add(comment.getId()).add(comment.getUpdatedAt()).toTag();
+    }
+
+    public static String ofComments(long postId, Collection<CommentDto> comments) {
+        Hash hash = new Hash().add("comments").add(postId).add(comments.size());
+        for (CommentDto comment : comments) {
+            hash.add(comment.getId()).add(comment.getUpdatedAt());
+        }
+        return hash.toTag();
+    }
+
+    public static String ofCategories(Collection<CategoryDto> categories) {
+        Hash hash = new Hash().add("categories");
+        for (CategoryDto category : categories) {
+            hash.add(category.getId()).add(category.getName()).add(category.getDescription());
+        }
+        return hash.toTag();
+    }
+
+    public static String of(CategoryDto category) {
+        return new Hash().add("category").add(category.getId())
+                .add(category.getName()).add(category.getDescription()).toTag();
+    }
+
+    // users have no update timestamp, so the tag covers the values themselves
+    public static String of(UserDto user) {
+        return new Hash().add("user").add(user.getId()).add(user.getUsername())
+                .add(user.getName()).add(user.getEmail()).toTag();
+    }
+
+    public static Instant lastModified(PostDto post) {
+        Instant latest = post.getUpdatedAt();
+        if (post.getComments() != null) {
+            latest = max(latest, lastModified(post.getComments()));
+        }
+        return latest;
+    }
+
+    public static Instant lastModified(Collection<CommentDto> comments) {
+        Instant latest = null;
+        for (CommentDto comment : comments) {
+            latest = max(latest, comment.getUpdatedAt());
+        }
+        return latest;
+    }
+
+    // -1 tells WebRequest.checkNotModified there is no Last-Modified
+    public static long epochMillis(Instant instant) {
+        return instant != null ? instant.toEpochMilli() : -1;
+    }
+
+    /**
+     * Enforces an If-Match precondition: {@code null} means the client did not send one, "*"
+     * matches any existing representation, otherwise one of the listed tags must equal the current
+     * tag (weak tags never match, as RFC 9110 requires strong comparison here).
+     */
+    public static void requireMatch(String ifMatch, String currentTag) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return;
+        }
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(currentTag)) {
+                return;
+            }
+        }
+        throw preconditionFailed();
+    }
+
+    // also for a conditional write that found the row changed after the tag was checked
+    public static BlogAPIException preconditionFailed() {
+        return new BlogAPIException(HttpStatus.PRECONDITION_FAILED,
+                "The resource has changed since it was read. Reload it and try again.");
+    }
+
+    private static Instant max(Instant a, Instant b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static final class Hash {
+        private long value = FNV_OFFSET;
+
+        Hash add(long number) {
+            for (int shift = 0; shift < 64; shift += 8) {
+                value = (value ^ ((number >>> shift) & 0xff)) * FNV_PRIME;
+            }
+            return this;
+        }
+
+        Hash add(Long number) {
+            return number != null ? add(number.longValue()) : add(Long.MIN_VALUE);
+        }
+
+        Hash add(Instant instant) {
+            if (instant == null) {
+                return add(Long.MIN_VALUE);
+            }
+            Instant micros = instant.truncatedTo(ChronoUnit.MICROS);
+            return add(micros.getEpochSecond()).add(micros.getNano());
+        }
+
+        Hash add(String text) {
+            if (text == null) {
+                return add(Long.MIN_VALUE);
+            }
+            for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+                value = (value ^ (b & 0xff)) * FNV_PRIME;
+            }
+            // length terminator so adjacent strings cannot shift into each other
+            return add(text.length());
+        }
+
+        String toTag() {
+            return "\"" + Long.toHexString(value) + "\"";
+        }
+    }
+}
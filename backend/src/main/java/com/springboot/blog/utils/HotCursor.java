@@ -0,0 +1,64 @@
+package com.springboot.blog.utils;
+
+import com.springboot.blog.exception.BlogAPIException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position inside the hot feed: the score and id of the last post a client saw, plus the epoch
+ * that score is relative to. Encoded the same way as {@link PostCursor}.
+ */
+public class HotCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final long epochMillis;
+    private final double score;
+    private final long postId;
+
+    public HotCursor(long epochMillis, double score, long postId) {
+        this.epochMillis = epochMillis;
+        this.score = score;
+        this.postId = postId;
+    }
+
+    public static HotCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 3) {
+                throw invalid();
+            }
+            double score = Double.parseDouble(parts[1]);
+            if (!Double.isFinite(score)) {
+                throw invalid();
+            }
+            return new HotCursor(Long.parseLong(parts[0]), score, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+    }
+
+    public String encode() {
+        String raw = epochMillis + SEPARATOR + score + SEPARATOR + postId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static BlogAPIException invalid() {
+        return new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid pagination cursor.");
+    }
+
+    public long getEpochMillis() {
+        return epochMillis;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public long getPostId() {
+        return postId;
+    }
+}
@@ -0,0 +1,114 @@
+package com.springboot.blog.utils;
+
+import com.springboot.blog.exception.BlogAPIException;
+import com.springboot.blog.payload.PostSummaryDto;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position inside a post listing: the sort key of the last row a client saw plus its id
+ * as a tie-breaker. Encoded as an opaque url-safe token so clients just echo it back.
+ */
+public class PostCursor {
+
+    public static final String SORT_CREATED_AT = "createdAt";
+    public static final String SORT_ID = "id";
+    public static final String SORT_LAST_ACTIVITY = "lastActivity";
+
+    private static final String SEPARATOR = "|";
+
+    private final String sortBy;
+    private final Sort.Direction direction;
+    private final LocalDateTime sortValue;
+    private final long id;
+
+    private PostCursor(String sortBy, Sort.Direction direction, LocalDateTime sortValue, long id) {
+        this.sortBy = sortBy;
+        this.direction = direction;
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    public static PostCursor after(PostSummaryDto post, String sortBy, Sort.Direction direction) {
+        LocalDateTime sortValue = switch (sortBy) {
+            case SORT_CREATED_AT -> LocalDateTime.ofInstant(post.getCreatedAt(), ZoneId.systemDefault());
+            // null on rows added before the column until the startup backfill copies the creation time
+            case SORT_LAST_ACTIVITY -> LocalDateTime.ofInstant(
+                    post.getLastActivityAt() != null ? post.getLastActivityAt() : post.getCreatedAt(),
+                    ZoneId.systemDefault());
+            default -> null;
+        };
+        return new PostCursor(sortBy, direction, sortValue, post.getId());
+    }
+
+    public static PostCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 4) {
+                throw invalid();
+            }
+            String sortBy = requireSortable(parts[0]);
+            Sort.Direction direction = Sort.Direction.fromString(parts[1]);
+            LocalDateTime sortValue = parts[2].isEmpty() ? null : LocalDateTime.parse(parts[2]);
+            if (!SORT_ID.equals(sortBy) && sortValue == null) {
+                throw invalid();
+            }
+            return new PostCursor(sortBy, direction, sortValue, Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw invalid();
+        }
+    }
+
+    public String encode() {
+        String raw = sortBy + SEPARATOR + direction.name() + SEPARATOR
+                + (sortValue != null ? sortValue.toString() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String requireSortable(String sortBy) {
+        if (SORT_CREATED_AT.equals(sortBy) || SORT_LAST_ACTIVITY.equals(sortBy) || SORT_ID.equals(sortBy)) {
+            return sortBy;
+        }
+        throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Cursor pagination supports sortBy '" + SORT_CREATED_AT
+                + "', '" + SORT_LAST_ACTIVITY + "' or '" + SORT_ID + "' only.");
+    }
+
+    // entity property behind a public sort key; other keys are passed through unchanged
+    public static String sortProperty(String sortBy) {
+        return SORT_LAST_ACTIVITY.equals(sortBy) ? "lastActivityAt" : sortBy;
+    }
+
+    public static int capPageSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "pageSize must be at least 1.");
+        }
+        return Math.min(pageSize, AppConstants.MAX_PAGE_SIZE);
+    }
+
+    private static BlogAPIException invalid() {
+        return new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid pagination cursor.");
+    }
+
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public LocalDateTime getSortValue() {
+        return sortValue;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
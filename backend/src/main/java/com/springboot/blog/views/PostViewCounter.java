@@ -0,0 +1,276 @@
+package com.springboot.blog.views;
+
+import com.springboot.blog.event.ChangeType;
+import com.springboot.blog.event.PostChangedEvent;
+import com.springboot.blog.feed.HotFeed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Post view counts and unique viewers without a write per page view.
+ *
+ * A view only touches memory: a striped LongAdder and a HyperLogLog sketch per post and UTC day,
+ * both built for many threads updating the same post at once. A scheduled flush swaps the buffer
+ * out and writes it in one transaction of batched statements: posts.view_count grows by the
+ * buffered views, the buffered sketch folds into the stored all-time sketch behind
+ * posts.unique_viewers, and the day's row in post_view_days takes the same deltas. Once committed,
+ * the views count towards the hot feed. A failed flush puts the views back for the next one, and
+ * shutdown flushes what is left.
+ *
+ * Counts on the API are therefore up to one flush interval behind (plus whatever the post and
+ * response caches add). The sketch merge reads, merges and writes back, which assumes a single
+ * instance flushing.
+ */
+@Component
+public class PostViewCounter implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostViewCounter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final HotFeed hotFeed;
+    private final int batchSize;
+
+    // recording shares the read side; the flush swaps the buffer under the write side, so no
+    // view lands in a buffer that is already being written
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile ConcurrentHashMap<ViewKey, Tally> pending = new ConcurrentHashMap<>();
+    private final Object flushing = new Object();
+
+    public PostViewCounter(JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           HotFeed hotFeed,
+                           @Value("${app.views.flush.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.hotFeed = hotFeed;
+        this.batchSize = batchSize;
+    }
+
+    public void record(long postId, String viewer) {
+        long hash = HyperLogLog.hash(viewer);
+        ViewKey key = new ViewKey(postId, LocalDate.now(ZoneOffset.UTC));
+        lock.readLock().lock();
+        try {
+            Tally tally = pending.get(key);
+            if (tally == null) {
+                tally = pending.computeIfAbsent(key, k -> new Tally());
+            }
+            tally.views.increment();
+            tally.viewers.add(hash);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of posts whose counts were written
+     */
+    @Scheduled(fixedDelayString = "${app.views.flush.interval:PT30S}",
+            initialDelayString = "${app.views.flush.interval:PT30S}")
+    public int flush() {
+        synchronized (flushing) {
+            Map<ViewKey, Tally> drained;
+            lock.writeLock().lock();
+            try {
+                drained = pending;
+                pending = new ConcurrentHashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (drained.isEmpty()) {
+                return 0;
+            }
+            Map<Long, Long> written;
+            try {
+                written = transactionTemplate.execute(status -> write(drained));
+            } catch (RuntimeException e) {
+                restore(drained);
+                logger.warn("Post view flush failed, {} post-days kept for the next attempt", drained.size(), e);
+                return 0;
+            }
+            written.forEach((postId, views) -> hotFeed.recordActivity(postId, HotFeed.VIEW_WEIGHT * views));
+            return written.size();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    // buffered views of a deleted post have nowhere to go; its day rows stay for the analytics.
+    // Under the flush lock, or a flush that drained the post's views would insert its sketch again
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        if (event.getType() != ChangeType.DELETED) {
+            return;
+        }
+        synchronized (flushing) {
+            lock.readLock().lock();
+            try {
+                pending.keySet().removeIf(key -> key.postId() == event.getPostId());
+            } finally {
+                lock.readLock().unlock();
+            }
+            jdbcTemplate.update("delete from post_view_sketches where post_id = ?", event.getPostId());
+        }
+    }
+
+    // the views written per post that still exists
+    private Map<Long, Long> write(Map<ViewKey, Tally> drained) {
+        Map<Long, Tally> totals = new HashMap<>();
+        Map<LocalDate, Map<Long, Tally>> days = new HashMap<>();
+        drained.forEach((key, tally) -> {
+            totals.computeIfAbsent(key.postId(), id -> new Tally()).absorb(tally);
+            days.computeIfAbsent(key.day(), day -> new HashMap<>()).put(key.postId(), tally);
+        });
+
+        Set<Long> live = new HashSet<>();
+        for (List<Long> ids : chunks(totals.keySet())) {
+            live.addAll(writeTotals(ids, totals));
+        }
+        days.forEach((day, tallies) -> {
+            tallies.keySet().retainAll(live);
+            for (List<Long> ids : chunks(tallies.keySet())) {
+                writeDay(day, ids, tallies);
+            }
+        });
+        Map<Long, Long> written = new HashMap<>();
+        for (Long id : live) {
+            written.put(id, totals.get(id).views.sum());
+        }
+        return written;
+    }
+
+    // posts row plus all-time sketch; returns the ids that still have a post
+    private List<Long> writeTotals(List<Long> ids, Map<Long, Tally> totals) {
+        Map<Long, HyperLogLog> stored = new HashMap<>();
+        jdbcTemplate.query("select post_id, sketch from post_view_sketches where post_id in " + placeholders(ids.size()),
+                rs -> {
+                    stored.put(rs.getLong(1), HyperLogLog.fromBytes(rs.getBytes(2)));
+                }, ids.toArray());
+
+        List<HyperLogLog> merged = new ArrayList<>(ids.size());
+        List<Object[]> postUpdates = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            HyperLogLog sketch = stored.getOrDefault(id, new HyperLogLog());
+            Tally tally = totals.get(id);
+            sketch.merge(tally.viewers);
+            merged.add(sketch);
+            postUpdates.add(new Object[]{tally.views.sum(), sketch.estimate(), id});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(
+                "update posts set view_count = view_count + ?, unique_viewers = ? where id = ?", postUpdates);
+
+        List<Long> live = new ArrayList<>(ids.size());
+        List<Object[]> sketchUpdates = new ArrayList<>();
+        List<Object[]> sketchInserts = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (updated[i] == 0) {
+                continue;
+            }
+            Long id = ids.get(i);
+            live.add(id);
+            if (stored.containsKey(id)) {
+                sketchUpdates.add(new Object[]{merged.get(i).toBytes(), id});
+            } else {
+                sketchInserts.add(new Object[]{id, merged.get(i).toBytes()});
+            }
+        }
+        jdbcTemplate.batchUpdate("update post_view_sketches set sketch = ? where post_id = ?", sketchUpdates);
+        jdbcTemplate.batchUpdate("insert into post_view_sketches (post_id, sketch) values (?, ?)", sketchInserts);
+        return live;
+    }
+
+    private void writeDay(LocalDate day, List<Long> ids, Map<Long, Tally> tallies) {
+        Map<Long, StoredDay> stored = new HashMap<>();
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(day);
+        args.addAll(ids);
+        jdbcTemplate.query("select post_id, views, sketch from post_view_days where view_date = ? and post_id in "
+                        + placeholders(ids.size()),
+                rs -> {
+                    stored.put(rs.getLong(1), new StoredDay(rs.getLong(2), HyperLogLog.fromBytes(rs.getBytes(3))));
+                }, args.toArray());
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        for (Long id : ids) {
+            Tally tally = tallies.get(id);
+            StoredDay previous = stored.get(id);
+            HyperLogLog sketch = previous != null ? previous.sketch() : new HyperLogLog();
+            sketch.merge(tally.viewers);
+            long views = (previous != null ? previous.views() : 0) + tally.views.sum();
+            if (previous != null) {
+                updates.add(new Object[]{views, sketch.estimate(), sketch.toBytes(), id, day});
+            } else {
+                inserts.add(new Object[]{id, day, views, sketch.estimate(), sketch.toBytes()});
+            }
+        }
+        jdbcTemplate.batchUpdate("update post_view_days set views = ?, unique_viewers = ?, sketch = ?"
+                + " where post_id = ? and view_date = ?", updates);
+        jdbcTemplate.batchUpdate("insert into post_view_days (post_id, view_date, views, unique_viewers, sketch)"
+                + " values (?, ?, ?, ?, ?)", inserts);
+    }
+
+    // back into the live buffer, on top of whatever arrived since the swap
+    private void restore(Map<ViewKey, Tally> drained) {
+        lock.readLock().lock();
+        try {
+            drained.forEach((key, tally) -> pending.computeIfAbsent(key, k -> new Tally()).absorb(tally));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<List<Long>> chunks(Set<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += batchSize) {
+            chunks.add(all.subList(from, Math.min(all.size(), from + batchSize)));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        return "(" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+    }
+
+    private record ViewKey(long postId, LocalDate day) {
+    }
+
+    private record StoredDay(long views, HyperLogLog sketch) {
+    }
+
+    private static final class Tally {
+        final LongAdder views = new LongAdder();
+        final HyperLogLog viewers = new HyperLogLog();
+
+        void absorb(Tally other) {
+            views.add(other.views.sum());
+            viewers.merge(other.viewers);
+        }
+    }
+}
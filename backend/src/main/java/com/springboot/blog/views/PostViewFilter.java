@@ -0,0 +1,69 @@
+package com.springboot.blog.views;
+
+import com.springboot.blog.security.UserPrincipal;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Counts a view for every successful GET of a single post, 304s included. Ordered ahead of
+ * ResponseCacheFilter so responses served from the cache are counted too. Signed-in viewers are
+ * told apart by user id, anonymous ones by address and user agent.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+public class PostViewFilter extends OncePerRequestFilter {
+
+    private static final Pattern POST_PATH = Pattern.compile("^/api/posts/(\\d{1,18})/?$");
+
+    private final PostViewCounter postViewCounter;
+
+    public PostViewFilter(PostViewCounter postViewCounter) {
+        this.postViewCounter = postViewCounter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod()) || !POST_PATH.matcher(path(request)).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        filterChain.doFilter(request, response);
+
+        int status = response.getStatus();
+        if (status == HttpServletResponse.SC_OK || status == HttpServletResponse.SC_NOT_MODIFIED) {
+            Matcher matcher = POST_PATH.matcher(path(request));
+            if (matcher.matches()) {
+                postViewCounter.record(Long.parseLong(matcher.group(1)), viewer(request));
+            }
+        }
+    }
+
+    private static String viewer(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return "user:" + principal.getId();
+        }
+        return "anon:" + request.getRemoteAddr() + "|" + request.getHeader(HttpHeaders.USER_AGENT);
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
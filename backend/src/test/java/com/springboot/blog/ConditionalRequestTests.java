@@ -0,0 +1,225 @@
+package com.springboot.blog;
+
+import com.springboot.blog.entity.Category;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.security.JwtTokenProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * ETag / Last-Modified handling: unchanged resources answer 304 with no body, writes move the
+ * tag, and a stale If-Match on an update or patch is refused with 412, also when the change it
+ * missed committed after the tag was checked.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConditionalRequestTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Category category;
+    private String token;
+    private String otherToken;
+
+    @BeforeAll
+    void setUp() {
+        category = categoryRepository.findByName("General").orElseThrow();
+
+        User user = new User();
+        user.setName("Conditional");
+        user.setUsername("conditional");
+        user.setEmail("conditional@example.com");
+        user.setPassword("{noop}unused");
+        userRepository.save(user);
+
+        token = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(user.getUsername(), null, List.of()));
+
+        User other = new User();
+        other.setName("Conditional Other");
+        other.setUsername("conditionalother");
+        other.setEmail("conditionalother@example.com");
+        other.setPassword("{noop}unused");
+        userRepository.save(other);
+        otherToken = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(other.getUsername(), null, List.of()));
+    }
+
+    @Test
+    void postDetailRevalidatesUntilACommentChangesIt() throws Exception {
+        long postId = newPost("Conditional detail");
+
+        String etag = etag(get("/api/posts/{id}", postId));
+        mockMvc.perform(get("/api/posts/{id}", postId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        comment(postId, "changes the detail");
+
+        String changed = etag(get("/api/posts/{id}", postId).header(HttpHeaders.IF_NONE_MATCH, etag));
+        assertNotEquals(etag, changed);
+    }
+
+    @Test
+    void commentListAndCategoriesAnswerNotModified() throws Exception {
+        long postId = newPost("Conditional comments");
+        comment(postId, "first");
+
+        String comments = etag(get("/api/posts/{id}/comments", postId));
+        mockMvc.perform(get("/api/posts/{id}/comments", postId).header(HttpHeaders.IF_NONE_MATCH, comments))
+                .andExpect(status().isNotModified());
+
+        String categories = etag(get("/api/v1/categories"));
+        mockMvc.perform(get("/api/v1/categories").header(HttpHeaders.IF_NONE_MATCH, categories))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void updateWithStaleIfMatchIsRejected() throws Exception {
+        long postId = newPost("Conditional update");
+        String etag = etag(get("/api/posts/{id}", postId));
+
+        String updated = mockMvc.perform(put("/api/posts/{id}", postId)
+                        .header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(postJson("Conditional update v2")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // the tag returned by the write is the one a later read serves
+        mockMvc.perform(get("/api/posts/{id}", postId).header(HttpHeaders.IF_NONE_MATCH, updated))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/api/posts/{id}", postId)
+                        .header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(postJson("Conditional update v3")))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void writeCommittedAfterTheTagCheckIsNotOverwritten() throws Exception {
+        long postId = newPost("Conditional race");
+        String etag = etag(get("/api/posts/{id}", postId));
+
+        // another writer commits after the tag was checked: the cached representation still matches it
+        jdbcTemplate.update("update posts set content = ?, updated_at = ? where id = ?",
+                "Concurrent content", LocalDateTime.now().plusSeconds(1), postId);
+
+        mockMvc.perform(put("/api/posts/{id}", postId)
+                        .header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(postJson("Conditional race v2")))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch(postId, token, "{\"content\":\"Patched content\"}").header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals("Concurrent content",
+                jdbcTemplate.queryForObject("select content from posts where id = ?", String.class, postId));
+    }
+
+    @Test
+    void patchChangesOnlyTheFieldsSentAndHonoursIfMatch() throws Exception {
+        long postId = newPost("Conditional patch");
+        String etag = etag(get("/api/posts/{id}", postId));
+
+        mockMvc.perform(patch(postId, token, "{\"title\":\"Conditional patch v2\"}").header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/posts/{id}", postId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Conditional patch v2"))
+                .andExpect(jsonPath("$.description").value("Conditional request description"));
+
+        mockMvc.perform(patch(postId, token, "{\"title\":\"Conditional patch v3\"}").header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch(postId, otherToken, "{\"title\":\"Not yours\"}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(patch(Long.MAX_VALUE, token, "{\"title\":\"Nowhere\"}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(patch(postId, token, "{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MockHttpServletRequestBuilder patch(long postId, String bearer, String json) {
+        return MockMvcRequestBuilders.patch("/api/posts/{id}", postId)
+                .header("Authorization", "Bearer " + bearer)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+    }
+
+    private long newPost(String title) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setDescription("Conditional request description");
+        post.setContent("Conditional request content");
+        post.setUser(userRepository.findByUsername("conditional").orElseThrow());
+        post.setCategory(category);
+        return postRepository.save(post).getId();
+    }
+
+    private void comment(long postId, String body) throws Exception {
+        mockMvc.perform(post("/api/posts/{id}/comments", postId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"body\":\"" + body + "\"}"))
+                .andExpect(status().isCreated());
+    }
+
+    private String postJson(String title) {
+        return "{\"title\":\"" + title + "\",\"description\":\"Conditional request description\","
+                + "\"content\":\"Conditional request content\",\"categoryId\":" + category.getId() + "}";
+    }
+
+    private String etag(RequestBuilder request) throws Exception {
+        String etag = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+}
@@ -0,0 +1,41 @@
+package com.springboot.blog;
+
+import com.springboot.blog.config.BoundedDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The guard hands out as many connections as it has permits, makes the next borrower wait and
+ * then fail, and takes each permit back once however often a connection is closed.
+ */
+class DataSourceGuardTests {
+
+    @Test
+    void borrowersBeyondThePermitsWaitThenFail() throws Exception {
+        BoundedDataSource dataSource = new BoundedDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:guard;DB_CLOSE_DELAY=-1", "sa", ""), 2, Duration.ofMillis(50));
+
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        assertEquals(0, dataSource.availablePermits());
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        first.close();
+        first.close();
+        assertEquals(1, dataSource.availablePermits());
+
+        try (Connection third = dataSource.getConnection()) {
+            assertTrue(third.createStatement().executeQuery("select 1").next());
+        }
+        second.close();
+        assertEquals(2, dataSource.availablePermits());
+    }
+}
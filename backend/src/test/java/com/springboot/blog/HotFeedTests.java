@@ -0,0 +1,153 @@
+package com.springboot.blog;
+
+import com.jayway.jsonpath.JsonPath;
+import com.springboot.blog.entity.Category;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.feed.HotFeed;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.security.JwtTokenProvider;
+import com.springboot.blog.views.PostViewCounter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The hot feed is rebuilt from recent posts, comments, reactions and views, then moves a post to
+ * the top as soon as it is commented on, globally and within its category; reactions and flushed
+ * views warm a post up too.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class HotFeedTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private HotFeed hotFeed;
+    @Autowired
+    private PostViewCounter postViewCounter;
+
+    private final List<Long> postIds = new ArrayList<>();
+    private Category category;
+    private String token;
+
+    @BeforeAll
+    void setUp() {
+        User user = new User();
+        user.setName("Hot Feed");
+        user.setUsername("hotfeed");
+        user.setEmail("hotfeed@example.com");
+        user.setPassword("{noop}unused");
+        userRepository.save(user);
+
+        category = categoryRepository.findByName("Showcase").orElseThrow();
+        for (int i = 0; i < 4; i++) {
+            Post post = new Post();
+            post.setTitle("Hot feed post " + i);
+            post.setDescription("Hot feed description " + i);
+            post.setContent("Hot feed content " + i);
+            post.setUser(user);
+            post.setCategory(category);
+            postIds.add(postRepository.save(post).getId());
+        }
+        hotFeed.rebuild();
+
+        token = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(user.getUsername(), null, List.of()));
+    }
+
+    @Test
+    void commentMovesPostToTheTopAndPagesDoNotRepeat() throws Exception {
+        long oldest = postIds.get(0);
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/posts/{id}/comments", oldest)
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"body\":\"heating up " + i + "\"}"))
+                    .andExpect(status().isCreated());
+        }
+
+        String json = mockMvc.perform(get("/api/posts/hot").param("pageSize", "1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(oldest, ((Number) JsonPath.read(json, "$.content[0].id")).longValue());
+
+        // the category view walks the same ranking page by page
+        Set<Long> seen = new HashSet<>();
+        String after = "";
+        while (after != null) {
+            json = mockMvc.perform(get("/api/posts/hot").param("categoryId", String.valueOf(category.getId()))
+                            .param("pageSize", "2").param("after", after))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<Number> ids = JsonPath.read(json, "$.content[*].id");
+            ids.forEach(id -> assertTrue(seen.add(id.longValue()), "repeated post " + id));
+            after = JsonPath.read(json, "$.nextCursor");
+        }
+        assertTrue(seen.containsAll(postIds));
+    }
+
+    @Test
+    void reactionsAndViewsRankAPostAboveANewerOneAcrossARebuild() throws Exception {
+        long reacted = postIds.get(1);
+        long viewed = postIds.get(2);
+        long newest = postIds.get(3);
+        for (String type : List.of("like", "love")) {
+            mockMvc.perform(put("/api/posts/{id}/reactions/{type}", reacted, type)
+                            .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk());
+        }
+        for (int i = 0; i < 30; i++) {
+            mockMvc.perform(get("/api/posts/{id}", viewed)).andExpect(status().isOk());
+        }
+        postViewCounter.flush();
+        assertWarmerThan(newest, reacted, viewed);
+
+        hotFeed.rebuild();
+        assertWarmerThan(newest, reacted, viewed);
+    }
+
+    @Test
+    void malformedCursorIsRejected() throws Exception {
+        mockMvc.perform(get("/api/posts/hot").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void assertWarmerThan(long colder, long... warmer) {
+        List<Long> ranked = hotFeed.page(category.getId(), null, 100).entries().stream()
+                .map(HotFeed.Entry::getPostId).toList();
+        for (long id : warmer) {
+            assertTrue(ranked.contains(id) && ranked.indexOf(id) < ranked.indexOf(colder), "post " + id + " in " + ranked);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.springboot.blog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.springboot.blog.cache.PostCache;
+import com.springboot.blog.cache.ResponseCache;
+import com.springboot.blog.config.CategoryPreset;
+import com.springboot.blog.config.CategoryRegistry;
+import com.springboot.blog.config.RoleRegistry;
+import com.springboot.blog.entity.Comment;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.feed.HotFeed;
+import com.springboot.blog.importer.NdjsonImporter;
+import com.springboot.blog.job.PostStatsRepairJob;
+import com.springboot.blog.payload.ImportReport;
+import com.springboot.blog.repository.CommentRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.search.PostSearchIndex;
+import com.springboot.blog.search.Suggester;
+import com.springboot.blog.security.JwtTokenProvider;
+import com.springboot.blog.security.UserPrincipal;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * An NDJSON export lands with its references rewritten to the new ids, bad lines are reported
+ * rather than fatal, rows never merge into the site's own by name, and a rerun from the last
+ * committed line neither duplicates nor loses rows.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ImportTests {
+
+    private static final String PASSWORD = new BCryptPasswordEncoder(4).encode("imported-secret");
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private CategoryRegistry categoryRegistry;
+    @Autowired
+    private RoleRegistry roleRegistry;
+    @Autowired
+    private PostStatsRepairJob postStatsRepairJob;
+    @Autowired
+    private PostCache postCache;
+    @Autowired
+    private ResponseCache responseCache;
+    @Autowired
+    private HotFeed hotFeed;
+    @Autowired
+    private Suggester suggester;
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Test
+    void importsThroughTheAdminEndpointAndRewritesReferences() throws Exception {
+        String export = String.join("\n",
+                user(101, "imp-ada"),
+                user(102, "imp-bob"),
+                "{\"type\":\"post\",\"id\":201,\"userId\":101,\"title\":\"Imported analytical engines\","
+                        + "\"description\":\"From the old forum\",\"content\":\"Notes.\",\"createdAt\":\"2019-05-01T10:00:00Z\"}",
+                comment(301, 201, 102, "2019-05-02T08:30:00Z"),
+                comment(302, 201, 101, "2019-05-03T09:15:00Z"),
+                "not json at all",
+                comment(303, 999, 101, "2019-05-04T00:00:00Z"),
+                "");
+
+        UserPrincipal admin = new UserPrincipal(1L, "importadmin", "Import Admin", "",
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        String token = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities()));
+        String json = mockMvc.perform(post("/api/admin/import")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType("application/x-ndjson")
+                        .content(export))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(2, (Integer) JsonPath.read(json, "$.usersImported"));
+        assertEquals(1, (Integer) JsonPath.read(json, "$.postsImported"));
+        assertEquals(2, (Integer) JsonPath.read(json, "$.commentsImported"));
+        assertEquals(2, (Integer) JsonPath.read(json, "$.rejected"));
+        assertEquals(List.of("line 6: not a JSON object", "line 7: unknown post 999"), JsonPath.read(json, "$.errors"));
+
+        Post post = postRepository.findById(postId("Imported analytical engines")).orElseThrow();
+        long adaId = userRepository.findByUsername("imp-ada").orElseThrow().getId();
+        long bobId = userRepository.findByUsername("imp-bob").orElseThrow().getId();
+        assertEquals(adaId, jdbcTemplate.queryForObject(
+                "select user_id from posts where id = ?", Long.class, post.getId()));
+
+        List<Comment> comments = commentRepository.findByPostId(post.getId());
+        assertEquals(2, comments.size());
+        assertTrue(comments.stream().anyMatch(comment -> comment.getUser().getId() == bobId
+                && comment.getCreatedAt().equals(Instant.parse("2019-05-02T08:30:00Z"))));
+
+        // the stats repair ran afterwards, and the imported hash logs in as is
+        assertEquals(2, post.getCommentCount());
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType("application/json")
+                        .content("{\"usernameOrEmail\":\"imp-ada\",\"password\":\"imported-secret\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void rerunFromLastCommittedLineResumesWithoutDuplicates() {
+        // batches of two in chunks of three lines, so the run spans several transactions
+        NdjsonImporter importer = importer(2, 3);
+        String[] lines = {
+                user(1, "resume-one"),
+                user(2, "resume-two"),
+                user(2, "resume-two"),
+                "{\"type\":\"post\",\"id\":10,\"userId\":1,\"title\":\"Resumed import post\","
+                        + "\"description\":\"Spans chunks\",\"content\":\"Body.\"}",
+                comment(20, 10, 2, "2020-01-01T00:00:00Z"),
+                comment(21, 10, 1, "2020-01-02T00:00:00Z"),
+                comment(22, 10, 2, "2020-01-03T00:00:00Z"),
+                comment(23, 10, 1, "2020-01-04T00:00:00Z"),
+        };
+
+        // the first run dies after six lines: three lines per commit, so all six are committed
+        ImportReport first = importer.importFrom(ndjson(Arrays.copyOf(lines, 6)), 0);
+        assertEquals(6, first.getLastCommittedLine());
+        assertEquals(2, first.getUsersImported());
+        assertEquals(1, first.getExisting());
+
+        ImportReport second = importer.importFrom(ndjson(lines), first.getLastCommittedLine());
+        assertEquals(0, second.getUsersImported());
+        assertEquals(0, second.getPostsImported());
+        assertEquals(2, second.getCommentsImported());
+        assertEquals(4, second.getExisting());
+        assertEquals(8, second.getLastCommittedLine());
+
+        long postId = postId("Resumed import post");
+        assertEquals(4, commentRepository.findByPostId(postId).size());
+        assertEquals(4, postRepository.findById(postId).orElseThrow().getCommentCount());
+    }
+
+    @Test
+    void rowsAreMatchedByLegacyIdOnlyAndClashesAreRejected() {
+        String password = new BCryptPasswordEncoder(4).encode("site-secret");
+        jdbcTemplate.update("insert into users (name, username, email, password) values (?, ?, ?, ?)",
+                "Site account", "clash-site", "clash-site@example.com", password);
+        long categoryId = categoryRegistry.findByName(CategoryPreset.DEFAULT_CATEGORY_NAME).orElseThrow().getId();
+        jdbcTemplate.update("insert into posts (title, description, content, created_at, updated_at, last_activity_at,"
+                        + " comment_count, category_id) values (?, ?, ?, current_timestamp, current_timestamp,"
+                        + " current_timestamp, 0, ?)",
+                "Clash site post", "Written on the site", "Body.", categoryId);
+
+        ImportReport report = importer(500, 5000).importFrom(ndjson(
+                user(401, "clash-site", "clash-other@example.com"),
+                user(402, "clash-new", "clash-site@example.com"),
+                user(403, "clash-ok", "clash-ok@example.com"),
+                user(404, "clash-ok-again", "clash-ok@example.com"),
+                postLine(501, 403, "Clash site post"),
+                postLine(502, 403, "Clash shared title"),
+                postLine(503, 403, "Clash shared title"),
+                comment(601, 501, 403, "2021-01-01T00:00:00Z"),
+                comment(602, 502, 403, "2021-01-02T00:00:00Z")), 0);
+
+        assertEquals(1, report.getUsersImported());
+        assertEquals(1, report.getPostsImported());
+        assertEquals(1, report.getCommentsImported());
+        assertEquals(0, report.getExisting());
+        assertEquals(List.of(
+                "line 1: username clash-site already in use",
+                "line 2: email clash-site@example.com already in use",
+                "line 4: email clash-ok@example.com already in use",
+                "line 5: title Clash site post already in use",
+                "line 7: title Clash shared title already in use",
+                "line 8: unknown post 501"), report.getErrors());
+
+        // the site's own rows are untouched
+        assertEquals("Site account", userRepository.findByUsername("clash-site").orElseThrow().getName());
+        long sitePostId = postId("Clash site post");
+        assertEquals(0, commentRepository.findByPostId(sitePostId).size());
+        assertEquals(1, commentRepository.findByPostId(postId("Clash shared title")).size());
+    }
+
+    private NdjsonImporter importer(int batchSize, int chunkSize) {
+        return new NdjsonImporter(jdbcTemplate, transactionTemplate, objectMapper,
+                categoryRegistry, roleRegistry, postStatsRepairJob, postCache, responseCache,
+                hotFeed, suggester, postSearchIndex, batchSize, chunkSize);
+    }
+
+    private long postId(String title) {
+        return jdbcTemplate.queryForObject("select id from posts where title = ?", Long.class, title);
+    }
+
+    private static String user(long id, String username) {
+        return user(id, username, username + "@example.com");
+    }
+
+    private static String user(long id, String username, String email) {
+        return "{\"type\":\"user\",\"id\":" + id + ",\"username\":\"" + username + "\",\"email\":\""
+                + email + "\",\"name\":\"Imported " + username + "\",\"password\":\"" + PASSWORD + "\"}";
+    }
+
+    private static String postLine(long id, long userId, String title) {
+        return "{\"type\":\"post\",\"id\":" + id + ",\"userId\":" + userId + ",\"title\":\"" + title
+                + "\",\"description\":\"From the old forum\",\"content\":\"Body.\"}";
+    }
+
+    private static String comment(long id, long postId, long userId, String createdAt) {
+        return "{\"type\":\"comment\",\"id\":" + id + ",\"postId\":" + postId + ",\"userId\":" + userId
+                + ",\"body\":\"Imported comment " + id + "\",\"createdAt\":\"" + createdAt + "\"}";
+    }
+
+    private static ByteArrayInputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
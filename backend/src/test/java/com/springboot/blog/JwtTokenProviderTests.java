@@ -0,0 +1,60 @@
+package com.springboot.blog;
+
+import com.springboot.blog.exception.BlogAPIException;
+import com.springboot.blog.security.JwtTokenProvider;
+import com.springboot.blog.security.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A verified token is parsed once and then served from the cache, but never past its own expiry.
+ */
+class JwtTokenProviderTests {
+
+    private static final String SECRET = "daf66e01593f61a15b857cf433aae03a005812b31234e149036bcc8dee755dbb";
+
+    @Test
+    void claimsAreCachedAndCarryThePrincipal() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 100, Duration.ofMinutes(5));
+        String token = provider.generateToken(authentication());
+
+        Claims claims = provider.verify(token);
+        assertSame(claims, provider.verify(token));
+
+        UserPrincipal principal = provider.getPrincipal(claims);
+        assertEquals(7L, principal.getId());
+        assertEquals("cached", principal.getUsername());
+        assertEquals("ROLE_ADMIN", principal.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    void cachedTokenStillExpires() throws Exception {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 1_500, 100, Duration.ofMinutes(5));
+        String token = provider.generateToken(authentication());
+        provider.verify(token);
+
+        Thread.sleep(2_000);
+        assertThrows(BlogAPIException.class, () -> provider.verify(token));
+    }
+
+    @Test
+    void malformedTokenIsRejected() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 100, Duration.ofMinutes(5));
+        assertThrows(BlogAPIException.class, () -> provider.verify("not.a.token"));
+    }
+
+    private static UsernamePasswordAuthenticationToken authentication() {
+        UserPrincipal principal = new UserPrincipal(7L, "cached", "Cached User", "",
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+}
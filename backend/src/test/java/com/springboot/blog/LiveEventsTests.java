@@ -0,0 +1,176 @@
+package com.springboot.blog;
+
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.event.ChangeType;
+import com.springboot.blog.event.PostChangedEvent;
+import com.springboot.blog.live.LiveEventHub;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.security.JwtTokenProvider;
+import com.springboot.blog.security.UserPrincipal;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comment and post changes reach open streams of their post and category, and a reconnect with
+ * Last-Event-ID gets only what it missed, or a reset when that is no longer buffered.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LiveEventsTests {
+
+    private static final Pattern CREATED_ID = Pattern.compile("id:(\\d+)\nevent:comment\\.created\n");
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private LiveEventHub liveEventHub;
+
+    private User author;
+    private String token;
+
+    @BeforeAll
+    void setUp() {
+        author = new User();
+        author.setName("Live Author");
+        author.setUsername("liveauthor");
+        author.setEmail("liveauthor@example.com");
+        author.setPassword("{noop}unused");
+        userRepository.save(author);
+        UserPrincipal principal = new UserPrincipal(author.getId(), author.getUsername(), author.getName(), "", List.of());
+        token = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @Test
+    void changesReachOpenStreams() throws Exception {
+        Post post = savePost("Live post");
+        long categoryId = post.getCategory().getId();
+        MockHttpServletResponse postStream = open(get("/api/posts/{id}/events", post.getId()));
+        MockHttpServletResponse categoryStream = open(get("/api/v1/categories/{id}/events", categoryId));
+
+        comment(post.getId(), "first live comment");
+        await(postStream, "event:comment.created");
+        assertTrue(postStream.getContentAsString().contains("first live comment"));
+
+        mockMvc.perform(put("/api/posts/{id}", post.getId())
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Live post renamed\",\"description\":\"Live description\","
+                                + "\"content\":\"Live content\",\"categoryId\":" + categoryId + "}"))
+                .andExpect(status().isOk());
+        await(postStream, "event:post.updated");
+        await(categoryStream, "Live post renamed");
+        assertFalse(categoryStream.getContentAsString().contains("event:comment."));
+
+        mockMvc.perform(get("/api/posts/{id}/events", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void reconnectResumesAfterLastEventId() throws Exception {
+        Post post = savePost("Resumed post");
+        MockHttpServletResponse stream = open(get("/api/posts/{id}/events", post.getId()));
+        comment(post.getId(), "seen before the drop");
+        await(stream, "seen before the drop");
+        Matcher matcher = CREATED_ID.matcher(stream.getContentAsString());
+        assertTrue(matcher.find());
+        String lastEventId = matcher.group(1);
+
+        comment(post.getId(), "missed during the drop");
+        MockHttpServletResponse resumed = open(get("/api/posts/{id}/events", post.getId())
+                .header("Last-Event-ID", lastEventId));
+        await(resumed, "missed during the drop");
+        assertFalse(resumed.getContentAsString().contains("seen before the drop"));
+
+        MockHttpServletResponse stale = open(get("/api/posts/{id}/events", post.getId()).header("Last-Event-ID", "1"));
+        await(stale, "event:reset");
+    }
+
+    @Test
+    void resumeFromFurtherBackThanTheQueueHoldsGetsAReset() throws Exception {
+        Post post = savePost("Far behind post");
+        MockHttpServletResponse stream = open(get("/api/posts/{id}/events", post.getId()));
+        comment(post.getId(), "last one seen");
+        await(stream, "last one seen");
+        Matcher matcher = CREATED_ID.matcher(stream.getContentAsString());
+        assertTrue(matcher.find());
+        String lastEventId = matcher.group(1);
+
+        // still buffered for the topic, but more than a subscriber's queue of 64
+        for (int i = 0; i < 100; i++) {
+            liveEventHub.onPostChanged(new PostChangedEvent(ChangeType.UPDATED, post.getId(), null, null, "Edit " + i));
+        }
+        MockHttpServletResponse resumed = open(get("/api/posts/{id}/events", post.getId())
+                .header("Last-Event-ID", lastEventId));
+        await(resumed, "event:reset");
+        assertFalse(resumed.getContentAsString().contains("event:post.updated"));
+    }
+
+    private MockHttpServletResponse open(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request.accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+    }
+
+    // events are written by the sender threads, after the request that caused them has returned
+    private void await(MockHttpServletResponse stream, String text) throws Exception {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!stream.getContentAsString().contains(text)) {
+            if (System.nanoTime() > deadline) {
+                fail("no \"" + text + "\" in " + stream.getContentAsString());
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private void comment(long postId, String body) throws Exception {
+        mockMvc.perform(post("/api/posts/{id}/comments", postId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"body\":\"" + body + "\"}"))
+                .andExpect(status().isCreated());
+    }
+
+    private Post savePost(String title) {
+        Post post = new Post();
+        post.setTitle(title + " " + System.nanoTime());
+        post.setDescription("Live description");
+        post.setContent("Live content");
+        post.setUser(author);
+        post.setCategory(categoryRepository.findByName("General").orElseThrow());
+        return postRepository.save(post);
+    }
+}
@@ -0,0 +1,78 @@
+package com.springboot.blog;
+
+import com.jayway.jsonpath.JsonPath;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Login answers from one user fetch, refuses an account after repeated failures and rehashes a
+ * password made with a lower cost than the configured one.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class LoginTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void loginRehashesWeakerPasswordAndIssuesAWorkingToken() throws Exception {
+        save("rehashme", new BCryptPasswordEncoder(4).encode("correct-horse"));
+
+        String json = login("rehashme", "correct-horse", "10.0.0.1")
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("rehashme@example.com", JsonPath.read(json, "$.email"));
+        assertTrue(userRepository.findByUsername("rehashme").orElseThrow().getPassword().startsWith("$2a$10$"));
+
+        mockMvc.perform(get("/api/users/me").header("Authorization", "Bearer " + JsonPath.read(json, "$.accessToken")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void repeatedFailuresLockTheAccountOut() throws Exception {
+        save("lockme", new BCryptPasswordEncoder().encode("right-password"));
+
+        for (int i = 0; i < 5; i++) {
+            login("lockme", "wrong-password", "10.0.0.2").andExpect(status().isUnauthorized());
+        }
+        // even the right password waits out the window, from any address
+        login("lockme", "right-password", "10.0.0.3").andExpect(status().isTooManyRequests());
+        login("nobody-here", "whatever", "10.0.0.3").andExpect(status().isUnauthorized());
+    }
+
+    private void save(String username, String encodedPassword) {
+        User user = new User();
+        user.setName("Login " + username);
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword(encodedPassword);
+        userRepository.save(user);
+    }
+
+    private ResultActions login(String usernameOrEmail, String password, String address) throws Exception {
+        return mockMvc.perform(post("/api/auth/login")
+                .with(request -> {
+                    request.setRemoteAddr(address);
+                    return request;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"usernameOrEmail\":\"" + usernameOrEmail + "\",\"password\":\"" + password + "\"}"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.springboot.blog;
+
+import com.springboot.blog.security.JwtTokenProvider;
+import com.springboot.blog.security.UserPrincipal;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * On a separate management port the scraper gets Prometheus text without a token, the other
+ * endpoints want an admin one, and unknown paths are plain 404s. Runs on real servers, with a
+ * database of its own so the shared test context's is left alone.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.server.port=0",
+        "management.endpoints.web.exposure.include=health,info,metrics,prometheus",
+        "spring.datasource.url=jdbc:h2:mem:management;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureObservability(tracing = false)
+@DirtiesContext
+class ManagementPortTests {
+
+    @LocalManagementPort
+    private int managementPort;
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Test
+    void prometheusIsOpenAndTheRestNeedsAnAdmin() {
+        ResponseEntity<String> scrape = get("/actuator/prometheus", null);
+        assertEquals(HttpStatus.OK, scrape.getStatusCode());
+        assertTrue(scrape.getHeaders().getContentType().toString().startsWith("text/plain"));
+        assertTrue(scrape.getBody().contains("# TYPE app_live_subscribers gauge"));
+
+        assertEquals(HttpStatus.OK, get("/actuator/health", null).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, get("/actuator/metrics", null).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, get("/nope", null).getStatusCode());
+
+        UserPrincipal admin = new UserPrincipal(1L, "metricsadmin", "Metrics Admin", "",
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        String token = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities()));
+        assertEquals(HttpStatus.OK, get("/actuator/metrics", token).getStatusCode());
+    }
+
+    private ResponseEntity<String> get(String path, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        if (token != null) {
+            headers.setBearerAuth(token);
+        }
+        return restTemplate.exchange("http://localhost:" + managementPort + path, HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+    }
+}
@@ -0,0 +1,127 @@
+package com.springboot.blog;
+
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.security.JwtTokenProvider;
+import com.springboot.blog.security.UserPrincipal;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Requests are measured per endpoint, response-cache hits included; token and password checks are
+ * timed; the caches, the pool and Hibernate are exported.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MetricsTests {
+
+    private static final String[] POST_DETAIL = {"method", "GET", "uri", "/api/posts/{id}", "status", "200"};
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Test
+    void requestsAreMeasuredPerEndpoint() throws Exception {
+        User author = saveUser("metricsauthor");
+        Post post = new Post();
+        post.setTitle("Measured post");
+        post.setDescription("Metrics description");
+        post.setContent("Metrics content");
+        post.setUser(author);
+        post.setCategory(categoryRepository.findByName("General").orElseThrow());
+        postRepository.save(post);
+
+        long requests = summaries("app.request.response.size", POST_DETAIL).stream().mapToLong(DistributionSummary::count).sum();
+        double bytes = summaries("app.request.response.size", POST_DETAIL).stream().mapToDouble(DistributionSummary::totalAmount).sum();
+        double statements = summaries("app.request.db.statements", POST_DETAIL).stream().mapToDouble(DistributionSummary::totalAmount).sum();
+
+        // the first one loads the post, the second is answered by the response cache
+        mockMvc.perform(get("/api/posts/{id}", post.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/posts/{id}", post.getId())).andExpect(status().isOk());
+
+        assertEquals(requests + 2, summaries("app.request.response.size", POST_DETAIL).stream().mapToLong(DistributionSummary::count).sum());
+        assertTrue(summaries("app.request.response.size", POST_DETAIL).stream().mapToDouble(DistributionSummary::totalAmount).sum() > bytes);
+        assertTrue(summaries("app.request.db.statements", POST_DETAIL).stream().mapToDouble(DistributionSummary::totalAmount).sum() > statements);
+        assertFalse(summaries("app.request.db.entity.loads", POST_DETAIL).isEmpty());
+    }
+
+    @Test
+    void tokenAndPasswordChecksAreTimed() throws Exception {
+        User user = saveUser("metricsreader");
+        long invalidLogins = timerCount("app.auth.login", "outcome", "invalid");
+        long hashes = timerCount("app.auth.bcrypt", "operation", "matches");
+        long tokenChecks = timerCount("app.auth.jwt", "outcome", "claims");
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usernameOrEmail\":\"metricsreader\",\"password\":\"wrong-password\"}"))
+                .andExpect(status().isUnauthorized());
+        UserPrincipal principal = new UserPrincipal(user.getId(), user.getUsername(), user.getName(), "", List.of());
+        String token = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        mockMvc.perform(get("/api/users/me").header("Authorization", "Bearer " + token)).andExpect(status().isOk());
+
+        assertEquals(invalidLogins + 1, timerCount("app.auth.login", "outcome", "invalid"));
+        assertEquals(hashes + 1, timerCount("app.auth.bcrypt", "operation", "matches"));
+        assertEquals(tokenChecks + 1, timerCount("app.auth.jwt", "outcome", "claims"));
+    }
+
+    @Test
+    void cachesPoolAndHibernateAreExported() throws Exception {
+        for (String cache : List.of("posts", "responses", "jwt-verified")) {
+            assertFalse(meterRegistry.find("cache.gets").tag("cache", cache).meters().isEmpty(), cache);
+        }
+        assertFalse(meterRegistry.find("hikaricp.connections.active").gauges().isEmpty());
+        assertFalse(meterRegistry.find("hibernate.statements").meters().isEmpty());
+        assertFalse(meterRegistry.find("executor.queued").tag("name", "password-hasher").gauges().isEmpty());
+
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    private List<DistributionSummary> summaries(String name, String... tags) {
+        return List.copyOf(meterRegistry.find(name).tags(tags).summaries());
+    }
+
+    private long timerCount(String name, String... tags) {
+        return meterRegistry.find(name).tags(tags).timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    private User saveUser(String username) {
+        User user = new User();
+        user.setName("Metrics " + username);
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("{noop}unused");
+        return userRepository.save(user);
+    }
+}
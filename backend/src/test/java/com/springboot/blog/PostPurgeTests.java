@@ -0,0 +1,196 @@
+package com.springboot.blog;
+
+import com.jayway.jsonpath.JsonPath;
+import com.springboot.blog.entity.Comment;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.job.PostPurgeJob;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.CommentRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.security.JwtTokenProvider;
+import com.springboot.blog.security.UserPrincipal;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Deleting a post hides it at once, its comments with it, without touching the comment rows; the
+ * purge job then removes the comments' reactions and the comments in chunks, and the post row last.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PostPurgeTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private PostPurgeJob postPurgeJob;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User author;
+    private String token;
+
+    @BeforeAll
+    void setUp() {
+        author = new User();
+        author.setName("Purge Author");
+        author.setUsername("purgeauthor");
+        author.setEmail("purgeauthor@example.com");
+        author.setPassword("{noop}unused");
+        userRepository.save(author);
+        token = token(new UserPrincipal(author.getId(), author.getUsername(), author.getName(), "", List.of()));
+    }
+
+    @Test
+    void deleteHidesThePostAtOnceAndThePurgeRemovesItsRows() throws Exception {
+        long postId = savePost("Purged through the API", 5);
+
+        mockMvc.perform(delete("/api/posts/{id}", postId).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/posts/{id}", postId)).andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/posts/{id}", postId).header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/posts/{id}/comments", postId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"body\":\"too late\"}"))
+                .andExpect(status().isNotFound());
+
+        // the delete started a purge in the background; wait for it rather than race it
+        while (postPurgeJob.purgeAll() < 0) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, rows("select count(*) from comments where post_id = ?", postId));
+        assertEquals(0, rows("select count(*) from posts where id = ?", postId));
+
+        String admin = token(new UserPrincipal(1L, "purgeadmin", "Purge Admin", "",
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+        String json = mockMvc.perform(get("/api/admin/jobs/post-purge").header("Authorization", "Bearer " + admin))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(0, (Integer) JsonPath.read(json, "$.pendingPosts"));
+        assertTrue((Integer) JsonPath.read(json, "$.commentsPurged") >= 5);
+    }
+
+    @Test
+    void largeThreadIsPurgedInChunks() {
+        long postId = savePost("Purged in chunks", 25);
+        // hidden without the event, so the application's own job does not start on it
+        transactionTemplate.executeWithoutResult(status -> postRepository.softDelete(postId, LocalDateTime.now()));
+        assertTrue(postRepository.findById(postId).isEmpty());
+        assertEquals(25, rows("select count(*) from comments where post_id = ?", postId));
+        List<Long> commentIds = jdbcTemplate.queryForList("select id from comments where post_id = ? order by id",
+                Long.class, postId);
+        for (long commentId : commentIds) {
+            jdbcTemplate.update("insert into reactions (user_id, target_type, target_id, reaction_type, created_at)"
+                    + " values (?, 'COMMENT', ?, 'LIKE', current_timestamp)", author.getId(), commentId);
+            jdbcTemplate.update("insert into reaction_counts (target_type, target_id, reaction_type, reaction_count)"
+                    + " values ('COMMENT', ?, 'LIKE', 1)", commentId);
+        }
+
+        // three DELETE ... LIMIT 10 statements each for the reactions, their counts and the comments
+        PostPurgeJob job = new PostPurgeJob(jdbcTemplate, 10);
+        assertTrue(job.purgeAll() >= 1);
+        assertEquals(0, rows("select count(*) from comments where post_id = ?", postId));
+        for (String table : List.of("reactions", "reaction_counts")) {
+            assertEquals(0, jdbcTemplate.queryForObject("select count(*) from " + table
+                            + " where target_type = 'COMMENT' and target_id between ? and ?", Long.class,
+                    commentIds.get(0), commentIds.get(commentIds.size() - 1)));
+        }
+        assertEquals(0, rows("select count(*) from posts where id = ?", postId));
+        assertTrue(job.status().getCommentsPurged() >= 25);
+    }
+
+    @Test
+    void commentsOfADeletedPostAreGoneWithIt() throws Exception {
+        long postId = savePost("Deleted with its comments", 1);
+        long commentId = jdbcTemplate.queryForObject("select id from comments where post_id = ?", Long.class, postId);
+        // hidden without the event, so the comment rows stay for the whole test
+        transactionTemplate.executeWithoutResult(status -> postRepository.softDelete(postId, LocalDateTime.now()));
+
+        mockMvc.perform(put("/api/posts/{postId}/comments/{id}", postId, commentId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"body\":\"edited after the delete\"}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(patch("/api/posts/{postId}/comments/{id}", postId, commentId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"body\":\"patched after the delete\"}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(put("/api/posts/{postId}/comments/{id}/reactions/like", postId, commentId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/posts/{postId}/comments/{id}", postId, commentId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotFound());
+
+        assertEquals("Purge comment 0",
+                jdbcTemplate.queryForObject("select body from comments where id = ?", String.class, commentId));
+    }
+
+    private long savePost(String title, int comments) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setDescription("Purge description");
+        post.setContent("Purge content");
+        post.setUser(author);
+        post.setCategory(categoryRepository.findByName("General").orElseThrow());
+        postRepository.save(post);
+        for (int i = 0; i < comments; i++) {
+            Comment comment = new Comment();
+            comment.setBody("Purge comment " + i);
+            comment.setPost(post);
+            comment.setUser(author);
+            commentRepository.save(comment);
+        }
+        return post.getId();
+    }
+
+    private long rows(String sql, long id) {
+        return jdbcTemplate.queryForObject(sql, Long.class, id);
+    }
+
+    private String token(UserPrincipal principal) {
+        return jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
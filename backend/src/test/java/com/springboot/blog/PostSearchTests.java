@@ -0,0 +1,198 @@
+package com.springboot.blog;
+
+import com.jayway.jsonpath.JsonPath;
+import com.springboot.blog.cache.ResponseCache;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.event.ChangeType;
+import com.springboot.blog.event.PostChangedEvent;
+import com.springboot.blog.payload.PostSearchHit;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.CommentRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.search.PostSearchIndex;
+import com.springboot.blog.security.JwtTokenProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Posts written straight to the tables become searchable after a rebuild; writes through the API
+ * are picked up incrementally, one comment at a time, and deletes take the post's comments along.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PostSearchTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ResponseCache responseCache;
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+
+    private long titleMatchId;
+    private long contentMatchId;
+    private String token;
+
+    @BeforeAll
+    void setUp() throws Exception {
+        User user = new User();
+        user.setName("Search Author");
+        user.setUsername("searchauthor");
+        user.setEmail("searchauthor@example.com");
+        user.setPassword("{noop}unused");
+        userRepository.save(user);
+
+        titleMatchId = save(user, "Tuning the zeppelin engine", "All about zeppelin maintenance", "Checklists and tools.");
+        contentMatchId = save(user, "Weekend notes", "Assorted notes", "We finally saw a zeppelin over the harbour.");
+        postSearchIndex.rebuild().get();
+
+        token = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(user.getUsername(), null, List.of()));
+    }
+
+    @Test
+    void rankedByFieldWeightWithHighlights() throws Exception {
+        String json = search("zeppelin");
+        assertEquals(List.of(titleMatchId, contentMatchId), ids(json));
+        assertEquals("Tuning the <mark>zeppelin</mark> engine", JsonPath.read(json, "$.content[0].highlights.title"));
+    }
+
+    @Test
+    void writesThroughTheApiAreIndexedIncrementally() throws Exception {
+        String created = mockMvc.perform(post("/api/posts")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Harbour walk\",\"description\":\"A walk by the harbour\","
+                                + "\"content\":\"Boats and gulls.\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long postId = ((Number) JsonPath.read(created, "$.id")).longValue();
+
+        long commentId = comment(postId, "Mine was a quokka sighting");
+        comment(postId, "Saw a wombat instead");
+        postSearchIndex.awaitIdle();
+        String json = search("quokka");
+        assertEquals(List.of(postId), ids(json));
+        assertEquals("Mine was a <mark>quokka</mark> sighting", JsonPath.read(json, "$.content[0].highlights.comments"));
+
+        mockMvc.perform(put("/api/posts/{postId}/comments/{id}", postId, commentId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"body\":\"Nothing seen after all\"}"))
+                .andExpect(status().isOk());
+        postSearchIndex.awaitIdle();
+        assertTrue(ids(search("quokka")).isEmpty());
+        assertEquals(List.of(postId), ids(search("wombat")));
+
+        mockMvc.perform(delete("/api/posts/{id}", postId).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        postSearchIndex.awaitIdle();
+        assertTrue(ids(search("wombat")).isEmpty());
+    }
+
+    @Test
+    void failedRebuildLeavesTheOldIndexSearchable(@TempDir Path indexDir) throws Exception {
+        AtomicBoolean failing = new AtomicBoolean();
+        PostRepository posts = (PostRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {PostRepository.class}, (proxy, method, args) -> {
+                    if (failing.get() && method.getName().equals("findBatchAfter")) {
+                        throw new IllegalStateException("database went away");
+                    }
+                    try {
+                        return method.invoke(postRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        PostSearchIndex index = new PostSearchIndex(posts, commentRepository, responseCache, indexDir, 500, 1);
+        try {
+            index.rebuild().get();
+            assertEquals(List.of(titleMatchId, contentMatchId), ids(index));
+
+            failing.set(true);
+            index.rebuild().get();
+            // the next incremental write refreshes the searchers over whatever the writer holds
+            index.onPostChanged(new PostChangedEvent(ChangeType.UPDATED, contentMatchId, null, null, null));
+            index.awaitIdle();
+            assertEquals(List.of(titleMatchId, contentMatchId), ids(index));
+        } finally {
+            index.destroy();
+        }
+    }
+
+    @Test
+    void blankQueryIsRejected() throws Exception {
+        mockMvc.perform(get("/api/posts/search").param("q", " ")).andExpect(status().isBadRequest());
+    }
+
+    private long save(User user, String title, String description, String content) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setDescription(description);
+        post.setContent(content);
+        post.setUser(user);
+        post.setCategory(categoryRepository.findByName("General").orElseThrow());
+        return postRepository.save(post).getId();
+    }
+
+    private long comment(long postId, String body) throws Exception {
+        String created = mockMvc.perform(post("/api/posts/{id}/comments", postId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"body\":\"" + body + "\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return ((Number) JsonPath.read(created, "$.id")).longValue();
+    }
+
+    private String search(String query) throws Exception {
+        return mockMvc.perform(get("/api/posts/search").param("q", query).param("author", "searchauthor"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private static List<Long> ids(PostSearchIndex index) {
+        return index.search("zeppelin", null, "searchauthor", 0, 10).getContent().stream()
+                .map(PostSearchHit::getId).toList();
+    }
+
+    private static List<Long> ids(String json) {
+        List<Number> ids = JsonPath.read(json, "$.content[*].id");
+        return ids.stream().map(Number::longValue).toList();
+    }
+}
@@ -0,0 +1,127 @@
+package com.springboot.blog;
+
+import com.jayway.jsonpath.JsonPath;
+import com.springboot.blog.entity.Comment;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.job.PostStatsRepairJob;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.CommentRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.security.JwtTokenProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comments written behind the service's back leave the denormalized post stats stale until the
+ * repair job recomputes them; after that the lastActivity listing follows the newest comment.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PostStatsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private PostStatsRepairJob postStatsRepairJob;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> postIds = new ArrayList<>();
+    private String token;
+
+    @BeforeAll
+    void setUp() {
+        User user = new User();
+        user.setName("Post Stats");
+        user.setUsername("poststats");
+        user.setEmail("poststats@example.com");
+        user.setPassword("{noop}unused");
+        userRepository.save(user);
+
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Post post = new Post();
+            post.setTitle("Post stats " + i);
+            post.setDescription("Post stats description " + i);
+            post.setContent("Post stats content " + i);
+            post.setUser(user);
+            post.setCategory(categoryRepository.findByName("General").orElseThrow());
+            posts.add(postRepository.save(post));
+            postIds.add(post.getId());
+        }
+
+        // backdate the posts an hour apart, oldest first, and push the newest one's activity back a day
+        for (int i = 0; i < postIds.size(); i++) {
+            jdbcTemplate.update("update posts set created_at = dateadd('HOUR', ?, created_at) where id = ?",
+                    i - postIds.size(), postIds.get(i));
+        }
+        jdbcTemplate.update("update posts set last_activity_at = created_at where id in (?, ?)", postIds.get(0), postIds.get(1));
+        jdbcTemplate.update("update posts set last_activity_at = dateadd('DAY', -1, created_at) where id = ?", postIds.get(2));
+
+        // the oldest post gets the newest comments
+        for (int c = 0; c < 2; c++) {
+            Comment comment = new Comment();
+            comment.setBody("Late comment " + c);
+            comment.setPost(posts.get(0));
+            comment.setUser(user);
+            commentRepository.save(comment);
+        }
+
+        token = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(user.getUsername(), null, List.of()));
+    }
+
+    @Test
+    void repairRecomputesCountsAndActivityOrder() throws Exception {
+        assertTrue(postStatsRepairJob.repairAll() >= 1);
+        assertEquals(0, postStatsRepairJob.repairAll());
+
+        String json = mockMvc.perform(get("/api/posts/{id}", postIds.get(0)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(2, ((Number) JsonPath.read(json, "$.commentCount")).intValue());
+
+        // page through the author's posts one at a time so every step after the first goes through the cursor
+        List<Long> seen = new ArrayList<>();
+        String after = "";
+        while (after != null) {
+            json = mockMvc.perform(get("/api/users/me/posts/cursor").param("sortBy", "lastActivity")
+                            .header("Authorization", "Bearer " + token)
+                            .param("pageSize", "1").param("after", after))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            seen.add(((Number) JsonPath.read(json, "$.content[0].id")).longValue());
+            after = JsonPath.read(json, "$.nextCursor");
+        }
+
+        assertEquals(List.of(postIds.get(0), postIds.get(2), postIds.get(1)), seen);
+    }
+}
@@ -0,0 +1,128 @@
+package com.springboot.blog;
+
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.views.HyperLogLog;
+import com.springboot.blog.views.PostViewCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Views are counted in memory, cached responses included, and reach the post and its daily
+ * rollup only on a flush, where later flushes add to what is stored.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PostViewTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private PostViewCounter postViewCounter;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void viewsAreBufferedThenFlushedIntoPostAndDailyRollup() throws Exception {
+        long postId = savePost();
+        postViewCounter.flush();
+
+        // the second and third views from the same address are answered by the response cache
+        view(postId, "10.1.0.1");
+        view(postId, "10.1.0.1");
+        view(postId, "10.1.0.1");
+        view(postId, "10.1.0.2");
+        assertEquals(0L, viewCount(postId));
+
+        postViewCounter.flush();
+        assertEquals(4L, viewCount(postId));
+        assertEquals(2L, uniqueViewers(postId));
+
+        view(postId, "10.1.0.2");
+        view(postId, "10.1.0.3");
+        postViewCounter.flush();
+        assertEquals(6L, viewCount(postId));
+        assertEquals(3L, uniqueViewers(postId));
+
+        Map<String, Object> day = jdbcTemplate.queryForMap(
+                "select views, unique_viewers from post_view_days where post_id = ? and view_date = ?",
+                postId, LocalDate.now(ZoneOffset.UTC));
+        assertEquals(6L, ((Number) day.get("views")).longValue());
+        assertEquals(3L, ((Number) day.get("unique_viewers")).longValue());
+    }
+
+    @Test
+    void sketchEstimatesAndMergesDistinctViewers() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        for (int i = 0; i < 60_000; i++) {
+            first.add(HyperLogLog.hash("viewer-" + i));
+            second.add(HyperLogLog.hash("viewer-" + (i + 40_000)));
+        }
+        assertWithin(60_000, first.estimate());
+
+        // the union counts the 20,000 shared viewers once, also after a round trip through bytes
+        HyperLogLog union = HyperLogLog.fromBytes(first.toBytes());
+        union.merge(second);
+        assertWithin(100_000, union.estimate());
+    }
+
+    private static void assertWithin(long expected, long estimate) {
+        assertTrue(Math.abs(estimate - expected) <= expected * 0.1, "estimate " + estimate + " for " + expected);
+    }
+
+    private void view(long postId, String address) throws Exception {
+        mockMvc.perform(get("/api/posts/{id}", postId).with(request -> {
+                    request.setRemoteAddr(address);
+                    return request;
+                }))
+                .andExpect(status().isOk());
+    }
+
+    private long viewCount(long postId) {
+        return jdbcTemplate.queryForObject("select view_count from posts where id = ?", Long.class, postId);
+    }
+
+    private long uniqueViewers(long postId) {
+        return jdbcTemplate.queryForObject("select unique_viewers from posts where id = ?", Long.class, postId);
+    }
+
+    private long savePost() {
+        User user = new User();
+        user.setName("View Author");
+        user.setUsername("viewauthor");
+        user.setEmail("viewauthor@example.com");
+        user.setPassword("{noop}unused");
+        userRepository.save(user);
+
+        Post post = new Post();
+        post.setTitle("Counting views in memory");
+        post.setDescription("View counter description");
+        post.setContent("View counter content");
+        post.setUser(user);
+        post.setCategory(categoryRepository.findByName("General").orElseThrow());
+        return postRepository.save(post).getId();
+    }
+}
@@ -0,0 +1,220 @@
+package com.springboot.blog;
+
+import com.springboot.blog.cache.PostCache;
+import com.springboot.blog.cache.ResponseCache;
+import com.springboot.blog.entity.Category;
+import com.springboot.blog.entity.Comment;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.feed.HotFeed;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.CommentRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.search.PostSearchIndex;
+import com.springboot.blog.security.JwtTokenProvider;
+import com.springboot.blog.security.UserPrincipal;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the number of JDBC statements each read endpoint issues, so an N+1 sneaking back in
+ * (a lazy association dereferenced per row) fails the build instead of showing up in production.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryCountTests {
+
+    private static final int POSTS = 10;
+    private static final int COMMENTS_PER_POST = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private PostCache postCache;
+    @Autowired
+    private ResponseCache responseCache;
+    @Autowired
+    private HotFeed hotFeed;
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+
+    private Statistics statistics;
+    private Category category;
+    private Post post;
+    private Comment ownComment;
+    private String token;
+
+    @BeforeAll
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        category = categoryRepository.findByName("General").orElseThrow();
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            User user = new User();
+            user.setName("Query Count " + i);
+            user.setUsername("querycount" + i);
+            user.setEmail("querycount" + i + "@example.com");
+            user.setPassword("{noop}unused");
+            users.add(userRepository.save(user));
+        }
+
+        for (int i = 0; i < POSTS; i++) {
+            Post p = new Post();
+            p.setTitle("Query count post " + i);
+            p.setDescription("Query count description " + i);
+            p.setContent("Query count content " + i);
+            p.setUser(users.get(i % users.size()));
+            p.setCategory(category);
+            post = postRepository.save(p);
+
+            for (int c = 0; c < COMMENTS_PER_POST; c++) {
+                Comment comment = new Comment();
+                comment.setBody("Comment " + c);
+                comment.setPost(post);
+                comment.setUser(users.get(c % users.size()));
+                commentRepository.save(comment);
+                if (c == 0) {
+                    ownComment = comment;
+                }
+            }
+        }
+
+        // issued the way login issues it, so the token carries the user and requests skip the lookup
+        User author = users.get(0);
+        UserPrincipal principal = new UserPrincipal(author.getId(), author.getUsername(), author.getName(), "", List.of());
+        token = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    // these pin what the controllers cost, not what a cached response costs
+    @BeforeEach
+    void clearResponseCache() {
+        responseCache.invalidateAll();
+    }
+
+    @Test
+    void offsetPostPageIsOneSelectPlusCount() throws Exception {
+        assertEquals(2, statements(get("/api/posts").param("pageSize", String.valueOf(POSTS))));
+    }
+
+    @Test
+    void cursorPostPageIsOneSelect() throws Exception {
+        assertEquals(1, statements(get("/api/posts/cursor").param("pageSize", String.valueOf(POSTS))));
+    }
+
+    @Test
+    void categoryFeedPageIsOneSelect() throws Exception {
+        assertEquals(1, statements(get("/api/posts/category/{id}/cursor", category.getId())
+                .param("pageSize", String.valueOf(POSTS))));
+    }
+
+    @Test
+    void hotFeedPageIsOneSelect() throws Exception {
+        hotFeed.rebuild();
+        assertEquals(1, statements(get("/api/posts/hot").param("pageSize", String.valueOf(POSTS))));
+    }
+
+    @Test
+    void postDetailLoadsPostAndCommentsInTwoSelectsThenServesFromCache() throws Exception {
+        postCache.invalidate(post.getId());
+        assertEquals(2, statements(get("/api/posts/{id}", post.getId())));
+        assertEquals(0, statements(get("/api/posts/{id}", post.getId())));
+    }
+
+    @Test
+    void commentListIsServedFromThePostCache() throws Exception {
+        postCache.invalidate(post.getId());
+        assertEquals(2, statements(get("/api/posts/{id}/comments", post.getId())));
+        assertEquals(0, statements(get("/api/posts/{id}/comments", post.getId())));
+    }
+
+    @Test
+    void commentPageIsCounterReadPlusOneSelect() throws Exception {
+        assertEquals(2, statements(get("/api/posts/{id}/comments/cursor", post.getId()).param("pageSize", "2")));
+    }
+
+    @Test
+    void createCommentIsBounded() throws Exception {
+        // an already ranked post, so the hot feed knows its category without a lookup
+        hotFeed.rebuild();
+        // comment_count increment (doubles as the existence check), insert; the author comes from the token.
+        // Then the search reindex reads just that comment's body
+        assertEquals(3, statements(post("/api/posts/{id}/comments", post.getId())
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"body\":\"counted\"}")));
+    }
+
+    @Test
+    void createPostDoesNotReadCategories() throws Exception {
+        // just the insert: the author comes from the token, the category from the registry. Then the
+        // search reindex reads the post
+        assertEquals(2, statements(post("/api/posts")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Counted post\",\"description\":\"Counted description\","
+                        + "\"content\":\"Counted content\",\"categoryId\":" + category.getId() + "}")));
+    }
+
+    @Test
+    void patchPostIsOneUpdate() throws Exception {
+        // the ownership check rides in the update's where clause; then the search reindex
+        assertEquals(2, statements(patch("/api/posts/{id}", post.getId())
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"content\":\"Patched content\"}")));
+    }
+
+    @Test
+    void patchCommentIsOneUpdate() throws Exception {
+        assertEquals(2, statements(patch("/api/posts/{postId}/comments/{id}", post.getId(), ownComment.getId())
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"body\":\"Patched comment\"}")));
+    }
+
+    // background search indexing is drained on both sides, so a write's reindex counts towards it
+    private long statements(RequestBuilder request) throws Exception {
+        postSearchIndex.awaitIdle();
+        statistics.clear();
+        mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+        postSearchIndex.awaitIdle();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,176 @@
+package com.springboot.blog;
+
+import com.jayway.jsonpath.JsonPath;
+import com.springboot.blog.entity.Comment;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.reactions.ReactionCounter;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.CommentRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.security.JwtTokenProvider;
+import com.springboot.blog.security.UserPrincipal;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reacting is idempotent per user and type, counts include the deltas not yet flushed, and a
+ * page of targets gets its counts and the caller's own reactions from one request.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReactionTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private ReactionCounter reactionCounter;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String ada;
+    private String bob;
+    private long announcementId;
+    private long quietId;
+    private long commentId;
+
+    @BeforeAll
+    void setUp() {
+        User adaUser = saveUser("reactada");
+        ada = token(adaUser);
+        bob = token(saveUser("reactbob"));
+        announcementId = savePost(adaUser, "Reaction announcement");
+        quietId = savePost(adaUser, "Reaction quiet post");
+
+        Comment comment = new Comment();
+        comment.setBody("A comment to react to");
+        comment.setUser(adaUser);
+        comment.setPost(postRepository.getReferenceById(announcementId));
+        commentId = commentRepository.save(comment).getId();
+    }
+
+    @Test
+    void reactionsAreIdempotentAndCountedBeforeAndAfterFlush() throws Exception {
+        react(ada, "like").andExpect(status().isOk());
+        String json = react(ada, "LIKE").andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        assertEquals(1, (Integer) JsonPath.read(json, "$.counts.LIKE"));
+        assertEquals(List.of("LIKE"), JsonPath.read(json, "$.mine"));
+
+        json = react(bob, "like").andReturn().getResponse().getContentAsString();
+        assertEquals(2, (Integer) JsonPath.read(json, "$.counts.LIKE"));
+
+        reactionCounter.flush();
+        assertEquals(2L, jdbcTemplate.queryForObject("select reaction_count from reaction_counts"
+                + " where target_type = 'POST' and target_id = ? and reaction_type = 'LIKE'", Long.class, announcementId));
+
+        json = mockMvc.perform(delete("/api/posts/{id}/reactions/like", announcementId)
+                        .header("Authorization", "Bearer " + ada))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(1, (Integer) JsonPath.read(json, "$.counts.LIKE"));
+        assertEquals(List.of(), JsonPath.read(json, "$.mine"));
+
+        reactionCounter.flush();
+        json = summaries(null, "post", announcementId);
+        assertEquals(1, (Integer) JsonPath.read(json, "$[0].counts.LIKE"));
+
+        react(ada, "sideways").andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/posts/{id}/reactions/like", announcementId)).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void pageOfTargetsGetsCountsAndOwnReactionsInOneCall() throws Exception {
+        mockMvc.perform(put("/api/posts/{postId}/comments/{id}/reactions/insightful", announcementId, commentId)
+                        .header("Authorization", "Bearer " + bob))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/posts/{postId}/comments/{id}/reactions/love", quietId, commentId)
+                        .header("Authorization", "Bearer " + bob))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(put("/api/posts/{id}/reactions/laugh", quietId).header("Authorization", "Bearer " + bob))
+                .andExpect(status().isOk());
+
+        String json = summaries(bob, "post", quietId, announcementId);
+        assertEquals(quietId, ((Number) JsonPath.read(json, "$[0].targetId")).longValue());
+        assertEquals(List.of("LAUGH"), JsonPath.read(json, "$[0].mine"));
+        assertEquals(1, (Integer) JsonPath.read(json, "$[0].counts.LAUGH"));
+
+        json = summaries(bob, "comment", commentId);
+        assertEquals(List.of("INSIGHTFUL"), JsonPath.read(json, "$[0].mine"));
+
+        // anonymous callers see the counts but have no reactions of their own
+        json = summaries(null, "post", quietId);
+        assertEquals(1, (Integer) JsonPath.read(json, "$[0].counts.LAUGH"));
+        assertEquals(List.of(), JsonPath.read(json, "$[0].mine"));
+    }
+
+    private ResultActions react(String token, String type) throws Exception {
+        return mockMvc.perform(put("/api/posts/{id}/reactions/{type}", announcementId, type)
+                .header("Authorization", "Bearer " + token));
+    }
+
+    private String summaries(String token, String target, Long... ids) throws Exception {
+        MockHttpServletRequestBuilder request = get("/api/reactions").param("target", target)
+                .param("ids", Arrays.stream(ids).map(String::valueOf).toArray(String[]::new));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private User saveUser(String username) {
+        User user = new User();
+        user.setName("Reaction " + username);
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("{noop}unused");
+        return userRepository.save(user);
+    }
+
+    private String token(User user) {
+        UserPrincipal principal = new UserPrincipal(user.getId(), user.getUsername(), user.getName(), "", List.of());
+        return jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private long savePost(User user, String title) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setDescription("Reaction description");
+        post.setContent("Reaction content");
+        post.setUser(user);
+        post.setCategory(categoryRepository.findByName("General").orElseThrow());
+        return postRepository.save(post).getId();
+    }
+}
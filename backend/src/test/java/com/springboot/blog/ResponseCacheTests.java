@@ -0,0 +1,133 @@
+package com.springboot.blog;
+
+import com.springboot.blog.cache.ResponseCache;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.search.PostSearchIndex;
+import com.springboot.blog.security.JwtTokenProvider;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Anonymous GETs of public endpoints are replayed from stored bytes (plain or gzip) without
+ * touching the database, and writes drop the stale copies.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ResponseCacheTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private ResponseCache responseCache;
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+
+    private Statistics statistics;
+    private long postId;
+    private String token;
+
+    @BeforeAll
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User user = new User();
+        user.setName("Response Cache");
+        user.setUsername("responsecache");
+        user.setEmail("responsecache@example.com");
+        user.setPassword("{noop}unused");
+        userRepository.save(user);
+
+        for (int i = 0; i < 5; i++) {
+            Post post = new Post();
+            post.setTitle("Response cache post " + i);
+            post.setDescription("Response cache description " + i);
+            post.setContent("Response cache content " + i);
+            post.setUser(user);
+            post.setCategory(categoryRepository.findByName("General").orElseThrow());
+            postId = postRepository.save(post).getId();
+        }
+
+        token = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(user.getUsername(), null, List.of()));
+    }
+
+    @Test
+    void repeatedAnonymousGetIsServedFromBytesInEitherEncoding() throws Exception {
+        // reindexing queued by earlier test classes would otherwise land in the count, or bump the
+        // cache generation while the first response renders so that it is never stored
+        postSearchIndex.awaitIdle();
+        responseCache.invalidateAll();
+        byte[] plain = mockMvc.perform(get("/api/posts/cursor").param("pageSize", "5"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        postSearchIndex.awaitIdle();
+        statistics.clear();
+        MvcResult gzipped = mockMvc.perform(get("/api/posts/cursor").param("pageSize", "5")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        try (GZIPInputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(gzipped.getResponse().getContentAsByteArray()))) {
+            assertArrayEquals(plain, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void commentWriteDropsCachedListings() throws Exception {
+        String before = mockMvc.perform(get("/api/posts/cursor").param("pageSize", "50"))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(post("/api/posts/{id}/comments", postId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"body\":\"bumps the comment count\"}"))
+                .andExpect(status().isCreated());
+
+        String after = mockMvc.perform(get("/api/posts/cursor").param("pageSize", "50"))
+                .andReturn().getResponse().getContentAsString();
+        assertNotEquals(before, after);
+    }
+}
@@ -0,0 +1,130 @@
+package com.springboot.blog;
+
+import com.jayway.jsonpath.JsonPath;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.UserRepository;
+import com.springboot.blog.search.Suggester;
+import com.springboot.blog.security.JwtTokenProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Suggestions come from any word of a title or name, most commented post and most prolific user
+ * first, and follow registrations, new posts, comments and deletes without a rebuild.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SuggestTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private Suggester suggester;
+
+    private long quietId;
+    private long busyId;
+    private String token;
+
+    @BeforeAll
+    void setUp() {
+        User user = new User();
+        user.setName("Suggest Author");
+        user.setUsername("suggestauthor");
+        user.setEmail("suggestauthor@example.com");
+        user.setPassword("{noop}unused");
+        userRepository.save(user);
+
+        quietId = save(user, "Xylophone repairs at home", 0);
+        busyId = save(user, "Tuning a xylophone", 3);
+        suggester.rebuild();
+
+        token = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(user.getUsername(), null, List.of()));
+    }
+
+    @Test
+    void anyWordMatchesAndPopularFirst() throws Exception {
+        String json = suggest("XYLO");
+        assertEquals(List.of(busyId, quietId), ids(json, "posts"));
+        assertEquals("suggestauthor", JsonPath.read(json, "$.posts[0].detail"));
+
+        // a longer prefix narrows to the title that continues that way
+        assertEquals(List.of(quietId), ids(suggest("xylophone rep"), "posts"));
+        assertEquals(List.of(busyId), ids(suggest("tuning a xylophone"), "posts"));
+    }
+
+    @Test
+    void followsWritesThroughTheApi() throws Exception {
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Quentin Vellacott\",\"username\":\"qvell\","
+                                + "\"email\":\"qvell@example.com\",\"password\":\"secret123\"}"))
+                .andExpect(status().isCreated());
+        String json = suggest("vellac");
+        assertEquals("qvell", JsonPath.read(json, "$.users[0].text"));
+
+        String created = mockMvc.perform(post("/api/posts")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Zanzibar spice notes\",\"description\":\"Spice market notes\","
+                                + "\"content\":\"Cloves and nutmeg.\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long postId = ((Number) JsonPath.read(created, "$.id")).longValue();
+        assertEquals(List.of(postId), ids(suggest("spice"), "posts"));
+
+        mockMvc.perform(delete("/api/posts/{id}", postId).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        assertTrue(ids(suggest("zanzibar"), "posts").isEmpty());
+    }
+
+    private long save(User user, String title, long commentCount) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setDescription("Suggest description");
+        post.setContent("Suggest content");
+        post.setUser(user);
+        post.setCategory(categoryRepository.findByName("General").orElseThrow());
+        post.setCommentCount(commentCount);
+        return postRepository.save(post).getId();
+    }
+
+    private String suggest(String prefix) throws Exception {
+        return mockMvc.perform(get("/api/suggest").param("prefix", prefix))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private static List<Long> ids(String json, String kind) {
+        List<Number> ids = JsonPath.read(json, "$." + kind + "[*].id");
+        return ids.stream().map(Number::longValue).toList();
+    }
+}
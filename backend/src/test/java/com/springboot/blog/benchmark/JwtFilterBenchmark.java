@@ -0,0 +1,104 @@
+package com.springboot.blog.benchmark;
+
+import com.springboot.blog.security.JwtAuthenticationFilter;
+import com.springboot.blog.security.JwtTokenProvider;
+import com.springboot.blog.security.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating one request from its bearer token.
+ *
+ * legacyParseTwice is what the filter used to do before reaching the user lookup: decode the
+ * secret and build a key and parser, verify the token, then do all of it again to read the
+ * subject. prebuiltParseOnce is a cache miss now. filterWithVerifiedCache runs the real filter
+ * on a token it has seen before, which is the common case for a client making several calls.
+ *
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath com.springboot.blog.benchmark.JwtFilterBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "daf66e01593f61a15b857cf433aae03a005812b31234e149036bcc8dee755dbb";
+
+    private String token;
+    private JwtParser parser;
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setUp() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 3_600_000, 10_000, Duration.ofMinutes(5));
+        UserPrincipal principal = new UserPrincipal(1L, "author", "Author", "",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        token = provider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        parser = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET))).build();
+
+        UserDetailsService noLookups = username -> {
+            throw new IllegalStateException("token carries the user");
+        };
+        filter = new JwtAuthenticationFilter(provider, noLookups, new SimpleMeterRegistry());
+        request = new MockHttpServletRequest("GET", "/api/users/me");
+        request.addHeader("Authorization", "Bearer " + token);
+    }
+
+    @Benchmark
+    public String legacyParseTwice() {
+        SecretKey validateKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        Jwts.parser().verifyWith(validateKey).build().parse(token);
+        SecretKey subjectKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parser().verifyWith(subjectKey).build().parseSignedClaims(token).getPayload().getSubject();
+    }
+
+    @Benchmark
+    public Claims prebuiltParseOnce() {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Object filterWithVerifiedCache() throws Exception {
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
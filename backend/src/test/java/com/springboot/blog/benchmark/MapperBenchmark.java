@@ -0,0 +1,171 @@
+package com.springboot.blog.benchmark;
+
+import com.springboot.blog.entity.Category;
+import com.springboot.blog.entity.Comment;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.mapper.CommentMapper;
+import com.springboot.blog.mapper.PostMapper;
+import com.springboot.blog.payload.CommentDto;
+import com.springboot.blog.payload.PostDto;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reflective ModelMapper (what the services used to do) vs the hand-written mappers, for one
+ * page of posts / comments. Each post carries a few comments and both paths map them, so they
+ * build identical DTOs; setup checks that before anything is measured.
+ *
+ * Run with the GC profiler to see allocations per page:
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath com.springboot.blog.benchmark.MapperBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    private List<Post> posts;
+    private List<Comment> comments;
+
+    private ModelMapper modelMapper;
+    private PostMapper postMapper;
+    private CommentMapper commentMapper;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        // the entities keep local times, the DTOs instants
+        modelMapper.addConverter(context -> context.getSource() != null
+                        ? context.getSource().atZone(ZoneId.systemDefault()).toInstant() : null,
+                LocalDateTime.class, Instant.class);
+        // comment authors inside a post, as commentsModelMapper fills them in by hand
+        modelMapper.typeMap(Comment.class, CommentDto.class).setPostConverter(context -> {
+            CommentDto dto = context.getDestination();
+            dto.setAuthorId(context.getSource().getUser().getId());
+            dto.setAuthorUsername(context.getSource().getUser().getUsername());
+            dto.setAuthorName(context.getSource().getUser().getName());
+            return dto;
+        });
+        commentMapper = new CommentMapper();
+        postMapper = new PostMapper(commentMapper);
+
+        User user = new User();
+        user.setId(1L);
+        user.setName("Author");
+        user.setUsername("author");
+        user.setEmail("author@example.com");
+
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("General");
+
+        posts = new ArrayList<>(pageSize);
+        comments = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Post post = new Post();
+            post.setId((long) i);
+            post.setTitle("Post title " + i);
+            post.setDescription("A description for post " + i);
+            post.setContent("Some longer body text for post " + i);
+            post.setCreatedAt(LocalDateTime.now());
+            post.setUpdatedAt(LocalDateTime.now());
+            post.setLastActivityAt(LocalDateTime.now());
+            post.setUser(user);
+            post.setCategory(category);
+
+            Set<Comment> postComments = new HashSet<>();
+            for (int c = 0; c < 3; c++) {
+                Comment comment = new Comment();
+                comment.setId(i * 3L + c);
+                comment.setBody("Comment " + c + " on post " + i);
+                comment.setCreatedAt(Instant.now());
+                comment.setUpdatedAt(Instant.now());
+                comment.setUser(user);
+                comment.setPost(post);
+                postComments.add(comment);
+            }
+            post.setComments(postComments);
+            comments.add(postComments.iterator().next());
+            posts.add(post);
+        }
+
+        if (!postsModelMapper().equals(postsHandWritten()) || !commentsModelMapper().equals(commentsHandWritten())) {
+            throw new IllegalStateException("ModelMapper and the hand-written mappers build different DTOs");
+        }
+    }
+
+    @Benchmark
+    public List<PostDto> postsModelMapper() {
+        List<PostDto> result = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            PostDto dto = modelMapper.map(post, PostDto.class);
+            dto.setAuthorId(post.getUser().getId());
+            dto.setAuthorUsername(post.getUser().getUsername());
+            dto.setAuthorName(post.getUser().getName());
+            dto.setCategoryId(post.getCategory().getId());
+            result.add(dto);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<PostDto> postsHandWritten() {
+        List<PostDto> result = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            result.add(postMapper.toDto(post, post.getComments()));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<CommentDto> commentsModelMapper() {
+        List<CommentDto> result = new ArrayList<>(comments.size());
+        for (Comment comment : comments) {
+            CommentDto dto = modelMapper.map(comment, CommentDto.class);
+            dto.setAuthorId(comment.getUser().getId());
+            dto.setAuthorUsername(comment.getUser().getUsername());
+            dto.setAuthorName(comment.getUser().getName());
+            result.add(dto);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<CommentDto> commentsHandWritten() {
+        List<CommentDto> result = new ArrayList<>(comments.size());
+        for (Comment comment : comments) {
+            result.add(commentMapper.toDto(comment));
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MapperBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
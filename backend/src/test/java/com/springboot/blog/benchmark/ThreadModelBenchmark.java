@@ -0,0 +1,196 @@
+package com.springboot.blog.benchmark;
+
+import com.springboot.blog.SpringbootBlogRestApiApplication;
+import com.springboot.blog.entity.Category;
+import com.springboot.blog.entity.Comment;
+import com.springboot.blog.entity.Post;
+import com.springboot.blog.entity.User;
+import com.springboot.blog.feed.HotFeed;
+import com.springboot.blog.repository.CategoryRepository;
+import com.springboot.blog.repository.CommentRepository;
+import com.springboot.blog.repository.PostRepository;
+import com.springboot.blog.repository.UserRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read endpoints under many concurrent clients, with requests served by Tomcat's platform thread
+ * pool and then by virtual threads.
+ *
+ * Each run starts the application on a random port, seeds posts with comments, and keeps a fixed
+ * number of requests in flight against the cursor page, post detail and hot feed for the given
+ * duration after a short warm-up. The post and response caches are off, so every request reaches
+ * the database; the virtual run also puts the semaphore guard in front of the pool. The virtual
+ * run needs a Java 21 runtime (build with -Pjava21) and is skipped on older ones.
+ *
+ * With the test classpath's in-memory H2 the database answers without I/O and the numbers mostly
+ * show scheduling overhead; pass --spring.datasource.url=jdbc:mysql://... (plus credentials and
+ * --spring.jpa.hibernate.ddl-auto=update) after the duration to measure against MySQL.
+ *
+ * <pre>
+ * mvn -Pjava21 test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath com.springboot.blog.benchmark.ThreadModelBenchmark 2000 PT30S"
+ * </pre>
+ */
+public class ThreadModelBenchmark {
+
+    private static final int POSTS = 200;
+    private static final int COMMENTS_PER_POST = 20;
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+    // latency histogram: 100 µs buckets up to 10 s, the last one catching everything slower
+    private static final long BUCKET_NANOS = 100_000;
+    private static final int BUCKETS = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        Duration duration = args.length > 1 ? Duration.parse(args[1]) : Duration.ofSeconds(20);
+        String[] extra = args.length > 2 ? Arrays.copyOfRange(args, 2, args.length) : new String[0];
+        // devtools would restart the application by calling this main again with the Spring arguments
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        run(false, concurrency, duration, extra);
+        if (Runtime.version().feature() >= 21) {
+            run(true, concurrency, duration, extra);
+        } else {
+            System.out.println("virtual threads: skipped, running on Java " + Runtime.version().feature());
+        }
+    }
+
+    private static void run(boolean virtual, int concurrency, Duration duration, String[] extra) throws Exception {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--app.datasource.guard.enabled=" + virtual,
+                "--app.cache.posts.max-size=0",
+                "--app.cache.posts.warm-count=0",
+                "--app.cache.responses.max-bytes=0",
+                "--logging.level.root=WARN"));
+        args.addAll(Arrays.asList(extra));
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringbootBlogRestApiApplication.class)
+                .run(args.toArray(String[]::new))) {
+            List<Long> postIds = seed(context);
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            List<URI> uris = new ArrayList<>();
+            for (Long id : postIds) {
+                uris.add(URI.create(base + "/api/posts/" + id));
+                uris.add(URI.create(base + "/api/posts/cursor?pageSize=20"));
+                uris.add(URI.create(base + "/api/posts/hot?pageSize=20"));
+            }
+
+            ExecutorService clientThreads = Executors.newFixedThreadPool(8);
+            try {
+                HttpClient client = HttpClient.newBuilder().executor(clientThreads).build();
+                load(client, uris, concurrency, WARM_UP);
+                Result result = load(client, uris, concurrency, duration);
+                System.out.printf("%-17s concurrency %5d: %,9.0f req/s  p50 %7.1f ms  p99 %7.1f ms  max %7.1f ms  errors %d%n",
+                        virtual ? "virtual threads" : "platform threads", concurrency,
+                        result.requests.get() / (duration.toNanos() / 1e9),
+                        result.percentileMillis(0.50), result.percentileMillis(0.99), result.maxMillis(), result.errors.get());
+            } finally {
+                clientThreads.shutdownNow();
+            }
+        }
+    }
+
+    // closed loop: a new request goes out as soon as one of the in-flight ones completes
+    private static Result load(HttpClient client, List<URI> uris, int concurrency, Duration duration)
+            throws InterruptedException {
+        Result result = new Result();
+        Semaphore inFlight = new Semaphore(concurrency);
+        long deadline = System.nanoTime() + duration.toNanos();
+        for (int i = 0; System.nanoTime() < deadline; i++) {
+            inFlight.acquire();
+            HttpRequest request = HttpRequest.newBuilder(uris.get(i % uris.size())).GET().build();
+            long started = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                result.record(System.nanoTime() - started, error != null || response.statusCode() >= 400);
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+        return result;
+    }
+
+    private static List<Long> seed(ConfigurableApplicationContext context) {
+        UserRepository users = context.getBean(UserRepository.class);
+        PostRepository posts = context.getBean(PostRepository.class);
+        CommentRepository comments = context.getBean(CommentRepository.class);
+        Category category = context.getBean(CategoryRepository.class).findByName("General").orElseThrow();
+
+        User author = users.findByUsername("benchmark").orElseGet(() -> {
+            User user = new User();
+            user.setName("Benchmark");
+            user.setUsername("benchmark");
+            user.setEmail("benchmark@example.com");
+            user.setPassword("{noop}unused");
+            return users.save(user);
+        });
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < POSTS; i++) {
+            Post post = new Post();
+            post.setTitle("Thread model " + System.nanoTime() + " " + i);
+            post.setDescription("Thread model benchmark post");
+            post.setContent("Thread model benchmark content " + i);
+            post.setUser(author);
+            post.setCategory(category);
+            ids.add(posts.save(post).getId());
+            for (int c = 0; c < COMMENTS_PER_POST; c++) {
+                Comment comment = new Comment();
+                comment.setBody("Benchmark comment " + c);
+                comment.setPost(post);
+                comment.setUser(author);
+                comments.save(comment);
+            }
+        }
+        context.getBean(HotFeed.class).rebuild();
+        return ids;
+    }
+
+    private static final class Result {
+        final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        final AtomicLong max = new AtomicLong();
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+
+        void record(long nanos, boolean error) {
+            histogram.incrementAndGet((int) Math.min(BUCKETS - 1, nanos / BUCKET_NANOS));
+            max.accumulateAndGet(nanos, Math::max);
+            requests.incrementAndGet();
+            if (error) {
+                errors.incrementAndGet();
+            }
+        }
+
+        double percentileMillis(double percentile) {
+            long rank = (long) Math.ceil(requests.get() * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += histogram.get(i);
+                if (seen >= rank) {
+                    return (i + 1) * BUCKET_NANOS / 1e6;
+                }
+            }
+            return maxMillis();
+        }
+
+        double maxMillis() {
+            return max.get() / 1e6;
+        }
+    }
+}
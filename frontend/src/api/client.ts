@@ -1,4 +1,4 @@
-import axios, { type InternalAxiosRequestConfig } from "axios";
+import axios, { type AxiosResponse, type InternalAxiosRequestConfig } from "axios";
 import { API_BASE_URL } from "../config";
 import AsyncStorage from "@react-native-async-storage/async-storage";
 
@@ -10,8 +10,14 @@ export const api = axios.create({
   headers: {
     "Content-Type": "application/json",
   },
+  // 304 is a successful revalidation, answered from etagCache below
+  validateStatus: (status) => (status >= 200 && status < 300) || status === 304,
 });
 
+// Last ETag-bearing GET response per URL. Refetches send If-None-Match and the server answers
+// 304 without a body when nothing changed.
+const etagCache = new Map<string, { etag: string; data: unknown }>();
+
 console.log("AXIOS baseURL =", api.defaults.baseURL);
 
 api.interceptors.request.use(async (config: InternalAxiosRequestConfig) => {
@@ -22,3 +28,32 @@ api.interceptors.request.use(async (config: InternalAxiosRequestConfig) => {
   }
   return config;
 });
+
+api.interceptors.request.use((config: InternalAxiosRequestConfig) => {
+  if ((config.method ?? "get").toLowerCase() === "get") {
+    const cached = etagCache.get(api.getUri(config));
+    if (cached) {
+      config.headers["If-None-Match"] = cached.etag;
+    }
+  }
+  return config;
+});
+
+api.interceptors.response.use((response: AxiosResponse) => {
+  if ((response.config.method ?? "get").toLowerCase() !== "get") {
+    return response;
+  }
+  const key = api.getUri(response.config);
+  if (response.status === 304) {
+    const cached = etagCache.get(key);
+    if (cached) {
+      return { ...response, status: 200, data: cached.data };
+    }
+    return response;
+  }
+  const etag = response.headers["etag"];
+  if (typeof etag === "string") {
+    etagCache.set(key, { etag, data: response.data });
+  }
+  return response;
+});
@@ -5,9 +5,17 @@ import type {
   RegisterDto,
   UserDto,
   PostDto,
+  PostSummaryDto,
   PostResponse,
+  PostSearchResponse,
+  SuggestResponse,
   CommentDto,
+  CommentCursorResponse,
+  CursorResponse,
   CategoryDto,
+  ReactionSummaryDto,
+  ReactionTarget,
+  ReactionType,
 } from "../types";
 
 // Auth
@@ -48,8 +56,35 @@ export async function getPosts(params?: {
   return res.data;
 }
 
-export async function getPostsByCategory(categoryId: number): Promise<PostDto[]> {
-  const res = await api.get<PostDto[]>(`/api/posts/category/${categoryId}`);
+// ranked by recent activity; pass nextCursor back as `after` for the following page
+export async function getHotPosts(params?: {
+  categoryId?: number;
+  after?: string;
+  pageSize?: number;
+}): Promise<CursorResponse<PostSummaryDto>> {
+  const res = await api.get<CursorResponse<PostSummaryDto>>("/api/posts/hot", { params });
+  return res.data;
+}
+
+export async function searchPosts(params: {
+  q: string;
+  categoryId?: number;
+  author?: string;
+  pageNo?: number;
+  pageSize?: number;
+}): Promise<PostSearchResponse> {
+  const res = await api.get<PostSearchResponse>("/api/posts/search", { params });
+  return res.data;
+}
+
+// autocomplete; served from memory, cheap enough to call on every keystroke
+export async function suggest(prefix: string, limit?: number): Promise<SuggestResponse> {
+  const res = await api.get<SuggestResponse>("/api/suggest", { params: { prefix, limit } });
+  return res.data;
+}
+
+export async function getPostsByCategory(categoryId: number): Promise<PostSummaryDto[]> {
+  const res = await api.get<PostSummaryDto[]>(`/api/posts/category/${categoryId}`);
   return res.data;
 }
 
@@ -81,6 +116,19 @@ export async function updatePost(
   return res.data;
 }
 
+// only the fields given change; answers 204, so refetch the post if the new state is needed
+export async function patchPost(
+  id: number,
+  payload: {
+    title?: string;
+    description?: string;
+    content?: string;
+    categoryId?: number;
+  }
+): Promise<void> {
+  await api.patch(`/api/posts/${id}`, payload);
+}
+
 export async function deletePost(id: number): Promise<void> {
   await api.delete(`/api/posts/${id}`);
 }
@@ -97,6 +145,15 @@ export async function getComments(postId: number): Promise<CommentDto[]> {
   return res.data;
 }
 
+// oldest first, one page at a time
+export async function getCommentsPage(
+  postId: number,
+  params?: { after?: string; pageSize?: number }
+): Promise<CommentCursorResponse> {
+  const res = await api.get<CommentCursorResponse>(`/api/posts/${postId}/comments/cursor`, { params });
+  return res.data;
+}
+
 export async function addComment(
   postId: number,
   payload: { body: string }
@@ -117,9 +174,51 @@ export async function updateComment(
   return res.data;
 }
 
+export async function patchComment(
+  postId: number,
+  commentId: number,
+  payload: { body: string }
+): Promise<void> {
+  await api.patch(`/api/posts/${postId}/comments/${commentId}`, payload);
+}
+
 export async function deleteComment(
   postId: number,
   commentId: number
 ): Promise<void> {
   await api.delete(`/api/posts/${postId}/comments/${commentId}`);
 }
+
+// Reactions: counts plus the caller's own, for a whole list page in one request
+export async function getReactions(
+  target: ReactionTarget,
+  ids: number[]
+): Promise<ReactionSummaryDto[]> {
+  const res = await api.get<ReactionSummaryDto[]>("/api/reactions", {
+    params: { target, ids: ids.join(",") },
+  });
+  return res.data;
+}
+
+function reactionPath(postId: number, commentId: number | undefined, type: ReactionType): string {
+  const base = commentId == null ? `/api/posts/${postId}` : `/api/posts/${postId}/comments/${commentId}`;
+  return `${base}/reactions/${type}`;
+}
+
+export async function react(
+  postId: number,
+  type: ReactionType,
+  commentId?: number
+): Promise<ReactionSummaryDto> {
+  const res = await api.put<ReactionSummaryDto>(reactionPath(postId, commentId, type));
+  return res.data;
+}
+
+export async function unreact(
+  postId: number,
+  type: ReactionType,
+  commentId?: number
+): Promise<ReactionSummaryDto> {
+  const res = await api.delete<ReactionSummaryDto>(reactionPath(postId, commentId, type));
+  return res.data;
+}
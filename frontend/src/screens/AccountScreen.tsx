@@ -2,8 +2,8 @@ import React, { useCallback, useEffect, useState } from "react";
 import { Alert, FlatList, RefreshControl, Text, View } from "react-native";
 import { useNavigation } from "@react-navigation/native";
 import type { NativeStackNavigationProp } from "@react-navigation/native-stack";
-import { deletePost, getMyPosts } from "../api/endpoints";
-import type { PostDto } from "../types";
+import { deletePost, getMyPosts, getPostById } from "../api/endpoints";
+import type { PostSummaryDto } from "../types";
 import { useAuth } from "../auth/AuthContext";
 import { RootStackParamList } from "../navigation/types";
 import { Button, Card, H1, Loading, Muted, Screen } from "../ui/components";
@@ -15,7 +15,7 @@ export default function AccountScreen() {
   const nav = useNavigation<Nav>();
   const { user, signOut, refreshMe } = useAuth();
 
-  const [items, setItems] = useState<PostDto[]>([]);
+  const [items, setItems] = useState<PostSummaryDto[]>([]);
   const [loading, setLoading] = useState(true);
   const [refreshing, setRefreshing] = useState(false);
 
@@ -53,6 +53,17 @@ export default function AccountScreen() {
     }
   }
 
+  async function onEdit(postId: number) {
+    try {
+      // list items are summaries without content, so load the full post first
+      const post = await getPostById(postId);
+      nav.navigate("EditPost", { post });
+    } catch (e: any) {
+      const msg = e?.response?.data?.message ?? e?.message ?? "Failed to load post";
+      Alert.alert("Error", String(msg));
+    }
+  }
+
   async function onDelete(postId: number) {
     Alert.alert("Delete post?", "This cannot be undone.", [
       { text: "Cancel", style: "cancel" },
@@ -127,7 +138,7 @@ export default function AccountScreen() {
 
             <View style={{ flexDirection: "row", gap: 10, marginTop: 12 }}>
               <Button title="Open" onPress={() => nav.navigate("PostDetail", { postId: item.id })} />
-              <Button title="Edit" variant="secondary" onPress={() => nav.navigate("EditPost", { post: item })} />
+              <Button title="Edit" variant="secondary" onPress={() => onEdit(item.id)} />
               <Button title="Delete" variant="danger" onPress={() => onDelete(item.id)} />
             </View>
           </Card>
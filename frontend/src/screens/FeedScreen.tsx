@@ -10,7 +10,7 @@ import {
 import { useNavigation } from "@react-navigation/native";
 import type { NativeStackNavigationProp } from "@react-navigation/native-stack";
 import { getCategories, getPostsByCategory } from "../api/endpoints";
-import type { CategoryDto, PostDto } from "../types";
+import type { CategoryDto, PostSummaryDto } from "../types";
 import { RootStackParamList } from "../navigation/types";
 import { Card, H1, Loading, Muted, Screen, Button } from "../ui/components";
 // import { CategoryPickerModal } from "../ui/CategoryPickerModal";
@@ -30,7 +30,7 @@ export default function FeedScreen() {
     [categories, selectedCategoryId]
   );
 
-  const [items, setItems] = useState<PostDto[]>([]);
+  const [items, setItems] = useState<PostSummaryDto[]>([]);
   const [loading, setLoading] = useState(true);
   const [refreshing, setRefreshing] = useState(false);
   const [pickerOpen, setPickerOpen] = useState(false);
@@ -13,7 +13,7 @@ import {
   addComment,
   deleteComment,
   deletePost,
-  getComments,
+  getCommentsPage,
   getPostById,
 } from "../api/endpoints";
 import type { CommentDto, PostDto } from "../types";
@@ -23,12 +23,17 @@ import { colors } from "../ui/theme";
 
 type Props = NativeStackScreenProps<RootStackParamList, "PostDetail">;
 
+const COMMENT_PAGE_SIZE = 20;
+
 export default function PostDetailScreen({ route, navigation }: Props) {
   const { postId } = route.params;
   const { user } = useAuth();
 
   const [post, setPost] = useState<PostDto | null>(null);
   const [comments, setComments] = useState<CommentDto[]>([]);
+  const [totalComments, setTotalComments] = useState(0);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [body, setBody] = useState("");
   const [busy, setBusy] = useState(false);
 
@@ -40,9 +45,14 @@ export default function PostDetailScreen({ route, navigation }: Props) {
   async function load() {
     setBusy(true);
     try {
-      const [p, c] = await Promise.all([getPostById(postId), getComments(postId)]);
+      const [p, c] = await Promise.all([
+        getPostById(postId),
+        getCommentsPage(postId, { pageSize: COMMENT_PAGE_SIZE }),
+      ]);
       setPost(p);
-      setComments(c);
+      setComments(c.content);
+      setTotalComments(c.totalComments);
+      setNextCursor(c.nextCursor);
       navigation.setOptions({ title: p.title });
     } catch (e: any) {
       const msg = e?.response?.data?.message ?? e?.message ?? "Failed to load post";
@@ -56,6 +66,22 @@ export default function PostDetailScreen({ route, navigation }: Props) {
     load();
   }, [postId]);
 
+  async function loadMoreComments() {
+    if (!nextCursor || loadingMore) return;
+    setLoadingMore(true);
+    try {
+      const page = await getCommentsPage(postId, { after: nextCursor, pageSize: COMMENT_PAGE_SIZE });
+      setComments((prev) => [...prev, ...page.content]);
+      setTotalComments(page.totalComments);
+      setNextCursor(page.nextCursor);
+    } catch (e: any) {
+      const msg = e?.response?.data?.message ?? e?.message ?? "Failed to load comments";
+      Alert.alert("Error", String(msg));
+    } finally {
+      setLoadingMore(false);
+    }
+  }
+
   async function onAddComment() {
     if (!body.trim()) {
       Alert.alert("Comment required", "Write something first.");
@@ -65,6 +91,7 @@ export default function PostDetailScreen({ route, navigation }: Props) {
     try {
       const created = await addComment(postId, { body: body.trim() });
       setComments((prev) => [created, ...prev]);
+      setTotalComments((n) => n + 1);
       setBody("");
     } catch (e: any) {
       const msg = e?.response?.data?.message ?? e?.message ?? "Failed to add comment";
@@ -104,6 +131,7 @@ export default function PostDetailScreen({ route, navigation }: Props) {
           try {
             await deleteComment(postId, commentId);
             setComments((prev) => prev.filter((c) => c.id !== commentId));
+            setTotalComments((n) => Math.max(0, n - 1));
           } catch (e: any) {
             const msg = e?.response?.data?.message ?? e?.message ?? "Failed to delete comment";
             Alert.alert("Error", String(msg));
@@ -179,7 +207,7 @@ export default function PostDetailScreen({ route, navigation }: Props) {
         }}
       >
         <H1 style={{ fontSize: 20 }}>Comments</H1>
-        <Muted style={{ fontSize: 14 }}>{comments.length} total</Muted>
+        <Muted style={{ fontSize: 14 }}>{totalComments} total</Muted>
       </View>
     </View>
   );
@@ -191,6 +219,9 @@ export default function PostDetailScreen({ route, navigation }: Props) {
           data={comments}
           keyExtractor={(c) => String(c.id)}
           ListHeaderComponent={header}
+          onEndReached={loadMoreComments}
+          onEndReachedThreshold={0.5}
+          ListFooterComponent={loadingMore ? <Loading /> : null}
           contentContainerStyle={{
             paddingHorizontal: 16,
             paddingTop: 10,
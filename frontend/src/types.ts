@@ -54,11 +54,79 @@ export type PostDto = {
   authorName?: string;
 
   categoryId?: number | null;
+  commentCount?: number;
+  lastActivityAt?: string;
+  // batched on the server, so a few seconds behind; uniqueViewers is an estimate
+  viewCount?: number;
+  uniqueViewers?: number;
   comments?: CommentDto[];
 };
 
+// list endpoints return summaries; fetch /api/posts/{id} for content and comments
+export type PostSummaryDto = {
+  id: number;
+  title: string;
+  description: string;
+
+  createdAt?: string;
+  updatedAt?: string;
+
+  authorId?: number;
+  authorUsername?: string;
+  authorName?: string;
+
+  categoryId?: number | null;
+  commentCount?: number;
+  lastActivityAt?: string;
+  viewCount?: number;
+  uniqueViewers?: number;
+};
+
+// full-text search result; highlights maps a field name to a snippet with <mark> around matches
+export type PostSearchHit = {
+  id: number;
+  title: string;
+  description: string;
+  createdAt?: string;
+  authorUsername?: string;
+  authorName?: string;
+  categoryId?: number | null;
+  score: number;
+  highlights: Partial<Record<"title" | "description" | "content" | "comments", string>>;
+};
+
+export type PostSearchResponse = {
+  content: PostSearchHit[];
+  pageNo: number;
+  pageSize: number;
+  totalElements: number;
+  totalPages: number;
+  last: boolean;
+};
+
+// post: title and author username; user: username and display name
+export type SuggestionDto = {
+  id: number;
+  text: string;
+  detail?: string | null;
+};
+
+export type SuggestResponse = {
+  posts: SuggestionDto[];
+  users: SuggestionDto[];
+};
+
+export type ReactionType = "LIKE" | "LOVE" | "LAUGH" | "INSIGHTFUL";
+export type ReactionTarget = "post" | "comment";
+
+export type ReactionSummaryDto = {
+  targetId: number;
+  counts: Partial<Record<ReactionType, number>>;
+  mine: ReactionType[];
+};
+
 export type PostResponse = {
-  content: PostDto[];
+  content: PostSummaryDto[];
   pageNo: number;
   pageSize: number;
   totalElements: number;
@@ -66,6 +134,18 @@ export type PostResponse = {
   last: boolean;
 };
 
+export type CursorResponse<T> = {
+  content: T[];
+  pageSize: number;
+  // pass back as `after` for the next page; null on the last page
+  nextCursor: string | null;
+  hasNext: boolean;
+};
+
+export type CommentCursorResponse = CursorResponse<CommentDto> & {
+  totalComments: number;
+};
+
 export type CategoryDto = {
   id: number;
   name: string;